@@ -2,8 +2,14 @@ package com.azkar;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.data.mongo.MongoReactiveDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.mongo.MongoReactiveRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.mongo.MongoReactiveAutoConfiguration;
 
-@SpringBootApplication
+// The reactive Mongo client is only created in the reactive serving profile, see
+// com.azkar.reactive.ReactiveMongoConfig.
+@SpringBootApplication(exclude = {MongoReactiveAutoConfiguration.class,
+    MongoReactiveDataAutoConfiguration.class, MongoReactiveRepositoriesAutoConfiguration.class})
 public class AzkarApplication {
 
   public static void main(String[] args) {
@@ -0,0 +1,72 @@
+package com.azkar.configs;
+
+import static com.azkar.controllers.BaseController.API_VERSION_HEADER;
+import static com.azkar.controllers.BaseController.COMPACT_JSON;
+
+import com.google.common.base.Splitter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import org.springframework.http.MediaType;
+import org.springframework.util.StringUtils;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationStrategy;
+import org.springframework.web.accept.HeaderContentNegotiationStrategy;
+import org.springframework.web.context.request.NativeWebRequest;
+
+/**
+ * Resolves the media types accepted by a request from its Accept header, except that compact JSON
+ * is preferred for the clients that send an api-version at least equal to the configured one
+ * without asking for a specific media type. Other clients can still ask for compact JSON or Smile
+ * in the Accept header.
+ */
+class ApiVersionContentNegotiationStrategy implements ContentNegotiationStrategy {
+
+  private final HeaderContentNegotiationStrategy headerStrategy =
+      new HeaderContentNegotiationStrategy();
+  // Compact JSON is never preferred if no minimum API version is configured.
+  private final String compactJsonMinApiVersion;
+
+  ApiVersionContentNegotiationStrategy(String compactJsonMinApiVersion) {
+    this.compactJsonMinApiVersion = compactJsonMinApiVersion;
+  }
+
+  @Override
+  public List<MediaType> resolveMediaTypes(NativeWebRequest request)
+      throws HttpMediaTypeNotAcceptableException {
+    List<MediaType> mediaTypes = headerStrategy.resolveMediaTypes(request);
+    if (!mediaTypes.stream().allMatch(MediaType::isWildcardType)
+        || !prefersCompactJson(request.getHeader(API_VERSION_HEADER))) {
+      return mediaTypes;
+    }
+    List<MediaType> compactFirst = new ArrayList<>();
+    compactFirst.add(COMPACT_JSON);
+    compactFirst.addAll(mediaTypes);
+    return compactFirst;
+  }
+
+  private boolean prefersCompactJson(String apiVersion) {
+    if (StringUtils.isEmpty(compactJsonMinApiVersion) || StringUtils.isEmpty(apiVersion)) {
+      return false;
+    }
+    try {
+      return compareVersions(apiVersion, compactJsonMinApiVersion) >= 0;
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+
+  // Compares dotted versions, e.g. 1.3.0 and 1.10, component by component.
+  static int compareVersions(String version1, String version2) {
+    Iterator<String> components1 = Splitter.on('.').trimResults().split(version1).iterator();
+    Iterator<String> components2 = Splitter.on('.').trimResults().split(version2).iterator();
+    while (components1.hasNext() || components2.hasNext()) {
+      int component1 = components1.hasNext() ? Integer.parseInt(components1.next()) : 0;
+      int component2 = components2.hasNext() ? Integer.parseInt(components2.next()) : 0;
+      if (component1 != component2) {
+        return Integer.compare(component1, component2);
+      }
+    }
+    return 0;
+  }
+}
@@ -5,6 +5,8 @@ import com.opencsv.CSVReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 import lombok.Getter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,6 +24,7 @@ public class AzkarCacher {
   @Value("${files.azkar}")
   public String azkarFile;
   ArrayList<Zekr> azkar = new ArrayList<>();
+  Map<Integer, Zekr> azkarById = new HashMap<>();
 
   @Bean
   @Primary
@@ -38,12 +41,14 @@ public class AzkarCacher {
 
         Zekr zekr = Zekr.builder().id(Integer.parseInt(values[0])).zekr(values[1]).build();
         azkar.add(zekr);
+        azkarById.put(zekr.getId(), zekr);
       }
 
       if (azkar.size() == 0) {
         throw new IOException("Error while parsing file: " + azkarFile);
       }
       cacher.azkar = azkar;
+      cacher.azkarById = azkarById;
     } catch (Exception e) {
       logger.error("Can't retrieve azkar: " + e.getMessage());
     }
@@ -0,0 +1,34 @@
+package com.azkar.configs;
+
+import static com.azkar.controllers.BaseController.COMPACT_JSON;
+
+import com.azkar.payload.ResponseBase;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Collections;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+/**
+ * Writes responses as compact JSON, i.e. JSON without the fields that are null or have their
+ * default values, e.g. empty lists and zero scores. Clients reading compact JSON should treat
+ * missing fields as having their default values.
+ *
+ * <p>Note: Only responses are written as compact JSON, requests are always read as JSON.
+ */
+class CompactJsonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+  CompactJsonHttpMessageConverter(ObjectMapper objectMapper) {
+    super(objectMapper);
+    setSupportedMediaTypes(Collections.singletonList(COMPACT_JSON));
+  }
+
+  @Override
+  public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+    return ResponseBase.class.isAssignableFrom(clazz) && super.canWrite(clazz, mediaType);
+  }
+
+  @Override
+  protected boolean canRead(MediaType mediaType) {
+    return false;
+  }
+}
@@ -0,0 +1,49 @@
+package com.azkar.configs;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import java.util.concurrent.ThreadPoolExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * The executor running the subscribers of the domain events in com.azkar.events. Events are
+ * handled synchronously on the publishing thread when app.domain-events.async is false, e.g. in
+ * tests.
+ */
+@Configuration
+@EnableAsync
+public class DomainEventsConfig {
+
+  public static final String DOMAIN_EVENTS_EXECUTOR = "domainEventsExecutor";
+
+  @Bean(name = DOMAIN_EVENTS_EXECUTOR)
+  public TaskExecutor domainEventsExecutor(
+      @Value("${app.domain-events.async:true}") boolean async,
+      @Value("${app.domain-events.threads:4}") int threads,
+      @Value("${app.domain-events.queue-capacity:10000}") int queueCapacity,
+      MeterRegistry meterRegistry) {
+    if (!async) {
+      return new SyncTaskExecutor();
+    }
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(threads);
+    executor.setMaxPoolSize(threads);
+    executor.setQueueCapacity(queueCapacity);
+    executor.setThreadNamePrefix("domain-events-");
+    // Slows down the publishers instead of dropping events when the subscribers fall behind.
+    executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+    executor.setWaitForTasksToCompleteOnShutdown(true);
+    executor.setAwaitTerminationSeconds(10);
+    executor.initialize();
+    new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), "domain.events", Tags.empty())
+        .bindTo(meterRegistry);
+    return executor;
+  }
+}
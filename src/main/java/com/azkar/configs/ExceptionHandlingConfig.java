@@ -5,6 +5,7 @@ import com.azkar.payload.exceptions.BadRequestException;
 import com.azkar.payload.exceptions.DefaultExceptionResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -21,6 +22,11 @@ public class ExceptionHandlingConfig {
     if (e instanceof BadRequestException) {
       response.setStatus(((BadRequestException) e).error);
       return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+    } else if (e instanceof OptimisticLockingFailureException) {
+      // The request kept conflicting with concurrent ones, see OptimisticLockingRetries.
+      logger.warn(e.getMessage());
+      response.setStatus(new Status(Status.CONCURRENT_MODIFICATION_ERROR));
+      return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
     } else {
       logger.error(e.getMessage(), e);
       response.setStatus(new Status(Status.DEFAULT_ERROR));
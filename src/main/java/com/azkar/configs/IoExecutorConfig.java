@@ -0,0 +1,42 @@
+package com.azkar.configs;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import java.util.concurrent.ThreadPoolExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * The bounded executor running the independent blocking lookups of a request concurrently, see
+ * com.azkar.services.ParallelLookups.
+ *
+ * <p>A lookup that finds every thread busy and the queue full runs on the request thread instead,
+ * so a request is never slower than doing its lookups one after another. The queue is empty by
+ * default for the same reason.
+ */
+@Configuration
+public class IoExecutorConfig {
+
+  public static final String IO_EXECUTOR = "ioExecutor";
+
+  @Bean(name = IO_EXECUTOR)
+  public TaskExecutor ioExecutor(
+      @Value("${app.io-executor.threads:16}") int threads,
+      @Value("${app.io-executor.queue-capacity:0}") int queueCapacity,
+      MeterRegistry meterRegistry) {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(threads);
+    executor.setMaxPoolSize(threads);
+    executor.setQueueCapacity(queueCapacity);
+    executor.setThreadNamePrefix("io-");
+    executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+    executor.initialize();
+    new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), "io", Tags.empty())
+        .bindTo(meterRegistry);
+    return executor;
+  }
+}
@@ -0,0 +1,97 @@
+package com.azkar.configs;
+
+import com.azkar.entities.ArchivedChallenge;
+import com.azkar.entities.Group;
+import com.azkar.entities.PairScore;
+import com.azkar.entities.User;
+import com.azkar.entities.UserChallengeProgress;
+import com.azkar.migrations.MigrationsRunner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.util.ClassTypeInformation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Automatic index creation is disabled, so the indexes of the entities that are always queried by
+ * their indexes are explicitly ensured on startup.
+ */
+@Component
+public class MongoIndexesInitializer {
+
+  private static final Logger logger = LoggerFactory.getLogger(MongoIndexesInitializer.class);
+  private static final List<Class<?>> INDEXED_ENTITIES = ImmutableList.of(
+      ArchivedChallenge.class,
+      Group.class,
+      PairScore.class,
+      UserChallengeProgress.class);
+  // Entities that only some of their indexes are ensured, e.g. since the others don't hold for
+  // the existing documents.
+  private static final Map<Class<?>, Set<String>> PARTIALLY_INDEXED_ENTITIES = ImmutableMap.of(
+      User.class, ImmutableSet.of("user_groups_group_id_index"));
+
+  @Autowired
+  MongoTemplate mongoTemplate;
+
+  @Autowired
+  MongoMappingContext mongoMappingContext;
+
+  // The indexes are ensured after the migrations, which may change the indexed fields.
+  @EventListener(ContextRefreshedEvent.class)
+  @Order(MigrationsRunner.ORDER + 1)
+  public void ensureIndexes() {
+    MongoPersistentEntityIndexResolver indexResolver =
+        new MongoPersistentEntityIndexResolver(mongoMappingContext);
+    for (Class<?> entity : INDEXED_ENTITIES) {
+      ensureIndexesLoggingErrors(indexResolver, entity, index -> true);
+    }
+    PARTIALLY_INDEXED_ENTITIES.forEach((entity, indexesNames) ->
+        ensureIndexesLoggingErrors(indexResolver, entity,
+            index -> indexesNames.contains(index.getIndexOptions().get("name"))));
+  }
+
+  /**
+   * Ensures all the indexes of {@code entity}, for the migrations that depend on them, e.g. to skip
+   * the duplicates of a unique index. Unlike on startup, failures are thrown so that the migration
+   * fails instead of running without the indexes.
+   */
+  public void ensureIndexes(Class<?> entity) {
+    ensureIndexes(new MongoPersistentEntityIndexResolver(mongoMappingContext), entity,
+        index -> true);
+  }
+
+  private void ensureIndexesLoggingErrors(MongoPersistentEntityIndexResolver indexResolver,
+      Class<?> entity, Predicate<IndexDefinition> filter) {
+    try {
+      ensureIndexes(indexResolver, entity, filter);
+    } catch (RuntimeException e) {
+      logger.error(String.format("Could not ensure the indexes of: %s", entity.getName()), e);
+    }
+  }
+
+  private void ensureIndexes(MongoPersistentEntityIndexResolver indexResolver, Class<?> entity,
+      Predicate<IndexDefinition> filter) {
+    IndexOperations indexOperations = mongoTemplate.indexOps(entity);
+    for (IndexDefinition index :
+        indexResolver.resolveIndexFor(ClassTypeInformation.from(entity))) {
+      if (filter.test(index)) {
+        indexOperations.ensureIndex(index);
+      }
+    }
+  }
+}
@@ -0,0 +1,124 @@
+package com.azkar.configs;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.ThreadLocalRandom;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.aop.framework.AbstractAdvisingBeanPostProcessor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Retries the methods annotated with {@link RetryOnConflict} when saving a versioned document
+ * (User, Group or Friendship) fails because it was modified after it was loaded. Every attempt
+ * starts from scratch with the repositories request cache cleared so that the documents are
+ * reloaded and revalidated, and attempts are spread by a small random backoff.
+ *
+ * <p>An attempt that already saved or deleted other documents before the conflict is not retried,
+ * since running it again could apply these writes twice, and neither is the last attempt. The
+ * conflict is then surfaced to the client, see ExceptionHandlingConfig.
+ *
+ * <p>Conflicts, retries and failures are counted per endpoint in the optimistic.locking.* meters.
+ */
+@Component
+public class OptimisticLockingRetries extends AbstractAdvisingBeanPostProcessor {
+
+  private static final Logger logger = LoggerFactory.getLogger(OptimisticLockingRetries.class);
+  private static final ThreadLocal<Attempt> currentAttempt = new ThreadLocal<>();
+
+  private final ObjectProvider<MeterRegistry> meterRegistry;
+  private final int maxAttempts;
+  private final long backoffMillis;
+
+  public OptimisticLockingRetries(ObjectProvider<MeterRegistry> meterRegistry,
+      @Value("${app.optimistic-locking.max-attempts:3}") int maxAttempts,
+      @Value("${app.optimistic-locking.backoff-millis:20}") long backoffMillis) {
+    this.meterRegistry = meterRegistry;
+    this.maxAttempts = maxAttempts;
+    this.backoffMillis = backoffMillis;
+    // Controllers don't implement interfaces, so they are proxied by subclassing.
+    setProxyTargetClass(true);
+    this.advisor = new DefaultPointcutAdvisor(
+        AnnotationMatchingPointcut.forMethodAnnotation(RetryOnConflict.class),
+        new RetryingInterceptor());
+  }
+
+  private void increment(String meterName, String endpoint) {
+    MeterRegistry registry = meterRegistry.getIfAvailable();
+    if (registry != null) {
+      registry.counter(meterName, "endpoint", endpoint).increment();
+    }
+  }
+
+  private static class Attempt {
+
+    boolean wrote;
+  }
+
+  private class RetryingInterceptor implements MethodInterceptor {
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+      // A nested annotated method is retried as a part of the outermost one.
+      if (currentAttempt.get() != null) {
+        return invocation.proceed();
+      }
+      String endpoint = ClassUtils.getUserClass(invocation.getThis()).getSimpleName() + "."
+          + invocation.getMethod().getName();
+      for (int attemptNumber = 1; ; attemptNumber++) {
+        Attempt attempt = new Attempt();
+        currentAttempt.set(attempt);
+        try {
+          return ((ProxyMethodInvocation) invocation).invocableClone().proceed();
+        } catch (OptimisticLockingFailureException e) {
+          increment("optimistic.locking.conflicts", endpoint);
+          if (attempt.wrote || attemptNumber >= maxAttempts) {
+            increment("optimistic.locking.failures", endpoint);
+            logger.warn("Giving up {} after {} attempt(s) on a concurrent modification.",
+                endpoint, attemptNumber);
+            throw e;
+          }
+        } finally {
+          currentAttempt.remove();
+        }
+        increment("optimistic.locking.retries", endpoint);
+        logger.debug("Retrying {} on a concurrent modification.", endpoint);
+        RepositoriesRequestCache.clear();
+        Thread.sleep(ThreadLocalRandom.current().nextLong(backoffMillis * attemptNumber + 1));
+      }
+    }
+  }
+
+  // Records that the current attempt, if any, has written to the database.
+  @Component
+  static class WritesListener extends AbstractMongoEventListener<Object> {
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Object> event) {
+      markWrite();
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Object> event) {
+      markWrite();
+    }
+
+    private static void markWrite() {
+      Attempt attempt = currentAttempt.get();
+      if (attempt != null) {
+        attempt.wrote = true;
+      }
+    }
+  }
+}
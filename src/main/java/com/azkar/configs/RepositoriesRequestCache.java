@@ -0,0 +1,136 @@
+package com.azkar.configs;
+
+import com.azkar.repos.FriendshipRepo;
+import com.azkar.repos.GroupRepo;
+import com.azkar.repos.UserRepo;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * A request-scoped identity map in front of the User, Group and Friendship repositories. Within
+ * one request, a document loaded by its ID is fetched from the database at most once, and any
+ * write through the same repository evicts what was cached for it.
+ *
+ * <p>Note: Loads outside of a web request (e.g. in filters or background threads) are not cached.
+ */
+@Component
+public class RepositoriesRequestCache implements BeanPostProcessor {
+
+  private static final Logger logger = LoggerFactory.getLogger(RepositoriesRequestCache.class);
+  private static final String CACHE_ATTRIBUTE = RepositoriesRequestCache.class.getName();
+  private static final List<Class<?>> CACHED_REPOSITORIES =
+      ImmutableList.of(UserRepo.class, GroupRepo.class, FriendshipRepo.class);
+  // Methods that load one document by a unique key.
+  private static final Set<String> CACHED_METHODS = ImmutableSet.of("findById", "findByUserId");
+  // Methods that never modify documents, so they don't need to evict the cache.
+  private static final List<String> READ_METHODS_PREFIXES =
+      ImmutableList.of("find", "exists", "count", "get", "stream");
+
+  private final ObjectProvider<MeterRegistry> meterRegistry;
+
+  public RepositoriesRequestCache(ObjectProvider<MeterRegistry> meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  public Object postProcessAfterInitialization(Object bean, String beanName) {
+    if (!(bean instanceof Advised)) {
+      return bean;
+    }
+    for (Class<?> repository : CACHED_REPOSITORIES) {
+      if (repository.isInstance(bean)) {
+        ((Advised) bean).addAdvice(0, new CachingInterceptor(repository));
+      }
+    }
+    return bean;
+  }
+
+  // Drops whatever was cached in the current request so that the documents are reloaded, e.g. when
+  // the request is retried after a concurrent modification.
+  public static void clear() {
+    RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+    if (requestAttributes != null) {
+      requestAttributes.removeAttribute(CACHE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<Class<?>, Map<List<Object>, Object>> getRequestCache(
+      RequestAttributes requestAttributes) {
+    Object cache =
+        requestAttributes.getAttribute(CACHE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    if (cache == null) {
+      cache = new HashMap<Class<?>, Map<List<Object>, Object>>();
+      requestAttributes.setAttribute(CACHE_ATTRIBUTE, cache, RequestAttributes.SCOPE_REQUEST);
+    }
+    return (Map<Class<?>, Map<List<Object>, Object>>) cache;
+  }
+
+  private static boolean isReadMethod(String methodName) {
+    return READ_METHODS_PREFIXES.stream().anyMatch(methodName::startsWith);
+  }
+
+  private void recordLookup(Class<?> repository, boolean hit) {
+    String result = hit ? "hit" : "miss";
+    logger.debug("Request cache {} for {}", result, repository.getSimpleName());
+    MeterRegistry registry = meterRegistry.getIfAvailable();
+    if (registry != null) {
+      registry.counter("repositories.request.cache", "repository", repository.getSimpleName(),
+          "result", result).increment();
+    }
+  }
+
+  private class CachingInterceptor implements MethodInterceptor {
+
+    private final Class<?> repository;
+
+    CachingInterceptor(Class<?> repository) {
+      this.repository = repository;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+      RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+      if (requestAttributes == null) {
+        return invocation.proceed();
+      }
+      String methodName = invocation.getMethod().getName();
+      Object[] arguments = invocation.getArguments();
+      Map<List<Object>, Object> cache = getRequestCache(requestAttributes)
+          .computeIfAbsent(repository, key -> new HashMap<>());
+
+      if (CACHED_METHODS.contains(methodName) && arguments.length == 1 && arguments[0] != null) {
+        List<Object> key = Arrays.asList(methodName, arguments[0]);
+        boolean hit = cache.containsKey(key);
+        recordLookup(repository, hit);
+        if (hit) {
+          return cache.get(key);
+        }
+        Object result = invocation.proceed();
+        cache.put(key, result);
+        return result;
+      }
+
+      if (!isReadMethod(methodName)) {
+        cache.clear();
+      }
+      return invocation.proceed();
+    }
+  }
+}
@@ -0,0 +1,21 @@
+package com.azkar.configs;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a controller method that reads and then saves versioned documents so that it is retried
+ * when one of them was modified concurrently, see {@link OptimisticLockingRetries}.
+ *
+ * <p>Note: The method should do its first write only after it has loaded and validated everything
+ * it needs, since an attempt that fails after writing is not retried.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RetryOnConflict {
+
+}
@@ -0,0 +1,29 @@
+package com.azkar.configs;
+
+import com.azkar.entities.VersionStamped;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Increments the version stamp of the {@link VersionStamped} documents whenever they are saved
+ * through the repositories or the template. The documents whose stamp is their @Version are left
+ * to Spring Data, which increments it while checking it on save.
+ */
+@Component
+public class VersionStampsListener extends AbstractMongoEventListener<VersionStamped> {
+
+  @Autowired
+  private MongoMappingContext mappingContext;
+
+  @Override
+  public void onBeforeConvert(BeforeConvertEvent<VersionStamped> event) {
+    VersionStamped document = event.getSource();
+    if (mappingContext.getRequiredPersistentEntity(document.getClass()).hasVersionProperty()) {
+      return;
+    }
+    document.setVersion(document.getVersion() + 1);
+  }
+}
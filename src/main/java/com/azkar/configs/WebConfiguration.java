@@ -1,15 +1,107 @@
 package com.azkar.configs;
 
+import com.azkar.reactive.ReactiveHandlerCondition;
+import com.azkar.reactive.ReactiveReadController;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadPoolExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.filter.OrderedRequestContextFilter;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.filter.RequestContextFilter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.ContentNegotiationConfigurer;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurationSupport;
+import org.springframework.web.servlet.mvc.condition.RequestCondition;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 
 @Configuration
 public class WebConfiguration extends WebMvcConfigurationSupport {
 
+  public static final String ASYNC_REQUESTS_EXECUTOR = "asyncRequestsExecutor";
+
+  @Value("${app.compact-json.min-api-version:}")
+  String compactJsonMinApiVersion;
+
+  @Value("${app.async-requests.timeout-millis:30000}")
+  long asyncRequestsTimeoutMillis;
+
   @Override
   public void addResourceHandlers(ResourceHandlerRegistry registry) {
     registry.addResourceHandler("/**")
         .addResourceLocations("classpath:/static/");
   }
+
+  // Exposes the request attributes before the security filters run so that the request-scoped
+  // repositories cache also covers loading the authenticated user, see RepositoriesRequestCache.
+  @Bean
+  public RequestContextFilter requestContextFilter() {
+    return new OrderedRequestContextFilter();
+  }
+
+  // Runs the streamed response bodies and the other asynchronously handled requests on a bounded
+  // pool instead of a new thread per request.
+  @Bean(name = ASYNC_REQUESTS_EXECUTOR)
+  public ThreadPoolTaskExecutor asyncRequestsExecutor(
+      @Value("${app.async-requests.threads:16}") int threads,
+      @Value("${app.async-requests.queue-capacity:100}") int queueCapacity,
+      MeterRegistry meterRegistry) {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(threads);
+    executor.setMaxPoolSize(threads);
+    executor.setQueueCapacity(queueCapacity);
+    executor.setThreadNamePrefix("async-requests-");
+    // Writes the response on the request thread instead of failing it when the pool is saturated.
+    executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+    executor.initialize();
+    new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), "async.requests", Tags.empty())
+        .bindTo(meterRegistry);
+    return executor;
+  }
+
+  @Override
+  protected void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+    configurer.setTaskExecutor(getApplicationContext()
+        .getBean(ASYNC_REQUESTS_EXECUTOR, ThreadPoolTaskExecutor.class));
+    configurer.setDefaultTimeout(asyncRequestsTimeoutMillis);
+  }
+
+  @Override
+  protected void configureContentNegotiation(ContentNegotiationConfigurer configurer) {
+    configurer.strategies(Collections.singletonList(
+        new ApiVersionContentNegotiationStrategy(compactJsonMinApiVersion)));
+  }
+
+  // Smile is written by the default converters since jackson-dataformat-smile is on the classpath,
+  // and compact JSON is added after them so that JSON stays the default.
+  @Override
+  protected void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+    converters.add(new CompactJsonHttpMessageConverter(Jackson2ObjectMapperBuilder.json()
+        .applicationContext(getApplicationContext())
+        .serializationInclusion(Include.NON_DEFAULT)
+        .build()));
+  }
+
+  // The reactive handlers of the reactive serving profile map the same requests as the blocking
+  // ones, so they are told apart by a condition that makes them preferred.
+  @Override
+  protected RequestMappingHandlerMapping createRequestMappingHandlerMapping() {
+    return new RequestMappingHandlerMapping() {
+      @Override
+      protected RequestCondition<?> getCustomTypeCondition(Class<?> handlerType) {
+        return AnnotatedElementUtils.hasAnnotation(handlerType, ReactiveReadController.class)
+            ? ReactiveHandlerCondition.INSTANCE : null;
+      }
+    };
+  }
 }
@@ -3,7 +3,6 @@ package com.azkar.configs.authentication;
 import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.exceptions.TokenExpiredException;
 import com.azkar.configs.SecurityConfig;
-import com.azkar.entities.User;
 import com.azkar.payload.ResponseBase.Status;
 import com.azkar.payload.authenticationcontroller.responses.UnauthenticatedResponse;
 import com.azkar.services.JwtService;
@@ -63,7 +62,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     logger.info(String.format("Token used for authentication is: %s", token));
 
     try {
-      String userId = jwtService.getVerifier().verify(token).getSubject();
+      String userId = jwtService.verifyAndGetSubject(token);
       populateSecurityContextWithUser(userId);
       filterChain.doFilter(httpServletRequest, httpServletResponse);
     } catch (TokenExpiredException exception) {
@@ -78,13 +77,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
   }
 
   private void populateSecurityContextWithUser(String userId) {
-    User currentUser = userService.loadUserById(userId);
-    if (currentUser != null) {
-      UserPrincipal userPrincipal = new UserPrincipal();
-      userPrincipal.setUserId(userId);
-      userPrincipal.setUsername(currentUser.getUsername());
+    UserPrincipal userPrincipal = userService.loadUserPrincipalById(userId);
+    if (userPrincipal != null) {
       logger.info(String.format("The username of the requesting user: %s",
-          currentUser.getUsername()));
+          userPrincipal.getUsername()));
       Authentication authToken =
           new PreAuthenticatedAuthenticationToken(
               userPrincipal, null, userPrincipal.getAuthorities());
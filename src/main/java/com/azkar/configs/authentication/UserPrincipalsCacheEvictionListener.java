@@ -0,0 +1,37 @@
+package com.azkar.configs.authentication;
+
+import com.azkar.entities.User;
+import com.azkar.services.UserService;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Evicts the cached principal of a user whenever the user document is saved or deleted, so that
+ * a changed username is picked up by the next request.
+ */
+@Component
+public class UserPrincipalsCacheEvictionListener extends AbstractMongoEventListener<User> {
+
+  @Autowired
+  UserService userService;
+
+  @Override
+  public void onAfterSave(AfterSaveEvent<User> event) {
+    userService.evictUserPrincipal(event.getSource().getId());
+  }
+
+  @Override
+  public void onAfterDelete(AfterDeleteEvent<User> event) {
+    Object id = event.getSource().get("_id");
+    if (id instanceof String || id instanceof ObjectId) {
+      userService.evictUserPrincipal(id.toString());
+      return;
+    }
+    // The deleted users are not known exactly.
+    userService.evictAllUserPrincipals();
+  }
+}
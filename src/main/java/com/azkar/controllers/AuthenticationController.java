@@ -1,5 +1,9 @@
 package com.azkar.controllers;
 
+import static com.azkar.controllers.BaseController.COMPACT_JSON_VALUE;
+import static com.azkar.controllers.BaseController.SMILE_VALUE;
+
+import com.azkar.configs.RetryOnConflict;
 import com.azkar.entities.RegistrationEmailConfirmationState;
 import com.azkar.entities.User;
 import com.azkar.entities.User.UserFacebookData;
@@ -16,9 +20,10 @@ import com.azkar.payload.authenticationcontroller.responses.FacebookAuthenticati
 import com.azkar.payload.authenticationcontroller.responses.ResetPasswordResponse;
 import com.azkar.repos.RegistrationEmailConfirmationStateRepo;
 import com.azkar.repos.UserRepo;
+import com.azkar.services.FacebookGraphService;
+import com.azkar.services.FacebookGraphService.BasicProfile;
 import com.azkar.services.JwtService;
 import com.azkar.services.UserService;
-import com.fasterxml.jackson.annotation.JsonProperty;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
@@ -29,13 +34,11 @@ import java.util.UUID;
 import javax.mail.MessagingException;
 import javax.mail.internet.InternetAddress;
 import javax.mail.internet.MimeMessage;
-import lombok.Data;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -51,10 +54,10 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.client.RestTemplate;
 
 @RestController
-@RequestMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+@RequestMapping(
+    produces = {MediaType.APPLICATION_JSON_VALUE, COMPACT_JSON_VALUE, SMILE_VALUE})
 public class AuthenticationController extends BaseController {
 
   public static final String LOGIN_WITH_FACEBOOK_PATH = "/login/facebook";
@@ -81,11 +84,8 @@ public class AuthenticationController extends BaseController {
   private RegistrationEmailConfirmationStateRepo registrationPinRepo;
   @Autowired
   private JavaMailSender javaMailSender;
-  private RestTemplate restTemplate;
-
-  public AuthenticationController(RestTemplateBuilder restTemplateBuilder) {
-    restTemplate = restTemplateBuilder.build();
-  }
+  @Autowired
+  private FacebookGraphService facebookGraphService;
 
   @PutMapping(value = REGISTER_WITH_EMAIL_PATH, consumes = MediaType.APPLICATION_JSON_VALUE)
   public ResponseEntity<EmailRegistrationResponse> registerWithEmail(
@@ -199,6 +199,7 @@ public class AuthenticationController extends BaseController {
   }
 
   @PostMapping(value = RESET_PASSWORD_PATH, consumes = MediaType.APPLICATION_JSON_VALUE)
+  @RetryOnConflict
   public ResponseEntity<ResetPasswordResponse> resetPassword(
       @RequestBody ResetPasswordRequest request) throws MessagingException, IOException {
     request.validate();
@@ -242,7 +243,7 @@ public class AuthenticationController extends BaseController {
       return ResponseEntity.badRequest().body(response);
     }
 
-    FacebookBasicProfileResponse facebookResponse = assertUserFacebookData(requestBody);
+    BasicProfile facebookResponse = assertUserFacebookData(requestBody);
 
     if (facebookResponse == null) {
       response
@@ -257,17 +258,17 @@ public class AuthenticationController extends BaseController {
           userRepo.findByUserFacebookData_UserId(facebookResponse.getId()).orElse(null);
       if (user == null) {
         // Case 1
-        user = userService.buildNewUser(facebookResponse.email, facebookResponse.firstName,
-            facebookResponse.lastName);
+        user = userService.buildNewUser(facebookResponse.getEmail(),
+            facebookResponse.getFirstName(), facebookResponse.getLastName());
         user = userService.addNewUser(user);
       }
 
       UserFacebookData userFacebookData = UserFacebookData.builder()
           .accessToken(requestBody.getToken())
-          .userId(facebookResponse.id)
-          .firstName(facebookResponse.firstName)
-          .lastName(facebookResponse.lastName)
-          .email(facebookResponse.email).build();
+          .userId(facebookResponse.getId())
+          .firstName(facebookResponse.getFirstName())
+          .lastName(facebookResponse.getLastName())
+          .email(facebookResponse.getEmail()).build();
       user.setUserFacebookData(userFacebookData);
       user.setFirstName(userFacebookData.getFirstName());
       user.setLastName(userFacebookData.getLastName());
@@ -293,12 +294,13 @@ public class AuthenticationController extends BaseController {
    * in user so the security context authentication is expected to be set.
    */
   @PutMapping(value = "/connect/facebook", consumes = MediaType.APPLICATION_JSON_VALUE)
+  @RetryOnConflict
   public ResponseEntity<FacebookAuthenticationResponse> connectFacebook(
       @RequestBody FacebookAuthenticationRequest requestBody) {
     requestBody.validate();
     FacebookAuthenticationResponse response = new FacebookAuthenticationResponse();
 
-    FacebookBasicProfileResponse facebookResponse = assertUserFacebookData(requestBody);
+    BasicProfile facebookResponse = assertUserFacebookData(requestBody);
 
     if (facebookResponse == null) {
       response
@@ -319,10 +321,10 @@ public class AuthenticationController extends BaseController {
 
     UserFacebookData userFacebookData = UserFacebookData.builder()
         .accessToken(requestBody.getToken())
-        .userId(facebookResponse.id)
-        .firstName(facebookResponse.firstName)
-        .lastName(facebookResponse.lastName)
-        .email(facebookResponse.email).build();
+        .userId(facebookResponse.getId())
+        .firstName(facebookResponse.getFirstName())
+        .lastName(facebookResponse.getLastName())
+        .email(facebookResponse.getEmail()).build();
     user.setUserFacebookData(userFacebookData);
     userRepo.save(user);
 
@@ -372,30 +374,11 @@ public class AuthenticationController extends BaseController {
     return new Random(System.currentTimeMillis()).nextInt(max - min) + min;
   }
 
-  private FacebookBasicProfileResponse assertUserFacebookData(FacebookAuthenticationRequest body) {
-    String facebookGraphApiUril =
-        "https://graph.facebook.com/v7.0/me?fields=id,first_name,last_name,email&access_token="
-            + body.getToken();
-    FacebookBasicProfileResponse facebookResponse = restTemplate.getForObject(
-        facebookGraphApiUril,
-        FacebookBasicProfileResponse.class);
-
-    if (facebookResponse.id == null || !facebookResponse.id.equals(body.getFacebookUserId())) {
+  private BasicProfile assertUserFacebookData(FacebookAuthenticationRequest body) {
+    BasicProfile facebookProfile = facebookGraphService.getBasicProfile(body.getToken());
+    if (facebookProfile == null || !facebookProfile.getId().equals(body.getFacebookUserId())) {
       return null;
     }
-
-    return facebookResponse;
-
-  }
-
-  @Data
-  public static class FacebookBasicProfileResponse {
-
-    String id;
-    @JsonProperty("first_name")
-    String firstName;
-    @JsonProperty("last_name")
-    String lastName;
-    String email;
+    return facebookProfile;
   }
 }
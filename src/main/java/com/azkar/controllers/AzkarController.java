@@ -7,14 +7,22 @@ import com.azkar.entities.Zekr;
 import com.azkar.payload.ResponseBase.Status;
 import com.azkar.payload.azkarcontroller.responses.GetAzkarResponse;
 import com.azkar.payload.azkarcontroller.responses.GetCategoriesResponse;
+import com.azkar.services.CatalogResponses;
+import com.azkar.services.CatalogResponses.SerializedResponse;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 
 // TODO(issue/238): Remove GET /azkar and rename this class
@@ -29,8 +37,15 @@ public class AzkarController extends BaseController {
   @Autowired
   CategoriesCacher categoriesCacher;
 
+  @Autowired
+  CatalogResponses catalogResponses;
+
+  @Value("${app.catalog.max-age-seconds:86400}")
+  long catalogMaxAgeSeconds;
+
   @GetMapping(path = "/azkar", produces = MediaType.APPLICATION_JSON_VALUE)
-  public ResponseEntity<GetAzkarResponse> getAzkar() {
+  public ResponseEntity<?> getAzkar(
+      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
     GetAzkarResponse response = new GetAzkarResponse();
     List<Zekr> azkar = azkarCacher.getAzkar();
     if (azkar.isEmpty()) {
@@ -39,12 +54,12 @@ public class AzkarController extends BaseController {
       return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
     }
 
-    response.setData(azkar);
-    return ResponseEntity.ok(response);
+    return toResponseEntity(catalogResponses.getAzkar(), acceptEncoding);
   }
 
   @GetMapping(path = "/categories", produces = MediaType.APPLICATION_JSON_VALUE)
-  public ResponseEntity<GetCategoriesResponse> getCategories() {
+  public ResponseEntity<?> getCategories(
+      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
     GetCategoriesResponse response = new GetCategoriesResponse();
     List<Category> categories = categoriesCacher.getCategories();
     if (categories.isEmpty()) {
@@ -53,8 +68,56 @@ public class AzkarController extends BaseController {
       return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
     }
 
-    response.setData(categories);
-    return ResponseEntity.ok(response);
+    return toResponseEntity(catalogResponses.getCategories(), acceptEncoding);
+  }
+
+  // Writes the pre-serialized response as is, gzipped if the client accepts it. Conditional
+  // requests matching the ETag are answered with 304 by Spring MVC itself.
+  private ResponseEntity<byte[]> toResponseEntity(SerializedResponse response,
+      String acceptEncoding) {
+    ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_JSON)
+        .cacheControl(CacheControl.maxAge(catalogMaxAgeSeconds, TimeUnit.SECONDS).cachePublic())
+        .varyBy(HttpHeaders.ACCEPT_ENCODING);
+    if (acceptsGzip(acceptEncoding)) {
+      return builder.eTag(response.getGzippedETag())
+          .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+          .body(response.getGzippedBody());
+    }
+    return builder.eTag(response.getETag()).body(response.getBody());
+  }
+
+  // Whether the Accept-Encoding header accepts gzip, either explicitly or through "*", with a
+  // non-zero quality value. Malformed quality values are treated as not accepting the coding.
+  private static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    Double wildcardQuality = null;
+    for (String coding : acceptEncoding.split(",")) {
+      String[] parts = coding.split(";");
+      String name = parts[0].trim().toLowerCase(Locale.ENGLISH);
+      if (name.equals("gzip")) {
+        return getQuality(parts) > 0;
+      }
+      if (name.equals("*")) {
+        wildcardQuality = getQuality(parts);
+      }
+    }
+    return wildcardQuality != null && wildcardQuality > 0;
   }
 
+  private static double getQuality(String[] codingParts) {
+    for (int i = 1; i < codingParts.length; i++) {
+      String parameter = codingParts[i].trim();
+      if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+        try {
+          return Double.parseDouble(parameter.substring(2).trim());
+        } catch (NumberFormatException e) {
+          return 0;
+        }
+      }
+    }
+    return 1;
+  }
 }
@@ -1,13 +1,36 @@
 package com.azkar.controllers;
 
 import com.azkar.configs.authentication.UserPrincipal;
+import com.azkar.entities.Group;
 import com.azkar.entities.User;
+import com.azkar.entities.UserChallengeProgress;
 import com.azkar.repos.UserRepo;
+import com.google.common.base.Joiner;
+import com.google.common.hash.Hashing;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import javax.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
 
 public class BaseController {
 
   public static final String API_VERSION_HEADER = "api-version";
+  // Responses are written as JSON unless the client asks for one of the following media types in
+  // the Accept header, or for compact JSON through its api-version, see WebConfiguration.
+  public static final String COMPACT_JSON_VALUE = "application/vnd.azkar.compact+json";
+  public static final MediaType COMPACT_JSON = MediaType.valueOf(COMPACT_JSON_VALUE);
+  public static final String SMILE_VALUE = "application/x-jackson-smile";
+
+  @Autowired
+  private ContentNegotiationManager contentNegotiationManager;
 
   protected UserPrincipal getCurrentUser() {
     return (UserPrincipal) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
@@ -16,4 +39,70 @@ public class BaseController {
   protected User getCurrentUser(UserRepo userRepo) {
     return userRepo.findById(getCurrentUser().getUserId()).get();
   }
+
+  /**
+   * Returns a stamp of the representation the response to the current request is written in, to be
+   * passed to {@link #toETag(Object...)} with the stamps of the documents. Responses built from the
+   * same documents are written differently for different accepted media types and when they are
+   * streamed, so they must not share an ETag.
+   *
+   * <p>Note: The stamp is read from the current request, so it has to be called on the request
+   * thread.
+   */
+  protected String getRepresentationStamp(boolean stream) {
+    HttpServletRequest request =
+        ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getRequest();
+    String acceptedMediaTypes;
+    try {
+      // The accepted media types and the media types a handler produces decide the media type of
+      // the response, see WebConfiguration.
+      acceptedMediaTypes = MediaType.toString(
+          contentNegotiationManager.resolveMediaTypes(new ServletWebRequest(request)));
+    } catch (HttpMediaTypeNotAcceptableException e) {
+      acceptedMediaTypes = "";
+    }
+    return acceptedMediaTypes + (stream ? ";stream" : "");
+  }
+
+  /**
+   * Returns a strong ETag that changes whenever any of the given stamps changes, e.g. the IDs and
+   * version stamps of the documents a response is built from.
+   *
+   * <p>Note: The stamps should be read before the documents, so that a response is never older
+   * than its ETag.
+   */
+  protected static String toETag(Object... stamps) {
+    return "\"" + Hashing.murmur3_128()
+        .hashString(Joiner.on(':').useForNull("").join(stamps), StandardCharsets.UTF_8)
+        + "\"";
+  }
+
+  /**
+   * Returns the ETag of a list of groups from the given groups with their ids and versions.
+   */
+  protected static String toGroupsETag(String representation, List<Group> groupsVersions) {
+    List<Object> groupsStamps = new ArrayList<>();
+    groupsStamps.add(representation);
+    groupsVersions.forEach(group -> {
+      groupsStamps.add(group.getId());
+      groupsStamps.add(group.getVersion());
+    });
+    return toETag(groupsStamps.toArray());
+  }
+
+  /**
+   * Returns the ETag of a page of the challenges of {@code currentUserId} from the given challenge
+   * copies with their ids and versions.
+   */
+  protected static String toPageETag(String representation, String currentUserId,
+      List<UserChallengeProgress> page) {
+    List<Object> pageStamps = new ArrayList<>();
+    pageStamps.add(representation);
+    pageStamps.add(currentUserId);
+    page.forEach(progress -> {
+      pageStamps.add(progress.getId());
+      pageStamps.add(progress.getVersion());
+    });
+    return toETag(pageStamps.toArray());
+  }
 }
@@ -1,15 +1,25 @@
 package com.azkar.controllers;
 
+import static com.azkar.controllers.BaseController.COMPACT_JSON_VALUE;
+import static com.azkar.controllers.BaseController.SMILE_VALUE;
+
+import com.azkar.configs.RetryOnConflict;
+import com.azkar.entities.ArchivedChallenge;
 import com.azkar.entities.Challenge;
 import com.azkar.entities.Challenge.SubChallenge;
 import com.azkar.entities.Friendship;
 import com.azkar.entities.Group;
 import com.azkar.entities.User;
 import com.azkar.entities.User.UserGroup;
+import com.azkar.entities.UserChallengeProgress;
+import com.azkar.events.ChallengeCompletedEvent;
+import com.azkar.events.ChallengeCreatedEvent;
+import com.azkar.events.DomainEventsPublisher;
 import com.azkar.payload.ResponseBase.Status;
 import com.azkar.payload.challengecontroller.requests.AddChallengeRequest;
 import com.azkar.payload.challengecontroller.requests.AddFriendsChallengeRequest;
 import com.azkar.payload.challengecontroller.requests.AddPersonalChallengeRequest;
+import com.azkar.payload.challengecontroller.requests.GetChallengesRequest;
 import com.azkar.payload.challengecontroller.requests.UpdateChallengeRequest;
 import com.azkar.payload.challengecontroller.responses.AddChallengeResponse;
 import com.azkar.payload.challengecontroller.responses.AddPersonalChallengeResponse;
@@ -18,23 +28,29 @@ import com.azkar.payload.challengecontroller.responses.GetChallengeResponse;
 import com.azkar.payload.challengecontroller.responses.GetChallengesResponse;
 import com.azkar.payload.challengecontroller.responses.UpdateChallengeResponse;
 import com.azkar.payload.exceptions.BadRequestException;
+import com.azkar.repos.ArchivedChallengeRepo;
 import com.azkar.repos.ChallengeRepo;
 import com.azkar.repos.FriendshipRepo;
 import com.azkar.repos.GroupRepo;
+import com.azkar.repos.UserChallengeProgressRepo;
+import com.azkar.repos.UserChallengeProgressRepoImpl;
 import com.azkar.repos.UserRepo;
-import com.azkar.services.NotificationsService;
+import com.azkar.services.ParallelLookups;
+import com.azkar.services.StreamingResponses;
+import com.google.common.collect.ImmutableList;
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -47,15 +63,17 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
-@RequestMapping(path = "/challenges", produces = MediaType.APPLICATION_JSON_VALUE)
+@RequestMapping(path = "/challenges",
+    produces = {MediaType.APPLICATION_JSON_VALUE, COMPACT_JSON_VALUE, SMILE_VALUE})
 public class ChallengeController extends BaseController {
 
   private static final Logger logger = LoggerFactory.getLogger(ChallengeController.class);
 
   @Autowired
-  NotificationsService notificationsService;
+  DomainEventsPublisher domainEventsPublisher;
   @Autowired
   UserRepo userRepo;
   @Autowired
@@ -64,6 +82,14 @@ public class ChallengeController extends BaseController {
   GroupRepo groupRepo;
   @Autowired
   FriendshipRepo friendshipRepo;
+  @Autowired
+  UserChallengeProgressRepo userChallengeProgressRepo;
+  @Autowired
+  ArchivedChallengeRepo archivedChallengeRepo;
+  @Autowired
+  StreamingResponses streamingResponses;
+  @Autowired
+  ParallelLookups parallelLookups;
 
   // Note: This function may modify oldSubChallenges.
   private static Optional<ResponseEntity<UpdateChallengeResponse>> updateOldSubChallenges(
@@ -99,17 +125,6 @@ public class ChallengeController extends BaseController {
     return Optional.empty();
   }
 
-  private static void updateScore(User user, String groupId) {
-    Optional<UserGroup> group =
-        user.getUserGroups().stream().filter(userGroup -> userGroup.getGroupId().equals(groupId))
-            .findAny();
-    if (!group.isPresent()) {
-      throw new RuntimeException("The updated challenge is not in a group.");
-    }
-    int oldScore = group.get().getTotalScore();
-    group.get().setTotalScore(oldScore + 1);
-  }
-
   private static Optional<SubChallenge> findSubChallenge(
       List<SubChallenge> oldSubChallenges,
       SubChallenge newSubChallenge) {
@@ -142,6 +157,7 @@ public class ChallengeController extends BaseController {
   }
 
   @PostMapping(path = "/personal", consumes = MediaType.APPLICATION_JSON_VALUE)
+  @RetryOnConflict
   public ResponseEntity<AddPersonalChallengeResponse> addPersonalChallenge(
       @RequestBody AddPersonalChallengeRequest request) {
     AddPersonalChallengeResponse response = new AddPersonalChallengeResponse();
@@ -164,21 +180,67 @@ public class ChallengeController extends BaseController {
 
     User loggedInUser = getCurrentUser(userRepo);
     loggedInUser.getPersonalChallenges().add(challenge);
-    challengeRepo.save(challenge);
     userRepo.save(loggedInUser);
+    challengeRepo.save(challenge);
     response.setData(challenge);
     return ResponseEntity.ok(response);
   }
 
   @GetMapping(path = "/personal")
-  public ResponseEntity<GetChallengesResponse> getPersonalChallenges() {
+  public ResponseEntity<GetChallengesResponse> getPersonalChallenges(
+      GetChallengesRequest request) {
+    GetChallengesResponse response = new GetChallengesResponse();
+    try {
+      request.validate();
+    } catch (BadRequestException e) {
+      response.setStatus(e.error);
+      return ResponseEntity.badRequest().body(response);
+    }
+    String currentUserId = getCurrentUser().getUserId();
+    Integer cursorIndex = null;
+    if (request.getCursor() != null) {
+      cursorIndex = userRepo.findPersonalChallengeIndex(currentUserId, request.getCursor());
+      if (cursorIndex < 0) {
+        response.setStatus(new Status(Status.CHALLENGE_NOT_FOUND_ERROR));
+        return ResponseEntity.badRequest().body(response);
+      }
+    }
+    response.setData(userRepo.findPersonalChallenges(currentUserId, request, cursorIndex));
+    return ResponseEntity.ok(response);
+  }
+
+  // Returns the expired group and personal challenges that were archived, see
+  // ChallengesArchiveJob.
+  @GetMapping(path = "/archive")
+  public ResponseEntity<GetChallengesResponse> getArchivedChallenges(
+      GetChallengesRequest request) {
     GetChallengesResponse response = new GetChallengesResponse();
-    response.setData(getCurrentUser(userRepo).getPersonalChallenges());
-    Collections.reverse(response.getData());
+    try {
+      request.validate();
+    } catch (BadRequestException e) {
+      response.setStatus(e.error);
+      return ResponseEntity.badRequest().body(response);
+    }
+    String currentUserId = getCurrentUser().getUserId();
+    String cursorId = null;
+    if (request.getCursor() != null) {
+      Optional<ArchivedChallenge> cursor =
+          archivedChallengeRepo.findByUserIdAndChallengeId(currentUserId, request.getCursor());
+      if (!cursor.isPresent()) {
+        response.setStatus(new Status(Status.CHALLENGE_NOT_FOUND_ERROR));
+        return ResponseEntity.badRequest().body(response);
+      }
+      cursorId = cursor.get().getId();
+    }
+    response.setData(archivedChallengeRepo.findUserArchivedChallenges(currentUserId, request,
+        cursorId).stream()
+        .map(ArchivedChallenge::getChallenge)
+        .collect(Collectors.toList()));
     return ResponseEntity.ok(response);
   }
 
   @PutMapping(path = "/personal/{challengeId}", consumes = MediaType.APPLICATION_JSON_VALUE)
+  @RetryOnConflict
   public ResponseEntity<UpdateChallengeResponse> updatePersonalChallenge(
       @PathVariable(value = "challengeId") String challengeId,
       @RequestBody UpdateChallengeRequest request) {
@@ -216,18 +278,20 @@ public class ChallengeController extends BaseController {
   public ResponseEntity<GetChallengeResponse> getChallenge(
       @PathVariable(value = "challengeId") String challengeId) {
     GetChallengeResponse response = new GetChallengeResponse();
-    Optional<Challenge> userChallenge = getCurrentUser(userRepo).getUserChallenges()
-        .stream()
-        .filter(
-            challenge -> challenge.getId()
-                .equals(
-                    challengeId))
-        .findFirst();
-    if (!userChallenge.isPresent()) {
+    String currentUserId = getCurrentUser().getUserId();
+    Optional<Challenge> challenge = userChallengeProgressRepo
+        .findByUserIdAndChallengeId(currentUserId, challengeId)
+        .map(UserChallengeProgress::getChallenge);
+    if (!challenge.isPresent()) {
+      // The copies of the expired challenges are moved to the archive, see ChallengesArchiveJob.
+      challenge = archivedChallengeRepo.findByUserIdAndChallengeId(currentUserId, challengeId)
+          .map(ArchivedChallenge::getChallenge);
+    }
+    if (!challenge.isPresent()) {
       response.setStatus(new Status(Status.CHALLENGE_NOT_FOUND_ERROR));
       return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
     }
-    response.setData(userChallenge.get());
+    response.setData(challenge.get());
     return ResponseEntity.ok(response);
   }
 
@@ -235,25 +299,20 @@ public class ChallengeController extends BaseController {
   public ResponseEntity<DeleteChallengeResponse> deleteChallenge(
       @PathVariable(value = "challengeId") String challengeId) {
     DeleteChallengeResponse response = new DeleteChallengeResponse();
-    User user = getCurrentUser(userRepo);
-    Optional<Challenge> userChallenge = user.getUserChallenges()
-        .stream()
-        .filter(
-            challenge -> challenge.getId()
-                .equals(
-                    challengeId))
-        .findFirst();
-    if (!userChallenge.isPresent()) {
+    Optional<UserChallengeProgress> userChallengeProgress =
+        userChallengeProgressRepo
+            .findByUserIdAndChallengeId(getCurrentUser().getUserId(), challengeId);
+    if (!userChallengeProgress.isPresent()) {
       response.setStatus(new Status(Status.CHALLENGE_NOT_FOUND_ERROR));
       return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
     }
-    user.getUserChallenges().removeIf(challenge -> challenge.getId().equals(challengeId));
-    userRepo.save(user);
-    response.setData(userChallenge.get());
+    userChallengeProgressRepo.delete(userChallengeProgress.get());
+    response.setData(userChallengeProgress.get().getChallenge());
     return ResponseEntity.ok(response);
   }
 
   @DeleteMapping("/personal/{challengeId}")
+  @RetryOnConflict
   public ResponseEntity<DeleteChallengeResponse> deletePersonalChallenge(
       @PathVariable(value = "challengeId") String challengeId) {
     DeleteChallengeResponse response = new DeleteChallengeResponse();
@@ -281,13 +340,11 @@ public class ChallengeController extends BaseController {
   public ResponseEntity<GetChallengeResponse> getOriginalChallenge(
       @PathVariable(value = "challengeId") String challengeId) {
     GetChallengeResponse response = new GetChallengeResponse();
-    Optional<Challenge> userChallenge = getCurrentUser(userRepo).getUserChallenges()
-        .stream()
-        .filter(
-            challenge -> challenge.getId()
-                .equals(
-                    challengeId))
-        .findFirst();
+    String currentUserId = getCurrentUser().getUserId();
+    CompletableFuture<Boolean> isUserChallenge = parallelLookups.start(
+        () -> userChallengeProgressRepo.existsByUserIdAndChallengeId(currentUserId, challengeId));
+    CompletableFuture<Optional<Challenge>> originalChallenge =
+        parallelLookups.start(() -> challengeRepo.findById(challengeId));
     Optional<Challenge> personalChallenge = getCurrentUser(userRepo).getPersonalChallenges()
         .stream()
         .filter(
@@ -295,17 +352,20 @@ public class ChallengeController extends BaseController {
                 .equals(
                     challengeId))
         .findFirst();
-    Optional<Challenge> originalChallenge = challengeRepo.findById(challengeId);
-    if ((!userChallenge.isPresent() && !personalChallenge.isPresent())
-        || !originalChallenge.isPresent()) {
+    // The copies of the expired challenges are moved to the archive, see ChallengesArchiveJob.
+    boolean isChallengeOfUser = ParallelLookups.await(isUserChallenge)
+        || personalChallenge.isPresent()
+        || archivedChallengeRepo.existsByUserIdAndChallengeId(currentUserId, challengeId);
+    if (!isChallengeOfUser || !ParallelLookups.await(originalChallenge).isPresent()) {
       response.setStatus(new Status(Status.CHALLENGE_NOT_FOUND_ERROR));
       return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
     }
-    response.setData(originalChallenge.get());
+    response.setData(ParallelLookups.await(originalChallenge).get());
     return ResponseEntity.ok(response);
   }
 
   @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+  @RetryOnConflict
   public ResponseEntity<AddChallengeResponse> addGroupChallenge(
       @RequestBody AddChallengeRequest req) {
     AddChallengeResponse response = new AddChallengeResponse();
@@ -328,31 +388,20 @@ public class ChallengeController extends BaseController {
     Challenge challenge = req.getChallenge().toBuilder()
         .creatingUserId(currentUser.getId())
         .build();
-    challengeRepo.save(challenge);
+    if (challenge.getId() == null) {
+      challenge.setId(new ObjectId().toString());
+    }
 
+    // The group is saved first since it is the document that may have been concurrently modified.
     group.get().getChallengesIds().add(challenge.getId());
     groupRepo.save(group.get());
+    challengeRepo.save(challenge);
 
-    List<String> groupUsersIds = group.get().getUsersIds();
-    Iterable<User> affectedUsers = userRepo.findAllById(groupUsersIds);
-    affectedUsers.forEach(user -> user.getUserChallenges().add(challenge));
-    affectedUsers.forEach(affectedUser -> {
-      if (!affectedUser.getId().equals(currentUser.getId())) {
-        // Fire emoji 🔥
-        String body = "\uD83D\uDD25";
-        body += " ";
-        body += currentUser.getFirstName();
-        body += " ";
-        body += currentUser.getLastName();
-        body += " (";
-
-        body += challenge.getName();
-        body += ")";
-        notificationsService.sendNotificationToUser(affectedUser, "لديك تحدٍ جديد",
-            body);
-      }
-    });
-    userRepo.saveAll(affectedUsers);
+    // The copies of all of the group members are created before responding, so that no member
+    // can miss the challenge or complete it before the others have their copies.
+    userChallengeProgressRepo.upsertUserCopies(group.get().getUsersIds(), challenge);
+    domainEventsPublisher.publish(
+        new ChallengeCreatedEvent(challenge, currentUser, group.get().getUsersIds()));
 
     response.setData(challenge);
     return ResponseEntity.ok(response);
@@ -411,32 +460,11 @@ public class ChallengeController extends BaseController {
 
     newGroup.getChallengesIds().add(challenge.getId());
 
-    Iterable<User> affectedUsers = userRepo.findAllById(groupMembers);
-    affectedUsers.forEach(user -> {
-      user.getUserChallenges().add(challenge);
-      user.getUserGroups().add(userGroup);
-    });
-
-    userRepo.saveAll(affectedUsers);
+    userRepo.addUserGroup(groupMembers, userGroup);
     groupRepo.save(newGroup);
     challengeRepo.save(challenge);
-
-    affectedUsers.forEach(affectedUser -> {
-      if (!affectedUser.getId().equals(currentUser.getId())) {
-        // Fire emoji 🔥
-        String body = "\uD83D\uDD25";
-        body += " ";
-        body += currentUser.getFirstName();
-        body += " ";
-        body += currentUser.getLastName();
-        body += " (";
-
-        body += challenge.getName();
-        body += ")";
-        notificationsService.sendNotificationToUser(affectedUser, "لديك تحدٍ جديد",
-            body);
-      }
-    });
+    userChallengeProgressRepo.upsertUserCopies(groupMembers, challenge);
+    domainEventsPublisher.publish(new ChallengeCreatedEvent(challenge, currentUser, groupMembers));
 
     response.setData(challenge);
     return ResponseEntity.ok(response);
@@ -455,20 +483,19 @@ public class ChallengeController extends BaseController {
 
   // Returns all non-personal challenges.
   @GetMapping(path = "/")
-  public ResponseEntity<GetChallengesResponse> getAllChallenges(
-      @RequestHeader(value = API_VERSION_HEADER, required = false) String apiVersion) {
+  public ResponseEntity<?> getAllChallenges(
+      @RequestHeader(value = API_VERSION_HEADER, required = false) String apiVersion,
+      GetChallengesRequest request, WebRequest webRequest) {
     if (apiVersion != null) {
       logger.info("API version requested is " + apiVersion);
     }
-    GetChallengesResponse response = new GetChallengesResponse();
-    response.setData(getCurrentUser(userRepo).getUserChallenges());
-    Collections.reverse(response.getData());
-    return ResponseEntity.ok(response);
+    return getUserChallenges(request, webRequest);
   }
 
   @GetMapping(path = "/groups/{groupId}/")
-  public ResponseEntity<GetChallengesResponse> getAllChallengesInGroup(
-      @PathVariable(value = "groupId") String groupId) {
+  public ResponseEntity<?> getAllChallengesInGroup(
+      @PathVariable(value = "groupId") String groupId,
+      GetChallengesRequest request, WebRequest webRequest) {
     Optional<Group> optionalGroup = groupRepo.findById(groupId);
     ResponseEntity<GetChallengesResponse> error = validateGroupAndReturnError(optionalGroup);
 
@@ -476,16 +503,73 @@ public class ChallengeController extends BaseController {
       return error;
     }
 
-    List<Challenge> challengesInGroup =
-        getCurrentUser(userRepo).getUserChallenges().stream()
-            .filter((challenge -> challenge.getGroupId().equals(groupId)))
-            .collect(
-                Collectors.toList());
+    return getUserChallenges(request.toBuilder().groupId(groupId).build(), webRequest);
+  }
 
-    Collections.reverse(challengesInGroup);
+  private ResponseEntity<?> getUserChallenges(GetChallengesRequest request,
+      WebRequest webRequest) {
     GetChallengesResponse response = new GetChallengesResponse();
-    response.setData(challengesInGroup);
-    return ResponseEntity.ok(response);
+    try {
+      request.validate();
+    } catch (BadRequestException e) {
+      response.setStatus(e.error);
+      return ResponseEntity.badRequest().body(response);
+    }
+    String currentUserId = getCurrentUser().getUserId();
+    String cursorId = null;
+    if (request.getCursor() != null) {
+      Optional<UserChallengeProgress> cursor =
+          userChallengeProgressRepo.findByUserIdAndChallengeId(currentUserId, request.getCursor());
+      if (!cursor.isPresent()) {
+        response.setStatus(new Status(Status.CHALLENGE_NOT_FOUND_ERROR));
+        return ResponseEntity.badRequest().body(response);
+      }
+      cursorId = cursor.get().getId();
+    }
+
+    // The page is identified by the IDs and versions of its progress documents. They are loaded
+    // without the challenges themselves when the client may already have the page, and are read
+    // from the loaded page otherwise.
+    String representation = getRepresentationStamp(request.isStream());
+    if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) == null && !request.isStream()) {
+      List<UserChallengeProgress> page =
+          userChallengeProgressRepo.findUserChallenges(currentUserId, request, cursorId);
+      response.setData(getChallenges(page));
+      return ResponseEntity.ok().eTag(toPageETag(representation, currentUserId, page))
+          .body(response);
+    }
+    String eTag = toPageETag(representation, currentUserId,
+        userChallengeProgressRepo.findUserChallengesVersions(currentUserId, request, cursorId));
+    if (webRequest.checkNotModified(eTag)) {
+      return null;
+    }
+
+    if (request.isStream()) {
+      String pageCursorId = cursorId;
+      if (UserChallengeProgressRepoImpl.isReversedPage(request)) {
+        // The page is bounded by the limit, so it is loaded before it is written.
+        List<UserChallengeProgress> page =
+            userChallengeProgressRepo.findUserChallenges(currentUserId, request, cursorId);
+        return ResponseEntity.ok().eTag(eTag).contentType(MediaType.APPLICATION_JSON).body(
+            streamingResponses.of(generator -> StreamingResponses.writeArray(generator, page,
+                UserChallengeProgress::getChallenge)));
+      }
+      return ResponseEntity.ok().eTag(eTag).contentType(MediaType.APPLICATION_JSON).body(
+          streamingResponses.of(generator -> StreamingResponses.writeArray(generator,
+              userChallengeProgressRepo.streamUserChallenges(currentUserId, request, pageCursorId,
+                  streamingResponses.getBatchSize()),
+              UserChallengeProgress::getChallenge)));
+    }
+    response.setData(getChallenges(
+        userChallengeProgressRepo.findUserChallenges(currentUserId, request, cursorId)));
+    return ResponseEntity.ok().eTag(eTag).body(response);
+  }
+
+  private static List<Challenge> getChallenges(
+      List<UserChallengeProgress> userChallengeProgresses) {
+    return userChallengeProgresses.stream()
+        .map(UserChallengeProgress::getChallenge)
+        .collect(Collectors.toList());
   }
 
 
@@ -503,20 +587,14 @@ public class ChallengeController extends BaseController {
     return null;
   }
 
-  // TODO(issue/204): This is not an atomic operation anymore, i.e. it is not guranteed that if
-  //  something wrong happened in the middle of handling a request, the state will remain the
-  //  same as before doing the request.
   @PutMapping(path = "/{challengeId}", consumes = MediaType.APPLICATION_JSON_VALUE)
   public ResponseEntity<UpdateChallengeResponse> updateChallenge(
       @PathVariable(value = "challengeId") String challengeId,
       @RequestBody UpdateChallengeRequest request) {
-    User currentUser = getCurrentUser(userRepo);
-    Optional<Challenge> currentUserChallenge = currentUser.getUserChallenges()
-        .stream()
-        .filter(challenge -> challenge.getId()
-            .equals(
-                challengeId))
-        .findFirst();
+    String currentUserId = getCurrentUser().getUserId();
+    Optional<Challenge> currentUserChallenge =
+        userChallengeProgressRepo.findByUserIdAndChallengeId(currentUserId, challengeId)
+            .map(UserChallengeProgress::getChallenge);
     if (!currentUserChallenge.isPresent()) {
       UpdateChallengeResponse response = new UpdateChallengeResponse();
       response.setStatus(new Status(Status.CHALLENGE_NOT_FOUND_ERROR));
@@ -529,70 +607,40 @@ public class ChallengeController extends BaseController {
       return ResponseEntity.badRequest().body(response);
     }
 
+    // Note: The sub-challenges are only validated and updated locally here, the database copy is
+    // then updated atomically so that concurrent updates can never increment the left repetitions.
     List<SubChallenge> oldSubChallenges = currentUserChallenge.get().getSubChallenges();
-    boolean oldSubChallengesFinished =
-        oldSubChallenges.stream().allMatch(subChallenge -> (subChallenge.getRepetitions() == 0));
     Optional<ResponseEntity<UpdateChallengeResponse>> errorResponse = updateOldSubChallenges(
         oldSubChallenges, request.getNewChallenge().getSubChallenges());
     if (errorResponse.isPresent()) {
       return errorResponse.get();
     }
-    boolean newSubChallengesFinished =
-        oldSubChallenges.stream().allMatch(subChallenge -> (subChallenge.getRepetitions() == 0));
-    if (newSubChallengesFinished && !oldSubChallengesFinished) {
-      updateScore(currentUser, currentUserChallenge.get().getGroupId());
-      userRepo.save(currentUser);
-
-      Challenge challenge = challengeRepo.findById(challengeId).get();
-      updateChallengeOnUserFinished(challenge, currentUser);
-      // Invalidate current user because it may have changed indirectly (by changing only the
-      // database instance) after calling updateChallengeOnUserFinished.
-      currentUser = userRepo.findById(currentUser.getId()).get();
-
-      sendNotificationOnFinishedChallenge(getCurrentUser(userRepo), challenge);
-      challengeRepo.save(challenge);
+    userChallengeProgressRepo.updateRepetitions(currentUserId, challengeId, oldSubChallenges);
+
+    // The challenge may have been finished by this request combined with a concurrent one, so the
+    // finished state is checked against the database copy.
+    boolean subChallengesFinished =
+        userChallengeProgressRepo.findByUserIdAndChallengeId(currentUserId, challengeId)
+        .map(progress -> progress.getChallenge().getSubChallenges().stream()
+            .allMatch(subChallenge -> (subChallenge.getRepetitions() == 0)))
+        .orElse(false);
+    // Only one request can add the current user to the finished users of their copy, so the score
+    // is updated exactly once.
+    if (subChallengesFinished && userChallengeProgressRepo
+        .addToUsersFinished(currentUserId, challengeId, currentUserId)) {
+      if (!userRepo
+          .incrementUserGroupScore(currentUserId, currentUserChallenge.get().getGroupId())) {
+        throw new RuntimeException("The updated challenge is not in a group.");
+      }
+      // The original challenge, the copies of the other group members and the scores that depend
+      // on the user's score are updated in the background.
+      List<String> groupMembersIds = groupRepo.findById(currentUserChallenge.get().getGroupId())
+          .map(Group::getUsersIds)
+          .orElse(ImmutableList.of());
+      domainEventsPublisher.publish(new ChallengeCompletedEvent(currentUserChallenge.get(),
+          getCurrentUser(userRepo), groupMembersIds));
     }
-    userRepo.save(currentUser);
 
     return ResponseEntity.ok(new UpdateChallengeResponse());
   }
-
-  private void updateChallengeOnUserFinished(Challenge challenge, User currentUser) {
-    // Update the original copy of the challenge
-    challenge.getUsersFinished().add(currentUser.getId());
-
-    // Update users copies of the challenge
-    groupRepo.findById(challenge.getGroupId()).get().getUsersIds().forEach(groupMember -> {
-      User user = userRepo.findById(groupMember).get();
-      user.getUserChallenges().forEach(userChallenge -> {
-        if (userChallenge.getId().equals(challenge.getId())) {
-          userChallenge.getUsersFinished().add(currentUser.getId());
-        }
-      });
-      userRepo.save(user);
-    });
-  }
-
-  private void sendNotificationOnFinishedChallenge(User userFinishedChallenge,
-      Challenge challenge) {
-    Group group = groupRepo.findById(challenge.getGroupId()).get();
-    group.getUsersIds().stream().forEach(userId -> {
-      if (!userId.equals(userFinishedChallenge.getId())) {
-
-        // Fire emoji 🔥
-        String body = "\uD83D\uDD25";
-        body += " ";
-        body += userFinishedChallenge.getFirstName();
-        body += " ";
-        body += userFinishedChallenge.getLastName();
-        body += " (";
-
-        body += challenge.getName();
-        body += ")";
-        notificationsService
-            .sendNotificationToUser(userRepo.findById(userId).get(), "صديق لك أنهى تحدياً",
-                body);
-      }
-    });
-  }
 }
@@ -1,28 +1,44 @@
 package com.azkar.controllers;
 
+import static com.azkar.controllers.BaseController.COMPACT_JSON_VALUE;
+import static com.azkar.controllers.BaseController.SMILE_VALUE;
+
+import com.azkar.configs.RetryOnConflict;
 import com.azkar.entities.Friendship;
 import com.azkar.entities.Friendship.Friend;
 import com.azkar.entities.Group;
+import com.azkar.entities.PairScore;
+import com.azkar.entities.ScorePeriod;
 import com.azkar.entities.User;
 import com.azkar.entities.User.UserGroup;
+import com.azkar.events.DomainEventsPublisher;
+import com.azkar.events.FriendRequestAcceptedEvent;
 import com.azkar.payload.ResponseBase.Status;
+import com.azkar.payload.exceptions.BadRequestException;
 import com.azkar.payload.usercontroller.responses.AddFriendResponse;
 import com.azkar.payload.usercontroller.responses.DeleteFriendResponse;
 import com.azkar.payload.usercontroller.responses.GetFriendsLeaderboardResponse;
 import com.azkar.payload.usercontroller.responses.GetFriendsLeaderboardResponse.FriendshipScores;
 import com.azkar.payload.usercontroller.responses.GetFriendsResponse;
 import com.azkar.payload.usercontroller.responses.ResolveFriendRequestResponse;
-import com.azkar.payload.utils.UserScore;
+import com.azkar.payload.utils.GetLeaderboardRequest;
 import com.azkar.repos.FriendshipRepo;
 import com.azkar.repos.GroupRepo;
+import com.azkar.repos.PairScoreRepo;
 import com.azkar.repos.UserRepo;
+import com.azkar.services.LeaderboardsCache;
 import com.azkar.services.NotificationsService;
+import com.azkar.services.PairScoresService;
+import com.azkar.services.StreamingResponses;
 import com.google.common.collect.ImmutableList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -32,10 +48,13 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
-@RequestMapping(value = "/friends", produces = MediaType.APPLICATION_JSON_VALUE)
+@RequestMapping(value = "/friends",
+    produces = {MediaType.APPLICATION_JSON_VALUE, COMPACT_JSON_VALUE, SMILE_VALUE})
 public class FriendshipController extends BaseController {
 
   @Autowired
@@ -50,56 +69,112 @@ public class FriendshipController extends BaseController {
   @Autowired
   GroupRepo groupRepo;
 
+  @Autowired
+  PairScoreRepo pairScoreRepo;
+
+  @Autowired
+  PairScoresService pairScoresService;
+
+  @Autowired
+  LeaderboardsCache leaderboardsCache;
+
+  @Autowired
+  DomainEventsPublisher domainEventsPublisher;
+
+  @Autowired
+  StreamingResponses streamingResponses;
+
   @GetMapping
-  public ResponseEntity<GetFriendsResponse> getFriends() {
-    GetFriendsResponse response = new GetFriendsResponse();
+  public ResponseEntity<?> getFriends(
+      @RequestParam(name = "stream", defaultValue = "false") boolean stream,
+      WebRequest webRequest) {
+    String currentUserId = getCurrentUser().getUserId();
+    Friendship friendshipVersion = friendshipRepo.findVersionByUserId(currentUserId).get();
+    String eTag = toETag(getRepresentationStamp(stream), friendshipVersion.getId(),
+        friendshipVersion.getVersion());
+    if (webRequest.checkNotModified(eTag)) {
+      return null;
+    }
 
+    if (stream) {
+      return ResponseEntity.ok().eTag(eTag).contentType(MediaType.APPLICATION_JSON).body(
+          streamingResponses.of(generator -> {
+            generator.writeStartObject();
+            generator.writeStringField("id", friendshipVersion.getId());
+            generator.writeStringField("userId", currentUserId);
+            generator.writeFieldName("friends");
+            StreamingResponses.writeArray(generator, friendshipRepo
+                .streamFriendsByUserId(currentUserId, streamingResponses.getBatchSize()));
+            generator.writeEndObject();
+          }));
+    }
+
+    GetFriendsResponse response = new GetFriendsResponse();
     Friendship friendship = friendshipRepo.findByUserId(getCurrentUser().getUserId());
     response.setData(friendship);
-    return ResponseEntity.ok(response);
+    return ResponseEntity.ok().eTag(eTag).body(response);
   }
 
   @GetMapping(path = "/leaderboard")
-  public ResponseEntity<GetFriendsLeaderboardResponse> getFriendsLeaderboard() {
+  public ResponseEntity<GetFriendsLeaderboardResponse> getFriendsLeaderboard(
+      GetLeaderboardRequest request) {
     GetFriendsLeaderboardResponse response = new GetFriendsLeaderboardResponse();
+    ScorePeriod period;
+    try {
+      request.validate();
+      period = request.getScorePeriod();
+    } catch (BadRequestException e) {
+      response.setStatus(e.error);
+      return ResponseEntity.badRequest().body(response);
+    }
 
-    User currentUser = getCurrentUser(userRepo);
+    String currentUserId = getCurrentUser().getUserId();
+    response.setData(leaderboardsCache.getFriendsLeaderboard(currentUserId, period,
+        () -> computeFriendsLeaderboard(currentUserId, period)));
+    return ResponseEntity.ok(response);
+  }
+
+  private List<FriendshipScores> computeFriendsLeaderboard(String currentUserId,
+      ScorePeriod period) {
+    Map<String, PairScore> friendsPairScores = pairScoreRepo.findAllByUser(currentUserId).stream()
+        .collect(Collectors.toMap(pairScore -> pairScore.getOtherUserId(currentUserId),
+            Function.identity()));
 
     List<FriendshipScores> friendsScores = new ArrayList<>();
-    Friendship friendship = friendshipRepo.findByUserId(getCurrentUser().getUserId());
+    Friendship friendship = friendshipRepo.findByUserId(currentUserId);
     friendship.getFriends().stream().forEach(friend -> {
       if (friend.isPending()) {
         return;
       }
 
-      Optional<User> friendUser = userRepo.findById(friend.getUserId());
-      if (!friendUser.isPresent()) {
-        return;
-      }
-
-      List<UserScore> scores = getFriendsScores(currentUser, friendUser.get());
+      // Friends that never shared a group score don't have a pair score yet.
+      Optional<PairScore> pairScore =
+          Optional.ofNullable(friendsPairScores.get(friend.getUserId()));
       friendsScores.add(FriendshipScores.builder()
-          .currentUserScore(scores.get(0).getTotalScore())
-          .friendScore(scores.get(1).getTotalScore())
+          .currentUserScore(
+              pairScore.map(score -> score.getScoreOf(currentUserId, period)).orElse(0))
+          .friendScore(
+              pairScore.map(score -> score.getScoreOf(friend.getUserId(), period)).orElse(0))
           .friend(friend)
           .build());
     });
-
-    response.setData(friendsScores);
-    return ResponseEntity.ok(response);
+    return friendsScores;
   }
 
   @PutMapping(path = "/{id}")
+  @RetryOnConflict
   public ResponseEntity<AddFriendResponse> add(
       @PathVariable(value = "id") String otherUserId) {
     AddFriendResponse response = new AddFriendResponse();
 
-    User currentUser = userRepo.findById(getCurrentUser().getUserId()).get();
-    if (currentUser.getId().equals(otherUserId)) {
+    String currentUserId = getCurrentUser().getUserId();
+    if (currentUserId.equals(otherUserId)) {
       response.setStatus(new Status(Status.ADD_SELF_ERROR));
       return ResponseEntity.badRequest().body(response);
     }
 
+    User currentUser = getCurrentUser(userRepo);
+
     // Check if the provided id is valid.
     Optional<User> otherUser = userRepo.findById(otherUserId);
     if (!otherUser.isPresent()) {
@@ -107,50 +182,51 @@ public class FriendshipController extends BaseController {
       return ResponseEntity.badRequest().body(response);
     }
 
-    // Check if the current user already requested friendship with the other user.
-    Friendship otherUserFriendship = friendshipRepo.findByUserId(otherUserId);
-    if (otherUserFriendship.getFriends().stream()
-        .anyMatch(friend -> friend.getUserId().equals(currentUser.getId()))) {
-      response.setStatus(new Status(Status.FRIENDSHIP_ALREADY_REQUESTED_ERROR));
-      return ResponseEntity.badRequest().body(response);
-    }
-
-    // Check if the other user already requested friendship with the current user. If this is the
-    // case then the friendship should not be pending anymore.
-    Friendship currentUserFriendship = friendshipRepo.findByUserId(currentUser.getId());
+    // Check if the users are already friends, or if the other user already requested friendship
+    // with the current user in which case the friendship should not be pending anymore. Whether the
+    // current user already requested friendship with the other user is checked while the request
+    // is added.
+    Friendship currentUserFriendship = friendshipRepo.findByUserId(currentUserId);
     Optional<Friend> friend = currentUserFriendship.getFriends().stream()
         .filter(f -> f.getUserId().equals(otherUserId))
         .findAny();
+    if (friend.isPresent() && !friend.get().isPending()) {
+      response.setStatus(new Status(Status.FRIENDSHIP_ALREADY_REQUESTED_ERROR));
+      return ResponseEntity.badRequest().body(response);
+    }
     if (friend.isPresent()) {
       // Set isPending for the current user.
       friend.get().setPending(false);
 
-      // Set isPending for the current user.
-      otherUserFriendship.getFriends().add(
+      // The current user's friendship is the only document that is saved as a whole, so it is
+      // saved first to retry the request if it was modified concurrently.
+      friendshipRepo.save(currentUserFriendship);
+      // Set isPending for the other user.
+      friendshipRepo.addFriend(otherUserId,
           Friend.builder()
               .userId(currentUser.getId())
               .username(currentUser.getUsername())
               .firstName(currentUser.getFirstName())
               .lastName(currentUser.getLastName())
               .isPending(false)
-              .build()
-      );
-
-      friendshipRepo.save(currentUserFriendship);
-      friendshipRepo.save(otherUserFriendship);
+              .build());
+      leaderboardsCache.invalidateFriendsLeaderboards(ImmutableList.of(currentUser.getId(),
+          otherUserId));
       return ResponseEntity.ok().body(response);
     }
 
-    otherUserFriendship.getFriends().add(
+    if (!friendshipRepo.addFriend(otherUserId,
         Friend.builder()
             .userId(currentUser.getId())
             .username(currentUser.getUsername())
             .firstName(currentUser.getFirstName())
             .lastName(currentUser.getLastName())
             .isPending(true)
-            .build()
-    );
-    friendshipRepo.save(otherUserFriendship);
+            .build())) {
+      // The current user already requested friendship with the other user.
+      response.setStatus(new Status(Status.FRIENDSHIP_ALREADY_REQUESTED_ERROR));
+      return ResponseEntity.badRequest().body(response);
+    }
     notificationsService.sendNotificationToUser(otherUser.get(), "لديك طلب صداقة جديد",
         currentUser.getFirstName() + " " + currentUser.getLastName());
 
@@ -158,6 +234,7 @@ public class FriendshipController extends BaseController {
   }
 
   @PutMapping(path = "/{id}/accept")
+  @RetryOnConflict
   public ResponseEntity<ResolveFriendRequestResponse> accept(
       @PathVariable(value = "id") String otherUserId) {
     ResolveFriendRequestResponse response = new ResolveFriendRequestResponse();
@@ -182,22 +259,9 @@ public class FriendshipController extends BaseController {
     }
 
     Group binaryGroup = generateBinaryGroup(currentUser, friend.get());
-    groupRepo.save(binaryGroup);
 
     friend.get().setPending(false);
     friend.get().setGroupId(binaryGroup.getId());
-    Friendship otherUserFriendship = friendshipRepo.findByUserId(otherUserId);
-
-    otherUserFriendship.getFriends().add(
-        Friend.builder()
-            .userId(currentUser.getId())
-            .username(currentUser.getUsername())
-            .firstName(currentUser.getFirstName())
-            .lastName(currentUser.getLastName())
-            .isPending(false)
-            .groupId(binaryGroup.getId())
-            .build()
-    );
 
     UserGroup userGroup =
         UserGroup.builder()
@@ -207,18 +271,23 @@ public class FriendshipController extends BaseController {
             .monthScore(0)
             .totalScore(0)
             .build();
-    currentUser.getUserGroups().add(userGroup);
-    User otherUser = userRepo.findById(otherUserId).get();
-    otherUser.getUserGroups().add(userGroup);
 
+    // The current user's friendship is the only document that is saved as a whole, so it is saved
+    // first to retry the request if it was modified concurrently.
     friendshipRepo.save(currentUserFriendship);
-    friendshipRepo.save(otherUserFriendship);
-    userRepo.save(currentUser);
-    userRepo.save(otherUser);
-
-    notificationsService.sendNotificationToUser(userRepo.findById(otherUserId).get(),
-        "تم قبول طلب الصداقة",
-        currentUser.getFirstName() + " " + currentUser.getLastName());
+    friendshipRepo.addFriend(otherUserId,
+        Friend.builder()
+            .userId(currentUser.getId())
+            .username(currentUser.getUsername())
+            .firstName(currentUser.getFirstName())
+            .lastName(currentUser.getLastName())
+            .isPending(false)
+            .groupId(binaryGroup.getId())
+            .build());
+    groupRepo.save(binaryGroup);
+    userRepo.addUserGroup(ImmutableList.of(currentUser.getId(), otherUserId), userGroup);
+    domainEventsPublisher.publish(
+        new FriendRequestAcceptedEvent(currentUser, otherUserId, binaryGroup.getId()));
 
     return ResponseEntity.ok(response);
   }
@@ -226,6 +295,7 @@ public class FriendshipController extends BaseController {
   private Group generateBinaryGroup(User currentUser, Friend friend) {
     // TODO(issue#148): Make Group.adminId a list
     Group group = Group.builder()
+        .id(new ObjectId().toString())
         .usersIds(Arrays.asList(currentUser.getId(), friend.getUserId()))
         .creatorId(friend.getUserId())
         .build();
@@ -233,6 +303,7 @@ public class FriendshipController extends BaseController {
   }
 
   @PutMapping(path = "/{id}/reject")
+  @RetryOnConflict
   public ResponseEntity<ResolveFriendRequestResponse> reject(
       @PathVariable(name = "id") String otherUserId) {
     ResolveFriendRequestResponse response = new ResolveFriendRequestResponse();
@@ -260,6 +331,7 @@ public class FriendshipController extends BaseController {
   }
 
   @DeleteMapping(path = "/{id}")
+  @RetryOnConflict
   public ResponseEntity<DeleteFriendResponse> deleteFriend(
       @PathVariable(value = "id") String otherUserId) {
     DeleteFriendResponse response = new DeleteFriendResponse();
@@ -286,19 +358,20 @@ public class FriendshipController extends BaseController {
 
     String groupId = currentUserFriendship.getFriends().get(otherUserAsFriendIndex).getGroupId();
 
-    currentUserFriendship.getFriends().remove(otherUserAsFriendIndex);
-    otherUserFriendship.getFriends().remove(currentUserAsFriendIndex);
-
-    // Remove Group
+    // All of the writes are targeted updates, so none of them can conflict with concurrent writes
+    // after another one was applied.
     User currentUser = userRepo.findById(getCurrentUser().getUserId()).get();
-    currentUser.getUserGroups().removeIf(userGroup -> userGroup.getGroupId().equals(groupId));
-    otherUser.get().getUserGroups().removeIf(userGroup -> userGroup.getGroupId().equals(groupId));
+    friendshipRepo.removeFriend(currentUser.getId(), otherUserId);
+    friendshipRepo.removeFriend(otherUserId, currentUser.getId());
+    // Remove Group. The scores of both users are subtracted from their pair before the group is
+    // removed from them.
+    groupRepo.findById(groupId)
+        .ifPresent(group -> pairScoresService.onMemberRemoved(group, currentUser));
+    userRepo.removeUserGroup(currentUser.getId(), groupId);
+    userRepo.removeUserGroup(otherUserId, groupId);
     groupRepo.deleteById(groupId);
 
-    userRepo.save(currentUser);
-    userRepo.save(otherUser.get());
-    friendshipRepo.save(currentUserFriendship);
-    friendshipRepo.save(otherUserFriendship);
+    leaderboardsCache.invalidate(groupId, currentUser.getId(), ImmutableList.of(otherUserId));
     return ResponseEntity.status(HttpStatus.NO_CONTENT).body(response);
   }
 
@@ -310,51 +383,4 @@ public class FriendshipController extends BaseController {
     }
     return -1;
   }
-
-  // Accumulates the scores of the two users in all of the groups they are both members in.
-  private List<UserScore> getFriendsScores(User user1, User user2) {
-    AtomicInteger user1Score = new AtomicInteger(0);
-    AtomicInteger user2Score = new AtomicInteger(0);
-    groupRepo.findAll().stream().filter(
-        grp -> (grp.getUsersIds().contains(user1.getId()) && grp.getUsersIds()
-            .contains(user2.getId())))
-        .forEach(grp -> {
-          Optional<UserScore> user1ScoreInGrp = getUserScoreInGroup(user1.getId(), grp);
-          Optional<UserScore> user2ScoreInGrp = getUserScoreInGroup(user2.getId(), grp);
-          user1ScoreInGrp.ifPresent(userScore -> user1Score.addAndGet(userScore.getTotalScore()));
-          user2ScoreInGrp.ifPresent(userScore -> user2Score.addAndGet(userScore.getTotalScore()));
-        });
-    UserScore userScore1 = UserScore.builder()
-        .username(user1.getUsername())
-        .firstName(user1.getFirstName())
-        .lastName(user1.getLastName())
-        .totalScore(user1Score.get())
-        .build();
-    UserScore userScore2 = UserScore.builder()
-        .username(user2.getUsername())
-        .firstName(user2.getFirstName())
-        .lastName(user2.getLastName())
-        .totalScore(user2Score.get())
-        .build();
-    return ImmutableList.of(userScore1, userScore2);
-  }
-
-  private Optional<UserScore> getUserScoreInGroup(String userId, Group group) {
-    Optional<User> user = userRepo.findById(userId);
-    if (!user.isPresent()) {
-      return Optional.empty();
-    }
-
-    Optional<UserGroup> userGroup =
-        user.get().getUserGroups().stream()
-            .filter(userGroup1 -> userGroup1.getGroupId().equals(group.getId())).findFirst();
-    if (!userGroup.isPresent()) {
-      return Optional.empty();
-    }
-
-    return Optional.of(
-        UserScore.builder().firstName(user.get().getFirstName()).lastName(user.get().getLastName())
-            .username(user.get().getUsername())
-            .totalScore(userGroup.get().getTotalScore()).build());
-  }
 }
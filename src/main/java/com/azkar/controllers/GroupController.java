@@ -1,8 +1,17 @@
 package com.azkar.controllers;
 
+import static com.azkar.controllers.BaseController.COMPACT_JSON_VALUE;
+import static com.azkar.controllers.BaseController.SMILE_VALUE;
+
+import com.azkar.configs.RetryOnConflict;
+import com.azkar.entities.Friendship;
 import com.azkar.entities.Group;
+import com.azkar.entities.PairScore;
+import com.azkar.entities.ScorePeriod;
 import com.azkar.entities.User;
 import com.azkar.entities.User.UserGroup;
+import com.azkar.events.DomainEventsPublisher;
+import com.azkar.events.MemberJoinedGroupEvent;
 import com.azkar.payload.ResponseBase.Status;
 import com.azkar.payload.groupcontroller.requests.AddGroupRequest;
 import com.azkar.payload.groupcontroller.responses.AddGroupResponse;
@@ -12,18 +21,24 @@ import com.azkar.payload.groupcontroller.responses.GetGroupResponse;
 import com.azkar.payload.groupcontroller.responses.GetGroupsResponse;
 import com.azkar.payload.groupcontroller.responses.GetUserGroupsResponse;
 import com.azkar.payload.groupcontroller.responses.LeaveGroupResponse;
+import com.azkar.payload.exceptions.BadRequestException;
+import com.azkar.payload.utils.GetLeaderboardRequest;
 import com.azkar.payload.utils.UserScore;
 import com.azkar.repos.ChallengeRepo;
 import com.azkar.repos.FriendshipRepo;
 import com.azkar.repos.GroupRepo;
+import com.azkar.repos.PairScoreRepo;
 import com.azkar.repos.UserRepo;
+import com.azkar.services.LeaderboardsCache;
+import com.azkar.services.PairScoresService;
+import com.azkar.services.ParallelLookups;
+import com.azkar.services.StreamingResponses;
 import com.google.common.collect.ImmutableList;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,10 +51,13 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
-@RequestMapping(path = "/groups", produces = MediaType.APPLICATION_JSON_VALUE)
+@RequestMapping(path = "/groups",
+    produces = {MediaType.APPLICATION_JSON_VALUE, COMPACT_JSON_VALUE, SMILE_VALUE})
 public class GroupController extends BaseController {
 
   private static final Logger logger = LoggerFactory.getLogger(GroupController.class);
@@ -56,6 +74,24 @@ public class GroupController extends BaseController {
   @Autowired
   private FriendshipRepo friendshipRepo;
 
+  @Autowired
+  private PairScoreRepo pairScoreRepo;
+
+  @Autowired
+  private PairScoresService pairScoresService;
+
+  @Autowired
+  private LeaderboardsCache leaderboardsCache;
+
+  @Autowired
+  private DomainEventsPublisher domainEventsPublisher;
+
+  @Autowired
+  private StreamingResponses streamingResponses;
+
+  @Autowired
+  private ParallelLookups parallelLookups;
+
   @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
   public ResponseEntity<AddGroupResponse> addGroup(@RequestBody AddGroupRequest req) {
     req.validate();
@@ -69,11 +105,10 @@ public class GroupController extends BaseController {
             .build();
     newGroup = groupRepo.save(newGroup);
 
-    currentUser.getUserGroups()
-        .add(UserGroup.builder().groupId(newGroup.getId()).groupName(newGroup.getName())
+    userRepo.addUserGroup(ImmutableList.of(currentUser.getId()),
+        UserGroup.builder().groupId(newGroup.getId()).groupName(newGroup.getName())
             .invitingUserId(currentUser.getId())
             .build());
-    userRepo.save(currentUser);
 
     AddGroupResponse response = new AddGroupResponse();
     response.setData(newGroup);
@@ -104,30 +139,57 @@ public class GroupController extends BaseController {
   }
 
   @GetMapping("/userGroups")
-  public ResponseEntity<GetUserGroupsResponse> getUserGroups() {
-    GetUserGroupsResponse response = new GetUserGroupsResponse();
+  public ResponseEntity<GetUserGroupsResponse> getUserGroups(WebRequest webRequest) {
+    User userVersion = userRepo.findVersionById(getCurrentUser().getUserId()).get();
+    String eTag = toETag(getRepresentationStamp(/* stream= */ false), userVersion.getId(),
+        userVersion.getVersion());
+    if (webRequest.checkNotModified(eTag)) {
+      return null;
+    }
 
+    GetUserGroupsResponse response = new GetUserGroupsResponse();
     User user = userRepo.findById(getCurrentUser().getUserId()).get();
     response.setData(user.getUserGroups());
 
-    return ResponseEntity.ok(response);
+    return ResponseEntity.ok().eTag(eTag).body(response);
   }
 
   @GetMapping()
-  public ResponseEntity<GetGroupsResponse> getGroups() {
+  public ResponseEntity<?> getGroups(
+      @RequestParam(name = "stream", defaultValue = "false") boolean stream,
+      WebRequest webRequest) {
+    String currentUserId = getCurrentUser().getUserId();
+    String eTag = toGroupsETag(getRepresentationStamp(stream),
+        groupRepo.findVersionsContainingUser(currentUserId));
+    if (webRequest.checkNotModified(eTag)) {
+      return null;
+    }
+
+    if (stream) {
+      return ResponseEntity.ok().eTag(eTag).contentType(MediaType.APPLICATION_JSON).body(
+          streamingResponses.of(generator -> StreamingResponses.writeArray(generator,
+              groupRepo.streamAllContainingUser(currentUserId,
+                  streamingResponses.getBatchSize()))));
+    }
     GetGroupsResponse response = new GetGroupsResponse();
 
-    response.setData(groupRepo.findAll().stream()
-        .filter(group -> group.getUsersIds().contains(getCurrentUser().getUserId()))
-        .collect(Collectors.toList()));
+    response.setData(groupRepo.findAllContainingUser(currentUserId));
 
-    return ResponseEntity.ok(response);
+    return ResponseEntity.ok().eTag(eTag).body(response);
   }
 
   @GetMapping(value = "/{groupId}/leaderboard")
   public ResponseEntity<GetGroupLeaderboardResponse> getGroupLeaderboard(
-      @PathVariable String groupId) {
+      @PathVariable String groupId, GetLeaderboardRequest request) {
     GetGroupLeaderboardResponse response = new GetGroupLeaderboardResponse();
+    ScorePeriod period;
+    try {
+      request.validate();
+      period = request.getScorePeriod();
+    } catch (BadRequestException e) {
+      response.setStatus(e.error);
+      return ResponseEntity.badRequest().body(response);
+    }
     User currentUser = getCurrentUser(userRepo);
     if (!currentUser.getUserGroups().stream().anyMatch(
         userGroup ->
@@ -137,14 +199,21 @@ public class GroupController extends BaseController {
       return ResponseEntity.badRequest().body(response);
     }
 
-    Optional<Group> group = groupRepo.findById(groupId);
+    // The group and the friendship of the user don't depend on each other and are only loaded once
+    // per request, so they are loaded concurrently.
+    CompletableFuture<Optional<Group>> groupLookup =
+        parallelLookups.start(() -> groupRepo.findById(groupId));
+    CompletableFuture<Friendship> friendshipLookup =
+        parallelLookups.start(() -> friendshipRepo.findByUserId(currentUser.getId()));
+
+    Optional<Group> group = ParallelLookups.await(groupLookup);
     if (!group.isPresent()) {
       throw new RuntimeException(String.format("User with id: %s, trying to get leaderboard of a "
           + "non-existing group", currentUser.getId()));
     }
 
     boolean isBinaryGroup =
-        friendshipRepo.findByUserId(currentUser.getId()).getFriends().stream().anyMatch(
+        ParallelLookups.await(friendshipLookup).getFriends().stream().anyMatch(
             friend -> friend.getGroupId().equals(groupId)
         );
     if (group.get().getUsersIds().size() != 2) {
@@ -154,84 +223,47 @@ public class GroupController extends BaseController {
       isBinaryGroup = false;
     }
 
-    List<UserScore> userScores;
+    boolean isBinary = isBinaryGroup;
+    response.setData(leaderboardsCache.getGroupLeaderboard(groupId,
+        isBinary ? group.get().getUsersIds() : ImmutableList.of(), period,
+        request.getOffsetOrDefault(), request.getLimit(),
+        () -> computeGroupLeaderboard(group.get(), isBinary, period, request)));
+    return ResponseEntity.ok(response);
+  }
+
+  private List<UserScore> computeGroupLeaderboard(Group group, boolean isBinaryGroup,
+      ScorePeriod period, GetLeaderboardRequest request) {
     if (isBinaryGroup) {
-      userScores = getBinaryGroupLeaderboard(group.get());
-    } else {
-      userScores = getNonBinaryGroupLeaderboard(group.get());
+      return getBinaryGroupLeaderboard(group, period).stream()
+          .skip(request.getOffsetOrDefault())
+          .limit(request.getLimit() != null ? request.getLimit() : Long.MAX_VALUE)
+          .collect(Collectors.toList());
     }
-    response.setData(userScores);
-    return ResponseEntity.ok(response);
+    return userRepo.findGroupLeaderboard(group.getId(), period, request.getOffsetOrDefault(),
+        request.getLimit());
   }
 
-  // Accumulates the scores of the two users in all of the groups they are both members in.
-  private List<UserScore> getBinaryGroupLeaderboard(Group group) {
-    AtomicInteger user1Score = new AtomicInteger(0);
-    AtomicInteger user2Score = new AtomicInteger(0);
+  // The scores of the two users accumulated over all of the groups they are both members in.
+  private List<UserScore> getBinaryGroupLeaderboard(Group group, ScorePeriod period) {
     User user1 = userRepo.findById(group.getUsersIds().get(0)).get();
     User user2 = userRepo.findById(group.getUsersIds().get(1)).get();
-    groupRepo.findAll().stream().filter(
-        grp -> (grp.getUsersIds().contains(user1.getId()) && grp.getUsersIds()
-            .contains(user2.getId())))
-        .forEach(grp -> {
-          Optional<UserScore> user1ScoreInGrp = getUserScoreInGroup(user1.getId(), grp);
-          Optional<UserScore> user2ScoreInGrp = getUserScoreInGroup(user2.getId(), grp);
-          user1ScoreInGrp.ifPresent(userScore -> user1Score.addAndGet(userScore.getTotalScore()));
-          user2ScoreInGrp.ifPresent(userScore -> user2Score.addAndGet(userScore.getTotalScore()));
-        });
-    UserScore userScore1 = UserScore.builder()
-        .username(user1.getUsername())
-        .firstName(user1.getFirstName())
-        .lastName(user1.getLastName())
-        .totalScore(user1Score.get())
-        .build();
-    UserScore userScore2 = UserScore.builder()
-        .username(user2.getUsername())
-        .firstName(user2.getFirstName())
-        .lastName(user2.getLastName())
-        .totalScore(user2Score.get())
-        .build();
-    return ImmutableList.of(userScore1, userScore2);
-  }
-
-  private List<UserScore> getNonBinaryGroupLeaderboard(Group group) {
-    List<UserScore> userScores = new ArrayList<>();
-    for (String groupMemberId : group.getUsersIds()) {
-      Optional<UserScore> userScore = getUserScoreInGroup(groupMemberId, group);
-      if (!userScore.isPresent()) {
-        logger.warn(String.format("Dangling group member: %s in group: %s", groupMemberId,
-            group.getId()));
-        continue;
-      }
-      userScores.add(userScore.get());
-    }
-
-    Collections.sort(userScores,
-        (u1, u2) -> Integer.compare(u2.getTotalScore(), u1.getTotalScore()));
-
-    return userScores;
+    Optional<PairScore> pairScore = pairScoreRepo.findByUsers(user1.getId(), user2.getId());
+    return ImmutableList.of(getUserScoreInPair(user1, pairScore, period),
+        getUserScoreInPair(user2, pairScore, period));
   }
 
-  private Optional<UserScore> getUserScoreInGroup(String userId, Group group) {
-    Optional<User> user = userRepo.findById(userId);
-    if (!user.isPresent()) {
-      return Optional.empty();
-    }
-
-    Optional<UserGroup> userGroup =
-        user.get().getUserGroups().stream()
-            .filter(userGroup1 -> userGroup1.getGroupId().equals(group.getId())).findFirst();
-    if (!userGroup.isPresent()) {
-      return Optional.empty();
-    }
-
-    return Optional.of(
-        UserScore.builder().firstName(user.get().getFirstName()).lastName(user.get().getLastName())
-            .username(user.get().getUsername())
-            .totalScore(userGroup.get().getTotalScore()).build());
+  private static UserScore getUserScoreInPair(User user, Optional<PairScore> pairScore,
+      ScorePeriod period) {
+    return UserScore.builder()
+        .username(user.getUsername())
+        .firstName(user.getFirstName())
+        .lastName(user.getLastName())
+        .totalScore(pairScore.map(score -> score.getScoreOf(user.getId(), period)).orElse(0))
+        .build();
   }
 
   @PutMapping(value = "/{groupId}/add/{userId}")
+  @RetryOnConflict
   public ResponseEntity<AddToGroupResponse> addUser(
       @PathVariable String groupId,
       @PathVariable(value = "userId") String invitedUserId) {
@@ -271,20 +303,25 @@ public class GroupController extends BaseController {
     }
 
     User invitingUser = userRepo.findById(getCurrentUser().getUserId()).get();
+    // The group is the only document that is saved as a whole, so the request is retried if it was
+    // modified concurrently before anything else is written.
+    group.get().getUsersIds().add(userToAdd.get().getId());
+    groupRepo.save(group.get());
     // Only add the user group but don't add old challenges.
-    userToAdd.get().getUserGroups().add(
+    userRepo.addUserGroup(ImmutableList.of(userToAdd.get().getId()),
         UserGroup.builder()
             .groupId(groupId)
             .groupName(group.get().getName())
             .invitingUserId(invitingUser.getId())
             .build());
-    group.get().getUsersIds().add(userToAdd.get().getId());
-    userRepo.save(userToAdd.get());
-    groupRepo.save(group.get());
+    pairScoresService.onMemberAdded(group.get(), userToAdd.get().getId());
+    domainEventsPublisher.publish(
+        new MemberJoinedGroupEvent(group.get(), userToAdd.get().getId(), invitingUser.getId()));
     return ResponseEntity.ok(response);
   }
 
   @PutMapping(value = "/{groupId}/leave")
+  @RetryOnConflict
   public ResponseEntity<LeaveGroupResponse> leave(@PathVariable String groupId) {
     LeaveGroupResponse response = new LeaveGroupResponse();
 
@@ -304,12 +341,11 @@ public class GroupController extends BaseController {
     }
 
     group.get().getUsersIds().removeIf(userId -> userId.equals(user.getId()));
-
-    List<UserGroup> userGroups = user.getUserGroups();
-    userGroups.removeIf(userGroup -> userGroup.getGroupId().equals(groupId));
-
-    userRepo.save(user);
     groupRepo.save(group.get());
+    userRepo.removeUserGroup(user.getId(), groupId);
+    // The loaded user still has their scores in the group.
+    pairScoresService.onMemberRemoved(group.get(), user);
+    leaderboardsCache.invalidate(groupId, user.getId(), group.get().getUsersIds());
     return ResponseEntity.ok(response);
   }
 
@@ -1,5 +1,8 @@
 package com.azkar.controllers;
 
+import static com.azkar.controllers.BaseController.COMPACT_JSON_VALUE;
+import static com.azkar.controllers.BaseController.SMILE_VALUE;
+
 import com.azkar.entities.User;
 import com.azkar.payload.ResponseBase.Status;
 import com.azkar.payload.homecontroller.GetHomeResponse;
@@ -12,18 +15,31 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController()
-@RequestMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+@RequestMapping(
+    produces = {MediaType.APPLICATION_JSON_VALUE, COMPACT_JSON_VALUE, SMILE_VALUE})
 public class HomeController extends BaseController {
 
   @Autowired
   public UserRepo userRepo;
 
   @GetMapping(value = "/")
-  public ResponseEntity<GetHomeResponse> getHome() {
+  public ResponseEntity<GetHomeResponse> getHome(WebRequest webRequest) {
     GetHomeResponse response = new GetHomeResponse();
 
+    Optional<User> userVersion = userRepo.findVersionById(getCurrentUser().getUserId());
+    if (!userVersion.isPresent()) {
+      response.setStatus(new Status(Status.ERROR_USER_NOT_FOUND));
+      return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+    }
+    String eTag = toETag(getRepresentationStamp(/* stream= */ false),
+        userVersion.get().getId(), userVersion.get().getVersion());
+    if (webRequest.checkNotModified(eTag)) {
+      return null;
+    }
+
     Optional<User> user = userRepo.findById(getCurrentUser().getUserId());
     if (!user.isPresent()) {
       response.setStatus(new Status(Status.ERROR_USER_NOT_FOUND));
@@ -31,6 +47,6 @@ public class HomeController extends BaseController {
     }
 
     response.setData(user.get());
-    return ResponseEntity.ok().body(response);
+    return ResponseEntity.ok().eTag(eTag).body(response);
   }
 }
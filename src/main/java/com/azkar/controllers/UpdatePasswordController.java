@@ -1,5 +1,6 @@
 package com.azkar.controllers;
 
+import com.azkar.configs.RetryOnConflict;
 import com.azkar.entities.User;
 import com.azkar.repos.UserRepo;
 import java.time.Instant;
@@ -58,6 +59,7 @@ public class UpdatePasswordController {
   }
 
   @PostMapping(value = "update_password", consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+  @RetryOnConflict
   public String updatePassword(String token, String password, Model model,
       HttpServletResponse response) {
     if (password == null || password.length() < 8) {
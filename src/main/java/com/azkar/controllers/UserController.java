@@ -1,5 +1,9 @@
 package com.azkar.controllers;
 
+import static com.azkar.controllers.BaseController.COMPACT_JSON_VALUE;
+import static com.azkar.controllers.BaseController.SMILE_VALUE;
+
+import com.azkar.configs.RetryOnConflict;
 import com.azkar.entities.User;
 import com.azkar.payload.ResponseBase.Status;
 import com.azkar.payload.usercontroller.requests.SetNotificationTokenRequestBody;
@@ -17,9 +21,11 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController()
-@RequestMapping(path = "users", produces = MediaType.APPLICATION_JSON_VALUE)
+@RequestMapping(path = "users",
+    produces = {MediaType.APPLICATION_JSON_VALUE, COMPACT_JSON_VALUE, SMILE_VALUE})
 public class UserController extends BaseController {
 
   @Autowired
@@ -62,6 +68,7 @@ public class UserController extends BaseController {
   }
 
   @PutMapping(path = "/notifications/token")
+  @RetryOnConflict
   public ResponseEntity<SetNotificationTokenResponse> setNotificationsToken(@RequestBody
       SetNotificationTokenRequestBody body) {
     body.validate();
@@ -97,9 +104,16 @@ public class UserController extends BaseController {
   }
 
   @GetMapping(path = "/me")
-  public ResponseEntity<GetUserResponse> getCurrentUserProfile() {
+  public ResponseEntity<GetUserResponse> getCurrentUserProfile(WebRequest webRequest) {
+    User userVersion = userRepo.findVersionById(getCurrentUser().getUserId()).get();
+    String eTag = toETag(getRepresentationStamp(/* stream= */ false), userVersion.getId(),
+        userVersion.getVersion());
+    if (webRequest.checkNotModified(eTag)) {
+      return null;
+    }
+
     GetUserResponse response = new GetUserResponse();
     response.setData(userRepo.findById(getCurrentUser().getUserId()).get());
-    return ResponseEntity.ok(response);
+    return ResponseEntity.ok().eTag(eTag).body(response);
   }
 }
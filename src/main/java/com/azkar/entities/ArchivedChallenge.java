@@ -0,0 +1,72 @@
+package com.azkar.entities;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import javax.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * The user copy of an expired challenge, either a group challenge moved from the
+ * user_challenge_progress collection or a personal challenge moved from the user document, so that
+ * the documents read on every request only contain live challenges. See ChallengesArchiveJob.
+ */
+@Document(collection = "archived_challenges")
+@CompoundIndexes({
+    @CompoundIndex(name = "user_challenge_index", def = "{'userId': 1, 'challengeId': 1}",
+        unique = true),
+    @CompoundIndex(name = "user_order_index", def = "{'userId': 1, '_id': -1}"),
+    @CompoundIndex(name = "user_group_order_index", def = "{'userId': 1, 'groupId': 1, '_id': -1}")
+})
+@Builder(toBuilder = true)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedChallenge extends EntityBase {
+
+  // The ID of the archived UserChallengeProgress document, or the ID of the challenge itself for
+  // personal challenges, so that the archived challenges keep the order by which they were added
+  // and archiving the same copy twice is detected.
+  @Id
+  private String id;
+  @NotNull
+  private String userId;
+  @NotNull
+  private String challengeId;
+  @NotNull
+  private String groupId;
+  @NotNull
+  private Challenge challenge;
+  // In seconds since epoch, the same as Challenge.expiryDate.
+  @JsonIgnore
+  private long archivedAt;
+
+  public static ArchivedChallenge fromUserChallengeProgress(
+      UserChallengeProgress userChallengeProgress, long archivedAt) {
+    return ArchivedChallenge.builder()
+        .id(userChallengeProgress.getId())
+        .userId(userChallengeProgress.getUserId())
+        .challengeId(userChallengeProgress.getChallengeId())
+        .groupId(userChallengeProgress.getGroupId())
+        .challenge(userChallengeProgress.getChallenge())
+        .archivedAt(archivedAt)
+        .build();
+  }
+
+  public static ArchivedChallenge fromPersonalChallenge(String userId, Challenge challenge,
+      long archivedAt) {
+    return ArchivedChallenge.builder()
+        .id(challenge.getId())
+        .userId(userId)
+        .challengeId(challenge.getId())
+        .groupId(challenge.getGroupId())
+        .challenge(challenge)
+        .archivedAt(archivedAt)
+        .build();
+  }
+}
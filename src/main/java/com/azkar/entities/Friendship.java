@@ -12,6 +12,7 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
@@ -22,7 +23,7 @@ import org.springframework.data.mongodb.core.mapping.Document;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-public class Friendship extends EntityBase {
+public class Friendship extends EntityBase implements VersionStamped {
 
   @Id
   private String id;
@@ -37,6 +38,9 @@ public class Friendship extends EntityBase {
   @JsonIgnore
   @LastModifiedDate
   private long modifiedAt;
+  @JsonIgnore
+  @Version
+  private long version;
 
   @Builder
   @Data
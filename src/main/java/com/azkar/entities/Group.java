@@ -13,6 +13,8 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document(collection = "groups")
@@ -39,6 +41,7 @@ public class Group extends EntityBase {
   // TODO(issue#258): Populate Group.creatorId for existing users
   private String creatorId;
   @NotNull
+  @Indexed(name = "users_ids_index")
   private List<String> usersIds;
   @Default
   private List<String> challengesIds = new ArrayList<>();
@@ -48,4 +51,7 @@ public class Group extends EntityBase {
   @JsonIgnore
   @LastModifiedDate
   private long modifiedAt;
+  @JsonIgnore
+  @Version
+  private long version;
 }
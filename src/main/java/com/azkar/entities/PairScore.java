@@ -0,0 +1,73 @@
+package com.azkar.entities;
+
+import javax.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * The scores of two users accumulated over all of the groups they are both members in. There is
+ * one document per pair of users where {@code userA} is always the smaller of the two IDs, see
+ * {@link #isUserA(String, String)}.
+ */
+@Document(collection = "pair_scores")
+@CompoundIndex(name = "pair_index", def = "{'userA': 1, 'userB': 1}", unique = true)
+@Builder(toBuilder = true)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PairScore extends EntityBase {
+
+  @Id
+  private String id;
+  @NotNull
+  private String userA;
+  @NotNull
+  @Indexed(name = "user_b_index")
+  private String userB;
+  // The scores of the users in all of the ScorePeriods.
+  private int userAScore;
+  private int userBScore;
+  private int userAMonthScore;
+  private int userBMonthScore;
+  private int userAWeekScore;
+  private int userBWeekScore;
+  // The starts of the periods the monthly and weekly scores of both users were counted in, see
+  // ScorePeriod.
+  private long monthStart;
+  private long weekStart;
+
+  /**
+   * Returns whether {@code userId} is stored as userA in its pair with {@code otherUserId}.
+   */
+  public static boolean isUserA(String userId, String otherUserId) {
+    return userId.compareTo(otherUserId) < 0;
+  }
+
+  public String getOtherUserId(String userId) {
+    return userA.equals(userId) ? userB : userA;
+  }
+
+  public int getScoreOf(String userId, ScorePeriod period) {
+    boolean isUserA = userA.equals(userId);
+    switch (period) {
+      case MONTH:
+        if (!period.isCurrent(monthStart)) {
+          return 0;
+        }
+        return isUserA ? userAMonthScore : userBMonthScore;
+      case WEEK:
+        if (!period.isCurrent(weekStart)) {
+          return 0;
+        }
+        return isUserA ? userAWeekScore : userBWeekScore;
+      default:
+        return isUserA ? userAScore : userBScore;
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package com.azkar.entities;
+
+import com.azkar.entities.User.UserGroup;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.TemporalAdjuster;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * The periods that scores are counted over. The monthly and weekly scores are kept in buckets
+ * keyed by the start of the period they were counted in: a bucket of an older period is read as
+ * zero and is overwritten by the next increment, so scores never have to be reset.
+ */
+public enum ScorePeriod {
+  ALL_TIME("totalScore", "Score", null, null),
+  MONTH("monthScore", "MonthScore", "monthStart", TemporalAdjusters.firstDayOfMonth()),
+  WEEK("weekScore", "WeekScore", "weekStart",
+      TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+
+  // The name of the UserGroup field holding the score of this period.
+  private final String userGroupField;
+  // The suffix of the PairScore fields holding the score of this period.
+  private final String pairScoreFieldSuffix;
+  // The name of the UserGroup and PairScore fields holding the start of the period the score was
+  // counted in, or null if the score is never reset.
+  private final String startField;
+  private final TemporalAdjuster startAdjuster;
+
+  ScorePeriod(String userGroupField, String pairScoreFieldSuffix, String startField,
+      TemporalAdjuster startAdjuster) {
+    this.userGroupField = userGroupField;
+    this.pairScoreFieldSuffix = pairScoreFieldSuffix;
+    this.startField = startField;
+    this.startAdjuster = startAdjuster;
+  }
+
+  public String getUserGroupField() {
+    return userGroupField;
+  }
+
+  public String getPairScoreField(boolean isUserA) {
+    return (isUserA ? "userA" : "userB") + pairScoreFieldSuffix;
+  }
+
+  public String getStartField() {
+    return startField;
+  }
+
+  public boolean isBucketed() {
+    return startField != null;
+  }
+
+  /**
+   * Returns the start of the current period in epoch millis in UTC, or 0 for {@link #ALL_TIME}.
+   */
+  public long getCurrentStart() {
+    if (!isBucketed()) {
+      return 0;
+    }
+    return LocalDate.now(ZoneOffset.UTC).with(startAdjuster).atStartOfDay(ZoneOffset.UTC)
+        .toInstant().toEpochMilli();
+  }
+
+  /**
+   * Returns whether a score counted in the period starting at {@code start} belongs to the current
+   * period. A start after the current one is accepted so that clock skew between instances does not
+   * drop scores.
+   */
+  public boolean isCurrent(long start) {
+    return !isBucketed() || start >= getCurrentStart();
+  }
+
+  public int getScore(UserGroup userGroup) {
+    switch (this) {
+      case MONTH:
+        return userGroup.getMonthScore();
+      case WEEK:
+        return userGroup.getWeekScore();
+      default:
+        return userGroup.getTotalScore();
+    }
+  }
+}
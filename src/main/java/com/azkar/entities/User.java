@@ -12,6 +12,7 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -20,7 +21,7 @@ import org.springframework.data.mongodb.core.mapping.Document;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class User extends EntityBase {
+public class User extends EntityBase implements VersionStamped {
 
   @Id
   private String id;
@@ -41,10 +42,8 @@ public class User extends EntityBase {
   private UserFacebookData userFacebookData;
   @Default
   private List<UserGroup> userGroups = new ArrayList();
-  // Every Challenge instance in this list is a user-customized-copy of a Challenge document in
-  // the challenges collection.
-  @Default
-  private List<Challenge> userChallenges = new ArrayList();
+  // Note: The user copies of the group challenges are not saved in the user document so that its
+  // size does not grow with the number of challenges, see UserChallengeProgress.
   @JsonIgnore
   @Default
   private String resetPasswordToken = "";
@@ -56,6 +55,9 @@ public class User extends EntityBase {
   @JsonIgnore
   @LastModifiedDate
   private long updatedAt;
+  @JsonIgnore
+  @Version
+  private long version;
 
   @Builder
   @Data
@@ -64,15 +66,32 @@ public class User extends EntityBase {
   public static class UserGroup {
 
     @NotNull
+    @Indexed(name = "user_groups_group_id_index")
     private String groupId;
     // Group name can be empty or null in case it is an auto-generated group.
     private String groupName;
     @NotNull
     private String invitingUserId;
+    // The monthly and weekly scores are only valid in the periods starting at monthStart and
+    // weekStart respectively, see ScorePeriod.
     @Default
     private int monthScore = 0;
+    @JsonIgnore
+    private long monthStart;
+    @Default
+    private int weekScore = 0;
+    @JsonIgnore
+    private long weekStart;
     @Default
     private int totalScore = 0;
+
+    public int getMonthScore() {
+      return ScorePeriod.MONTH.isCurrent(monthStart) ? monthScore : 0;
+    }
+
+    public int getWeekScore() {
+      return ScorePeriod.WEEK.isCurrent(weekStart) ? weekScore : 0;
+    }
   }
 
   @Builder(toBuilder = true)
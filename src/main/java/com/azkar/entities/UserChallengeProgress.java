@@ -0,0 +1,55 @@
+package com.azkar.entities;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import javax.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * A user-customized-copy of a Challenge document in the challenges collection. Every group member
+ * gets their own copy when a group challenge is created so that they can track their own progress.
+ */
+@Document(collection = "user_challenge_progress")
+@CompoundIndexes({
+    @CompoundIndex(name = "user_challenge_index", def = "{'userId': 1, 'challengeId': 1}",
+        unique = true),
+    @CompoundIndex(name = "user_order_index", def = "{'userId': 1, '_id': -1}"),
+    @CompoundIndex(name = "user_group_order_index", def = "{'userId': 1, 'groupId': 1, '_id': -1}"),
+    @CompoundIndex(name = "expiry_date_index", def = "{'challenge.expiryDate': 1}")
+})
+@Builder(toBuilder = true)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserChallengeProgress extends EntityBase implements VersionStamped {
+
+  @Id
+  private String id;
+  @NotNull
+  private String userId;
+  @NotNull
+  @Indexed(name = "challenge_index")
+  private String challengeId;
+  @NotNull
+  private String groupId;
+  // The left repetitions of the sub-challenges of this copy represent the progress of the user.
+  @NotNull
+  private Challenge challenge;
+  @JsonIgnore
+  @CreatedDate
+  private long createdAt;
+  @JsonIgnore
+  @LastModifiedDate
+  private long modifiedAt;
+  @JsonIgnore
+  private long version;
+}
@@ -0,0 +1,17 @@
+package com.azkar.entities;
+
+/**
+ * A document with a version stamp that changes on every write to it, so that readers can cheaply
+ * detect that the document didn't change, e.g. to answer conditional requests. The stamp is
+ * incremented on every save, either by Spring Data for the documents whose stamp is their @Version
+ * or by VersionStampsListener for the others, and every targeted update of these documents has to
+ * increment it as well.
+ */
+public interface VersionStamped {
+
+  String VERSION_FIELD = "version";
+
+  long getVersion();
+
+  void setVersion(long version);
+}
@@ -1,5 +1,9 @@
 package com.azkar.entities;
 
+import com.azkar.payload.utils.ZekrDeserializer;
+import com.azkar.payload.utils.ZekrSerializer;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import javax.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -12,10 +16,14 @@ import lombok.Setter;
 @AllArgsConstructor
 @Setter
 @Builder
+@JsonSerialize(using = ZekrSerializer.class)
+@JsonDeserialize(using = ZekrDeserializer.class)
 public class Zekr {
 
   @NotNull
   Integer id;
-  @NotNull
+  // The text is only stored with the challenges that reference the zekr if the zekr is not in the
+  // catalog, otherwise it is filled from the catalog when the zekr is serialized, see
+  // ZekrSerializer and ZekrDeserializer.
   private String zekr;
 }
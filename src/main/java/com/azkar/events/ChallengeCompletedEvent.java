@@ -0,0 +1,24 @@
+package com.azkar.events;
+
+import com.azkar.entities.Challenge;
+import com.azkar.entities.User;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published after a user finished their copy of a group challenge and their score in the group
+ * was incremented.
+ */
+@Getter
+@AllArgsConstructor
+public class ChallengeCompletedEvent {
+
+  // The copy of the challenge of the user that finished it.
+  private final Challenge challenge;
+  private final User user;
+  // The members of the group right after the score was incremented. Members that join or leave the
+  // group later account for the incremented score themselves, so only the pairs of these members
+  // are incremented.
+  private final List<String> groupMembersIds;
+}
@@ -0,0 +1,19 @@
+package com.azkar.events;
+
+import com.azkar.entities.Challenge;
+import com.azkar.entities.User;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published after a group challenge and the copies of all of the group members are saved.
+ */
+@Getter
+@AllArgsConstructor
+public class ChallengeCreatedEvent {
+
+  private final Challenge challenge;
+  private final User creatingUser;
+  private final List<String> groupMembersIds;
+}
@@ -0,0 +1,111 @@
+package com.azkar.events;
+
+import com.azkar.configs.DomainEventsConfig;
+import com.azkar.entities.Challenge;
+import com.azkar.entities.User;
+import com.azkar.repos.ChallengeRepo;
+import com.azkar.repos.UserChallengeProgressRepo;
+import com.azkar.repos.UserRepo;
+import com.azkar.services.LeaderboardsCache;
+import com.azkar.services.NotificationsService;
+import com.azkar.services.PairScoresService;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ChallengeEventsListener extends DomainEventsListenerBase {
+
+  private static final Logger logger = LoggerFactory.getLogger(ChallengeEventsListener.class);
+
+  @Autowired
+  private ChallengeRepo challengeRepo;
+
+  @Autowired
+  private UserChallengeProgressRepo userChallengeProgressRepo;
+
+  @Autowired
+  private UserRepo userRepo;
+
+  @Autowired
+  private PairScoresService pairScoresService;
+
+  @Autowired
+  private LeaderboardsCache leaderboardsCache;
+
+  @Autowired
+  private NotificationsService notificationsService;
+
+  // Notifies the other group members. Their copies of the challenge are created in the request.
+  @Async(DomainEventsConfig.DOMAIN_EVENTS_EXECUTOR)
+  @EventListener
+  public void onChallengeCreated(ChallengeCreatedEvent event) {
+    handle(event, () -> {
+      List<String> otherMembersIds =
+          getOtherMembersIds(event.getGroupMembersIds(), event.getCreatingUser());
+      if (otherMembersIds.isEmpty()) {
+        return;
+      }
+      String body = getNotificationBody(event.getCreatingUser(), event.getChallenge());
+      for (User otherMember : userRepo.findNotificationsTokens(otherMembersIds)) {
+        notificationsService.sendNotificationToUser(otherMember, "لديك تحدٍ جديد", body);
+      }
+    });
+  }
+
+  // Updates the original challenge, the copies of the other group members and the scores that
+  // depend on the user's score in the group, then notifies the other group members.
+  @Async(DomainEventsConfig.DOMAIN_EVENTS_EXECUTOR)
+  @EventListener
+  public void onChallengeCompleted(ChallengeCompletedEvent event) {
+    handle(event, () -> {
+      Challenge challenge = event.getChallenge();
+      String userId = event.getUser().getId();
+      challengeRepo.addToUsersFinished(challenge.getId(), userId);
+      userChallengeProgressRepo.addToAllUsersFinished(challenge.getId(), userId);
+
+      if (event.getGroupMembersIds().isEmpty()) {
+        logger.warn(String.format("Challenge: %s was completed in a non-existing group: %s",
+            challenge.getId(), challenge.getGroupId()));
+        return;
+      }
+      pairScoresService.onScoreIncremented(userId, event.getGroupMembersIds());
+      leaderboardsCache.invalidate(challenge.getGroupId(), userId, event.getGroupMembersIds());
+
+      List<String> otherMembersIds =
+          getOtherMembersIds(event.getGroupMembersIds(), event.getUser());
+      if (otherMembersIds.isEmpty()) {
+        return;
+      }
+      String body = getNotificationBody(event.getUser(), challenge);
+      for (User otherMember : userRepo.findNotificationsTokens(otherMembersIds)) {
+        notificationsService.sendNotificationToUser(otherMember, "صديق لك أنهى تحدياً", body);
+      }
+    });
+  }
+
+  private static List<String> getOtherMembersIds(List<String> membersIds, User user) {
+    return membersIds.stream()
+        .filter(memberId -> !memberId.equals(user.getId()))
+        .collect(Collectors.toList());
+  }
+
+  private static String getNotificationBody(User user, Challenge challenge) {
+    // Fire emoji 🔥
+    String body = "\uD83D\uDD25";
+    body += " ";
+    body += user.getFirstName();
+    body += " ";
+    body += user.getLastName();
+    body += " (";
+
+    body += challenge.getName();
+    body += ")";
+    return body;
+  }
+}
@@ -0,0 +1,31 @@
+package com.azkar.events;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+public abstract class DomainEventsListenerBase {
+
+  private static final Logger logger = LoggerFactory.getLogger(DomainEventsListenerBase.class);
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  // Runs the handler of the event recording how long it took and whether it failed.
+  protected void handle(Object event, Runnable handler) {
+    String eventName = event.getClass().getSimpleName();
+    Timer.Sample sample = Timer.start(meterRegistry);
+    String result = "success";
+    try {
+      handler.run();
+    } catch (RuntimeException e) {
+      result = "failure";
+      logger.error(String.format("Failed to handle event: %s", eventName), e);
+    } finally {
+      sample.stop(meterRegistry.timer("domain.events.handled", "event", eventName, "result",
+          result));
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package com.azkar.events;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the domain events to their subscribers, which apply the side effects of the writes of
+ * a request in the background.
+ */
+@Component
+public class DomainEventsPublisher {
+
+  @Autowired
+  private ApplicationEventPublisher applicationEventPublisher;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  public void publish(Object event) {
+    meterRegistry.counter("domain.events.published", "event", event.getClass().getSimpleName())
+        .increment();
+    applicationEventPublisher.publishEvent(event);
+  }
+}
@@ -0,0 +1,17 @@
+package com.azkar.events;
+
+import com.azkar.entities.User;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published after a friend request is accepted and the binary group of the two friends is saved.
+ */
+@Getter
+@AllArgsConstructor
+public class FriendRequestAcceptedEvent {
+
+  private final User respondingUser;
+  private final String requestingUserId;
+  private final String binaryGroupId;
+}
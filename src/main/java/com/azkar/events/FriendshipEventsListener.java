@@ -0,0 +1,41 @@
+package com.azkar.events;
+
+import com.azkar.configs.DomainEventsConfig;
+import com.azkar.entities.User;
+import com.azkar.repos.UserRepo;
+import com.azkar.services.LeaderboardsCache;
+import com.azkar.services.NotificationsService;
+import com.google.common.collect.ImmutableList;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+@Component
+public class FriendshipEventsListener extends DomainEventsListenerBase {
+
+  @Autowired
+  private UserRepo userRepo;
+
+  @Autowired
+  private LeaderboardsCache leaderboardsCache;
+
+  @Autowired
+  private NotificationsService notificationsService;
+
+  // Adds the new friends to the friends leaderboards of each other and notifies the requester.
+  @Async(DomainEventsConfig.DOMAIN_EVENTS_EXECUTOR)
+  @EventListener
+  public void onFriendRequestAccepted(FriendRequestAcceptedEvent event) {
+    handle(event, () -> {
+      User respondingUser = event.getRespondingUser();
+      leaderboardsCache.invalidateFriendsLeaderboards(
+          ImmutableList.of(respondingUser.getId(), event.getRequestingUserId()));
+      for (User requestingUser :
+          userRepo.findNotificationsTokens(ImmutableList.of(event.getRequestingUserId()))) {
+        notificationsService.sendNotificationToUser(requestingUser, "تم قبول طلب الصداقة",
+            respondingUser.getFirstName() + " " + respondingUser.getLastName());
+      }
+    });
+  }
+}
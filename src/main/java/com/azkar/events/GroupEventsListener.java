@@ -0,0 +1,26 @@
+package com.azkar.events;
+
+import com.azkar.configs.DomainEventsConfig;
+import com.azkar.services.LeaderboardsCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+@Component
+public class GroupEventsListener extends DomainEventsListenerBase {
+
+  @Autowired
+  private LeaderboardsCache leaderboardsCache;
+
+  // The pair scores of the new member are adjusted in the request after the member is added, so
+  // only the leaderboards including the new member are refreshed here.
+  @Async(DomainEventsConfig.DOMAIN_EVENTS_EXECUTOR)
+  @EventListener
+  public void onMemberJoinedGroup(MemberJoinedGroupEvent event) {
+    handle(event, () -> {
+      leaderboardsCache.invalidate(event.getGroup().getId(), event.getUserId(),
+          event.getGroup().getUsersIds());
+    });
+  }
+}
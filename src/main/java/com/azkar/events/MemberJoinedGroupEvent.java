@@ -0,0 +1,18 @@
+package com.azkar.events;
+
+import com.azkar.entities.Group;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published after a user is added to a group.
+ */
+@Getter
+@AllArgsConstructor
+public class MemberJoinedGroupEvent {
+
+  // The group including the new member.
+  private final Group group;
+  private final String userId;
+  private final String invitingUserId;
+}
@@ -0,0 +1,14 @@
+package com.azkar.migrations;
+
+/**
+ * A one-time data migration that is applied on startup by {@link MigrationsRunner}. Migrations
+ * should be idempotent since a migration that failed in the middle will be retried on the next
+ * startup.
+ */
+public interface Migration {
+
+  // A unique ID of the migration. Migrations are applied in the order of their IDs.
+  String getId();
+
+  void migrate();
+}
@@ -0,0 +1,62 @@
+package com.azkar.migrations;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Applies the migrations that have not been applied before. Note that the web server starts
+ * accepting requests only after the context is refreshed, i.e. after all of the migrations are
+ * applied. The migrations are applied before any other context refresh listener, e.g. before the
+ * indexes are ensured, since the indexes may not hold for the documents before they are migrated.
+ */
+@Component
+public class MigrationsRunner {
+
+  public static final int ORDER = Ordered.HIGHEST_PRECEDENCE;
+
+  private static final Logger logger = LoggerFactory.getLogger(MigrationsRunner.class);
+  private static final String MIGRATIONS_COLLECTION = "migrations";
+
+  @Autowired
+  MongoTemplate mongoTemplate;
+
+  @Autowired(required = false)
+  List<Migration> migrations = new ArrayList<>();
+
+  @EventListener(ContextRefreshedEvent.class)
+  @Order(ORDER)
+  public void applyMigrations() {
+    migrations.stream()
+        .sorted(Comparator.comparing(Migration::getId))
+        .filter(migration -> !isApplied(migration))
+        .forEach(this::apply);
+  }
+
+  private boolean isApplied(Migration migration) {
+    return mongoTemplate.exists(query(where("_id").is(migration.getId())), MIGRATIONS_COLLECTION);
+  }
+
+  private void apply(Migration migration) {
+    logger.info(String.format("Applying migration: %s", migration.getId()));
+    migration.migrate();
+    mongoTemplate.insert(
+        new Document("_id", migration.getId()).append("appliedAt", Instant.now().getEpochSecond()),
+        MIGRATIONS_COLLECTION);
+    logger.info(String.format("Applied migration: %s", migration.getId()));
+  }
+}
@@ -0,0 +1,47 @@
+package com.azkar.migrations;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import com.azkar.entities.Friendship;
+import com.azkar.entities.Group;
+import com.azkar.entities.User;
+import com.azkar.entities.VersionStamped;
+import com.google.common.collect.ImmutableList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sets the @Version of the users, groups and friendships that were written before these documents
+ * were versioned. Spring Data treats a document with a zero version as new, so saving one of these
+ * documents would otherwise fail as a duplicate insert.
+ */
+@Component
+public class OptimisticLockingMigration implements Migration {
+
+  private static final Logger logger = LoggerFactory.getLogger(OptimisticLockingMigration.class);
+
+  @Autowired
+  MongoTemplate mongoTemplate;
+
+  @Override
+  public String getId() {
+    return "003_optimistic_locking_versions";
+  }
+
+  @Override
+  public void migrate() {
+    for (Class<?> entityClass : ImmutableList.of(User.class, Group.class, Friendship.class)) {
+      long updatedCount = mongoTemplate.updateMulti(
+          query(where(VersionStamped.VERSION_FIELD).not().gte(1)),
+          new Update().set(VersionStamped.VERSION_FIELD, 1L),
+          entityClass).getModifiedCount();
+      logger.info(String.format("Set the version of %d %s documents.", updatedCount,
+          entityClass.getSimpleName()));
+    }
+  }
+}
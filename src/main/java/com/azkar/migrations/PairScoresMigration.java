@@ -0,0 +1,114 @@
+package com.azkar.migrations;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import com.azkar.entities.Group;
+import com.azkar.entities.PairScore;
+import com.azkar.entities.User;
+import com.google.common.collect.ImmutableList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills the pair_scores collection from the scores of the users in their groups. The pair scores
+ * are set rather than incremented so that the migration can be safely re-applied.
+ */
+@Component
+public class PairScoresMigration implements Migration {
+
+  private static final Logger logger = LoggerFactory.getLogger(PairScoresMigration.class);
+  private static final int BATCH_SIZE = 1000;
+
+  @Autowired
+  MongoTemplate mongoTemplate;
+
+  @Override
+  public String getId() {
+    return "002_pair_scores";
+  }
+
+  @Override
+  public void migrate() {
+    // Maps group IDs to the scores of the members in the group.
+    Map<String, Map<String, Integer>> groupsScores = new HashMap<>();
+    Query usersQuery = new Query();
+    usersQuery.fields().include("userGroups");
+    try (CloseableIterator<User> users = mongoTemplate.stream(usersQuery, User.class)) {
+      users.forEachRemaining(user -> {
+        if (user.getUserGroups() == null) {
+          return;
+        }
+        user.getUserGroups().forEach(userGroup -> groupsScores
+            .computeIfAbsent(userGroup.getGroupId(), groupId -> new HashMap<>())
+            .put(user.getId(), userGroup.getTotalScore()));
+      });
+    }
+
+    // Maps the [userA, userB] pairs to their [userAScore, userBScore].
+    Map<List<String>, int[]> pairsScores = new HashMap<>();
+    Query groupsQuery = new Query();
+    groupsQuery.fields().include("usersIds");
+    try (CloseableIterator<Group> groups = mongoTemplate.stream(groupsQuery, Group.class)) {
+      groups.forEachRemaining(group -> addGroupScores(group,
+          groupsScores.getOrDefault(group.getId(), new HashMap<>()), pairsScores));
+    }
+
+    BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkMode.UNORDERED, PairScore.class);
+    int batchSize = 0;
+    for (Entry<List<String>, int[]> pairScores : pairsScores.entrySet()) {
+      bulkOperations.upsert(
+          query(where("userA").is(pairScores.getKey().get(0))
+              .and("userB").is(pairScores.getKey().get(1))),
+          new Update()
+              .set("userAScore", pairScores.getValue()[0])
+              .set("userBScore", pairScores.getValue()[1]));
+      if (++batchSize == BATCH_SIZE) {
+        bulkOperations.execute();
+        bulkOperations = mongoTemplate.bulkOps(BulkMode.UNORDERED, PairScore.class);
+        batchSize = 0;
+      }
+    }
+    if (batchSize > 0) {
+      bulkOperations.execute();
+    }
+    logger.info(String.format("Migrated the scores of %d pairs", pairsScores.size()));
+  }
+
+  private static void addGroupScores(Group group, Map<String, Integer> membersScores,
+      Map<List<String>, int[]> pairsScores) {
+    if (group.getUsersIds() == null) {
+      return;
+    }
+    List<String> membersIds = group.getUsersIds();
+    for (int i = 0; i < membersIds.size(); i++) {
+      for (int j = i + 1; j < membersIds.size(); j++) {
+        String userA = membersIds.get(i);
+        String userB = membersIds.get(j);
+        if (userA.equals(userB)) {
+          continue;
+        }
+        if (!PairScore.isUserA(userA, userB)) {
+          userA = membersIds.get(j);
+          userB = membersIds.get(i);
+        }
+        int[] scores = pairsScores.computeIfAbsent(ImmutableList.of(userA, userB),
+            pair -> new int[2]);
+        scores[0] += membersScores.getOrDefault(userA, 0);
+        scores[1] += membersScores.getOrDefault(userB, 0);
+      }
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package com.azkar.migrations;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import com.azkar.entities.PairScore;
+import com.azkar.entities.ScorePeriod;
+import com.azkar.entities.User;
+import com.mongodb.client.model.UpdateOptions;
+import java.util.Collections;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+/**
+ * Assigns the monthly and weekly scores that were written before they were keyed by their periods
+ * to the current periods, since these scores used to be reset at the start of every period.
+ * Buckets that already have a period start are not changed, so the migration can be re-applied.
+ */
+@Component
+public class ScoreBucketsMigration implements Migration {
+
+  private static final Logger logger = LoggerFactory.getLogger(ScoreBucketsMigration.class);
+
+  @Autowired
+  MongoTemplate mongoTemplate;
+
+  @Override
+  public String getId() {
+    return "005_score_buckets";
+  }
+
+  @Override
+  public void migrate() {
+    for (ScorePeriod period : ScorePeriod.values()) {
+      if (!period.isBucketed()) {
+        continue;
+      }
+      String startField = period.getStartField();
+      long currentStart = period.getCurrentStart();
+
+      // Array filters are not mapped by the update mapper, so the update is sent to the collection
+      // as is.
+      long usersCount = mongoTemplate.getCollection(mongoTemplate.getCollectionName(User.class))
+          .updateMany(
+              new Document("userGroups", new Document("$elemMatch",
+                  new Document(startField, new Document("$exists", false)))),
+              new Document("$set",
+                  new Document("userGroups.$[group]." + startField, currentStart)),
+              new UpdateOptions().arrayFilters(Collections.singletonList(
+                  new Document("group." + startField, new Document("$exists", false)))))
+          .getModifiedCount();
+      long pairsCount = mongoTemplate.updateMulti(
+          query(where(startField).exists(false)),
+          new Update().set(startField, currentStart),
+          PairScore.class).getModifiedCount();
+      logger.info(String.format("Set the %s of %d users and %d pairs.", startField, usersCount,
+          pairsCount));
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package com.azkar.migrations;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import com.azkar.configs.MongoIndexesInitializer;
+import com.azkar.entities.Challenge;
+import com.azkar.entities.User;
+import com.azkar.entities.UserChallengeProgress;
+import com.azkar.repos.UserChallengeProgressRepo;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves the user copies of the group challenges that used to be embedded in the user documents in
+ * the userChallenges field to the user_challenge_progress collection.
+ */
+@Component
+public class UserChallengeProgressMigration implements Migration {
+
+  private static final Logger logger =
+      LoggerFactory.getLogger(UserChallengeProgressMigration.class);
+  private static final String LEGACY_USER_CHALLENGES_FIELD = "userChallenges";
+
+  @Autowired
+  MongoTemplate mongoTemplate;
+
+  @Autowired
+  UserChallengeProgressRepo userChallengeProgressRepo;
+
+  @Autowired
+  MongoIndexesInitializer mongoIndexesInitializer;
+
+  @Override
+  public String getId() {
+    return "001_user_challenge_progress";
+  }
+
+  @Override
+  public void migrate() {
+    // The migrations run before the indexes are ensured on startup, but the insert relies on the
+    // unique (userId, challengeId) index to skip the already migrated challenges.
+    mongoIndexesInitializer.ensureIndexes(UserChallengeProgress.class);
+    Query query = query(where(LEGACY_USER_CHALLENGES_FIELD).exists(true));
+    query.fields().include(LEGACY_USER_CHALLENGES_FIELD);
+    try (CloseableIterator<Document> users = mongoTemplate
+        .stream(query, Document.class, mongoTemplate.getCollectionName(User.class))) {
+      users.forEachRemaining(this::migrateUser);
+    }
+  }
+
+  private void migrateUser(Document user) {
+    Object userId = user.get("_id");
+    // Challenges may have been migrated before in case a previous migration attempt failed, or
+    // concurrently by another instance, in which case they are skipped by the insert.
+    Set<String> migratedChallengesIds =
+        userChallengeProgressRepo.findAllByUserIdOrderByIdDesc(userId.toString()).stream()
+            .map(UserChallengeProgress::getChallengeId)
+            .collect(Collectors.toSet());
+
+    // The order of the legacy challenges is preserved so that the newest challenges are still
+    // returned first.
+    List<UserChallengeProgress> userChallengeProgresses =
+        user.getList(LEGACY_USER_CHALLENGES_FIELD, Document.class).stream()
+            .map(challengeDocument ->
+                mongoTemplate.getConverter().read(Challenge.class, challengeDocument))
+            .filter(challenge -> !migratedChallengesIds.contains(challenge.getId()))
+            .map(challenge -> UserChallengeProgress.builder()
+                .userId(userId.toString())
+                .challengeId(challenge.getId())
+                .groupId(challenge.getGroupId())
+                .challenge(challenge)
+                .build())
+            .collect(Collectors.toList());
+    userChallengeProgressRepo.insertIgnoringExisting(userChallengeProgresses);
+
+    mongoTemplate.updateFirst(query(where("_id").is(userId)),
+        new Update().unset(LEGACY_USER_CHALLENGES_FIELD),
+        mongoTemplate.getCollectionName(User.class));
+    logger.info(String.format("Migrated %d challenges of user: %s",
+        userChallengeProgresses.size(), userId));
+  }
+}
@@ -0,0 +1,70 @@
+package com.azkar.migrations;
+
+import com.azkar.configs.AzkarCacher;
+import com.azkar.entities.ArchivedChallenge;
+import com.azkar.entities.Challenge;
+import com.azkar.entities.User;
+import com.azkar.entities.UserChallengeProgress;
+import com.google.common.collect.ImmutableMap;
+import com.mongodb.client.model.UpdateOptions;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Removes the texts of the azkar that are in the catalog from the stored copies of the challenges,
+ * since these texts are filled from the catalog, see Zekr. The texts of the other azkar are kept.
+ *
+ * <p>Documents with and without the texts are read the same way, so the migration is safe to
+ * re-apply if it is interrupted. Note that like all migrations it is applied on startup before the
+ * server accepts requests, and it updates every document storing challenges.
+ */
+@Component
+public class ZekrReferencesMigration implements Migration {
+
+  private static final Logger logger = LoggerFactory.getLogger(ZekrReferencesMigration.class);
+  // Maps the documents storing challenges to the path of the azkar texts in them. Array filters
+  // are not mapped by the update mapper, so the paths are the stored ones.
+  private static final Map<Class<?>, String> ZEKR_TEXT_PATHS = ImmutableMap.of(
+      Challenge.class, "subChallenges.$[sub].zekr.zekr",
+      UserChallengeProgress.class, "challenge.subChallenges.$[sub].zekr.zekr",
+      ArchivedChallenge.class, "challenge.subChallenges.$[sub].zekr.zekr",
+      User.class, "personalChallenges.$[].subChallenges.$[sub].zekr.zekr");
+
+  @Autowired
+  MongoTemplate mongoTemplate;
+
+  @Autowired
+  AzkarCacher azkarCacher;
+
+  @Override
+  public String getId() {
+    return "004_zekr_references";
+  }
+
+  @Override
+  public void migrate() {
+    List<Integer> catalogAzkarIds = new ArrayList<>(azkarCacher.getAzkarById().keySet());
+    Document subChallengeFilter =
+        new Document("sub.zekr._id", new Document("$in", catalogAzkarIds));
+    for (Entry<Class<?>, String> zekrTextPath : ZEKR_TEXT_PATHS.entrySet()) {
+      String filterPath = zekrTextPath.getValue().replaceAll("\\.\\$\\[[a-z]*\\]", "");
+      long updatedCount = mongoTemplate.getCollection(
+          mongoTemplate.getCollectionName(zekrTextPath.getKey())).updateMany(
+          new Document(filterPath, new Document("$exists", true)),
+          new Document("$unset", new Document(zekrTextPath.getValue(), "")),
+          new UpdateOptions().arrayFilters(Collections.singletonList(subChallengeFilter)))
+          .getModifiedCount();
+      logger.info(String.format("Removed the azkar texts from %d %s documents.", updatedCount,
+          zekrTextPath.getKey().getSimpleName()));
+    }
+  }
+}
@@ -68,6 +68,10 @@ public abstract class ResponseBase<T> {
     public static final int ONE_OR_MORE_USERS_NOT_FRIENDS_ERROR = 48;
     public static final int LESS_THAN_TWO_FRIENDS_ARE_PROVIDED_ERROR = 49;
     public static final int DUPLICATE_FRIEND_IDS_PROVIDED_ERROR = 50;
+    public static final int INVALID_PAGINATION_PARAMETERS_ERROR = 51;
+    public static final int INVALID_CHALLENGES_FILTER_ERROR = 52;
+    public static final int INVALID_SCORE_PERIOD_ERROR = 53;
+    public static final int CONCURRENT_MODIFICATION_ERROR = 54;
 
     public int code;
 
@@ -0,0 +1,85 @@
+package com.azkar.payload.challengecontroller.requests;
+
+import com.azkar.payload.RequestBodyBase;
+import com.azkar.payload.ResponseBase.Status;
+import com.azkar.payload.exceptions.BadRequestException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Builder.Default;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * The query parameters of the challenges listing endpoints. Challenges are always listed with the
+ * most recently added challenges first. If no parameters are given then all of the challenges are
+ * returned.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class GetChallengesRequest extends RequestBodyBase {
+
+  public static final int MAX_LIMIT = 200;
+
+  // The maximum number of challenges to return.
+  private Integer limit;
+  // Only challenges added before (older than) the challenge with this ID are returned.
+  private String before;
+  // Only challenges added after (newer than) the challenge with this ID are returned.
+  private String after;
+  // Only challenges in this group are returned.
+  private String groupId;
+  @Default
+  private List<String> filter = new ArrayList<>();
+  // Whether the challenges are written as they are read from the database instead of being loaded
+  // into memory first, which is only supported when listing the challenges that are not archived.
+  private boolean stream;
+
+  @Override
+  public void validate() throws BadRequestException {
+    if ((limit != null && (limit <= 0 || limit > MAX_LIMIT)) || (before != null
+        && after != null)) {
+      throw new BadRequestException(new Status(Status.INVALID_PAGINATION_PARAMETERS_ERROR));
+    }
+    Set<Filter> filters = getFilters();
+    if (filters.contains(Filter.ACTIVE) && filters.contains(Filter.EXPIRED)) {
+      throw new BadRequestException(new Status(Status.INVALID_CHALLENGES_FILTER_ERROR));
+    }
+  }
+
+  public String getCursor() {
+    return before != null ? before : after;
+  }
+
+  public Set<Filter> getFilters() throws BadRequestException {
+    Set<Filter> filters = EnumSet.noneOf(Filter.class);
+    if (filter == null) {
+      return filters;
+    }
+    for (String filterName : filter) {
+      try {
+        filters.add(Filter.valueOf(filterName.trim().toUpperCase(Locale.ENGLISH)));
+      } catch (IllegalArgumentException e) {
+        throw new BadRequestException(new Status(Status.INVALID_CHALLENGES_FILTER_ERROR));
+      }
+    }
+    return filters;
+  }
+
+  public enum Filter {
+    // Challenges that did not expire yet.
+    ACTIVE,
+    // Challenges that already expired.
+    EXPIRED,
+    // Challenges that the current user finished.
+    FINISHED
+  }
+}
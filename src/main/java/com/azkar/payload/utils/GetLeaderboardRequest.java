@@ -0,0 +1,57 @@
+package com.azkar.payload.utils;
+
+import com.azkar.entities.ScorePeriod;
+import com.azkar.payload.RequestBodyBase;
+import com.azkar.payload.ResponseBase.Status;
+import com.azkar.payload.exceptions.BadRequestException;
+import java.util.Locale;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * The query parameters of the leaderboard endpoints. Both the group and the friends leaderboards
+ * validate all of them, even though the friends leaderboard is never paged.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class GetLeaderboardRequest extends RequestBodyBase {
+
+  public static final int MAX_LIMIT = 500;
+
+  // The period to rank the scores over, one of all_time, month or week. Defaults to all_time.
+  private String period;
+  // The maximum number of scores to return, used with offset to get the top scores of large
+  // groups. Only applies to group leaderboards.
+  private Integer limit;
+  // The number of highest scores to skip. Only applies to group leaderboards.
+  private Integer offset;
+
+  @Override
+  public void validate() throws BadRequestException {
+    if ((limit != null && (limit <= 0 || limit > MAX_LIMIT)) || (offset != null && offset < 0)) {
+      throw new BadRequestException(new Status(Status.INVALID_PAGINATION_PARAMETERS_ERROR));
+    }
+    getScorePeriod();
+  }
+
+  public int getOffsetOrDefault() {
+    return offset != null ? offset : 0;
+  }
+
+  public ScorePeriod getScorePeriod() throws BadRequestException {
+    if (period == null) {
+      return ScorePeriod.ALL_TIME;
+    }
+    try {
+      return ScorePeriod.valueOf(period.trim().toUpperCase(Locale.ENGLISH));
+    } catch (IllegalArgumentException e) {
+      throw new BadRequestException(new Status(Status.INVALID_SCORE_PERIOD_ERROR));
+    }
+  }
+}
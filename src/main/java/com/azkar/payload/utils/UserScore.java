@@ -10,5 +10,6 @@ public class UserScore {
   String firstName;
   String lastName;
   String username;
+  // The score in the requested ScorePeriod.
   int totalScore;
 }
\ No newline at end of file
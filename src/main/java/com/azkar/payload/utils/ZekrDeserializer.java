@@ -0,0 +1,35 @@
+package com.azkar.payload.utils;
+
+import com.azkar.configs.AzkarCacher;
+import com.azkar.entities.Zekr;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.IOException;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Reads a zekr dropping its text if the zekr is in the catalog, so that only the texts of the
+ * azkar that are not in the catalog are stored, see {@link ZekrSerializer}.
+ *
+ * <p>Note: The catalog is injected when the deserializer is created by a Spring-configured
+ * ObjectMapper, otherwise azkar are read as they are.
+ */
+public class ZekrDeserializer extends JsonDeserializer<Zekr> {
+
+  @Autowired(required = false)
+  private AzkarCacher azkarCacher;
+
+  @Override
+  public Zekr deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+    JsonNode node = parser.readValueAsTree();
+    Integer id =
+        node.hasNonNull("id") ? parser.getCodec().treeToValue(node.get("id"), Integer.class) : null;
+    String text = node.hasNonNull("zekr") ? node.get("zekr").asText() : null;
+    if (azkarCacher != null && id != null && azkarCacher.getAzkarById().containsKey(id)) {
+      text = null;
+    }
+    return Zekr.builder().id(id).zekr(text).build();
+  }
+}
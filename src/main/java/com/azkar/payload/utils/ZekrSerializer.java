@@ -0,0 +1,39 @@
+package com.azkar.payload.utils;
+
+import com.azkar.configs.AzkarCacher;
+import com.azkar.entities.Zekr;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import java.io.IOException;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Writes a zekr with its text from the catalog, since challenges only store the IDs of the azkar
+ * that are in the catalog. The stored text of the zekr is written if the zekr is not in the
+ * catalog.
+ *
+ * <p>Note: The catalog is injected when the serializer is created by a Spring-configured
+ * ObjectMapper, otherwise azkar are written as they are.
+ */
+public class ZekrSerializer extends JsonSerializer<Zekr> {
+
+  @Autowired(required = false)
+  private AzkarCacher azkarCacher;
+
+  @Override
+  public void serialize(Zekr zekr, JsonGenerator generator, SerializerProvider provider)
+      throws IOException {
+    String text = zekr.getZekr();
+    if (azkarCacher != null && zekr.getId() != null
+        && azkarCacher.getAzkarById().containsKey(zekr.getId())) {
+      text = azkarCacher.getAzkarById().get(zekr.getId()).getZekr();
+    }
+    generator.writeStartObject();
+    provider.defaultSerializeField("id", zekr.getId(), generator);
+    if (text != null) {
+      generator.writeStringField("zekr", text);
+    }
+    generator.writeEndObject();
+  }
+}
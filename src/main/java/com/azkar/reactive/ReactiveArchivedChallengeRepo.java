@@ -0,0 +1,13 @@
+package com.azkar.reactive;
+
+import com.azkar.entities.ArchivedChallenge;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface ReactiveArchivedChallengeRepo extends
+    ReactiveMongoRepository<ArchivedChallenge, String> {
+
+  Mono<Boolean> existsByUserIdAndChallengeId(String userId, String challengeId);
+}
@@ -0,0 +1,32 @@
+package com.azkar.reactive;
+
+import com.azkar.controllers.BaseController;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * The handlers of the reactive controllers run their database calls off the request thread, so
+ * they can't use WebRequest#checkNotModified and compare the ETags themselves instead.
+ */
+abstract class ReactiveBaseController extends BaseController {
+
+  protected static boolean isNotModified(String ifNoneMatch, String eTag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String clientETag : ifNoneMatch.split(",")) {
+      clientETag = clientETag.trim();
+      if (clientETag.startsWith("W/")) {
+        clientETag = clientETag.substring(2);
+      }
+      if (clientETag.equals("*") || clientETag.equals(eTag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  protected static ResponseEntity<?> notModified(String eTag) {
+    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+  }
+}
@@ -0,0 +1,159 @@
+package com.azkar.reactive;
+
+import static com.azkar.controllers.BaseController.COMPACT_JSON_VALUE;
+import static com.azkar.controllers.BaseController.SMILE_VALUE;
+
+import com.azkar.entities.UserChallengeProgress;
+import com.azkar.payload.ResponseBase.Status;
+import com.azkar.payload.challengecontroller.requests.GetChallengesRequest;
+import com.azkar.payload.challengecontroller.responses.GetChallengeResponse;
+import com.azkar.payload.challengecontroller.responses.GetChallengesResponse;
+import com.azkar.payload.exceptions.BadRequestException;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import reactor.core.publisher.Mono;
+
+@ReactiveReadController
+@RequestMapping(value = "/challenges",
+    produces = {MediaType.APPLICATION_JSON_VALUE, COMPACT_JSON_VALUE, SMILE_VALUE})
+public class ReactiveChallengeController extends ReactiveBaseController {
+
+  @Autowired
+  ReactiveUserRepo userRepo;
+
+  @Autowired
+  ReactiveGroupRepo groupRepo;
+
+  @Autowired
+  ReactiveChallengeRepo challengeRepo;
+
+  @Autowired
+  ReactiveUserChallengeProgressRepo userChallengeProgressRepo;
+
+  @Autowired
+  ReactiveArchivedChallengeRepo archivedChallengeRepo;
+
+  @GetMapping("/original/{challengeId}")
+  public Mono<ResponseEntity<GetChallengeResponse>> getOriginalChallenge(
+      @PathVariable(value = "challengeId") String challengeId) {
+    String currentUserId = getCurrentUser().getUserId();
+    Mono<Boolean> isPersonalChallenge = userRepo.findById(currentUserId)
+        .map(user -> user.getPersonalChallenges().stream()
+            .anyMatch(challenge -> challenge.getId().equals(challengeId)))
+        .defaultIfEmpty(false);
+    return Mono.zip(
+        userChallengeProgressRepo.existsByUserIdAndChallengeId(currentUserId, challengeId),
+        isPersonalChallenge)
+        .flatMap(isChallengeOfUser -> isChallengeOfUser.getT1() || isChallengeOfUser.getT2()
+            ? Mono.just(true)
+            // The copies of the expired challenges are moved to the archive.
+            : archivedChallengeRepo.existsByUserIdAndChallengeId(currentUserId, challengeId))
+        .filter(Boolean::booleanValue)
+        .flatMap(isChallengeOfUser -> challengeRepo.findById(challengeId))
+        .map(challenge -> {
+          GetChallengeResponse response = new GetChallengeResponse();
+          response.setData(challenge);
+          return ResponseEntity.ok(response);
+        })
+        .defaultIfEmpty(challengeNotFound());
+  }
+
+  private static ResponseEntity<GetChallengeResponse> challengeNotFound() {
+    GetChallengeResponse response = new GetChallengeResponse();
+    response.setStatus(new Status(Status.CHALLENGE_NOT_FOUND_ERROR));
+    return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+  }
+
+  // Returns all non-personal challenges. Streamed responses are still written by the blocking
+  // handler.
+  @GetMapping(path = "/", params = "stream!=true")
+  public Mono<ResponseEntity<?>> getAllChallenges(GetChallengesRequest request,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+    return getUserChallenges(getCurrentUser().getUserId(), request,
+        getRepresentationStamp(/* stream= */ false), ifNoneMatch);
+  }
+
+  @GetMapping(path = "/groups/{groupId}/", params = "stream!=true")
+  public Mono<ResponseEntity<?>> getAllChallengesInGroup(
+      @PathVariable(value = "groupId") String groupId, GetChallengesRequest request,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+    String currentUserId = getCurrentUser().getUserId();
+    String representation = getRepresentationStamp(/* stream= */ false);
+    return groupRepo.findById(groupId)
+        .flatMap(group -> {
+          if (!group.getUsersIds().contains(currentUserId)) {
+            return Mono.just(error(HttpStatus.FORBIDDEN, Status.NON_GROUP_MEMBER_ERROR));
+          }
+          return getUserChallenges(currentUserId, request.toBuilder().groupId(groupId).build(),
+              representation, ifNoneMatch);
+        })
+        .defaultIfEmpty(error(HttpStatus.BAD_REQUEST, Status.GROUP_NOT_FOUND_ERROR));
+  }
+
+  // The representation stamp is read on the request thread by the handlers, see
+  // BaseController#getRepresentationStamp.
+  private Mono<ResponseEntity<?>> getUserChallenges(String currentUserId,
+      GetChallengesRequest request, String representation, String ifNoneMatch) {
+    try {
+      request.validate();
+    } catch (BadRequestException e) {
+      GetChallengesResponse response = new GetChallengesResponse();
+      response.setStatus(e.error);
+      return Mono.just(ResponseEntity.badRequest().body(response));
+    }
+    if (request.getCursor() == null) {
+      return getUserChallengesPage(currentUserId, request, /* cursorId= */ null, representation,
+          ifNoneMatch);
+    }
+    return userChallengeProgressRepo.findByUserIdAndChallengeId(currentUserId, request.getCursor())
+        .flatMap(cursor -> getUserChallengesPage(currentUserId, request, cursor.getId(),
+            representation, ifNoneMatch))
+        .defaultIfEmpty(error(HttpStatus.BAD_REQUEST, Status.CHALLENGE_NOT_FOUND_ERROR));
+  }
+
+  // The page is identified by the IDs and versions of its progress documents, the same way as in
+  // ChallengeController, so both serving stacks agree on the ETags.
+  private Mono<ResponseEntity<?>> getUserChallengesPage(String currentUserId,
+      GetChallengesRequest request, String cursorId, String representation, String ifNoneMatch) {
+    if (ifNoneMatch == null) {
+      return userChallengeProgressRepo.findUserChallenges(currentUserId, request, cursorId)
+          .collectList()
+          .<ResponseEntity<?>>map(page -> ok(page, toPageETag(representation, currentUserId,
+              page)));
+    }
+    return userChallengeProgressRepo.findUserChallengesVersions(currentUserId, request, cursorId)
+        .collectList()
+        .flatMap(progressVersions -> {
+          String eTag = toPageETag(representation, currentUserId, progressVersions);
+          if (isNotModified(ifNoneMatch, eTag)) {
+            return Mono.just(notModified(eTag));
+          }
+          return userChallengeProgressRepo.findUserChallenges(currentUserId, request, cursorId)
+              .collectList()
+              .<ResponseEntity<?>>map(page -> ok(page, eTag));
+        });
+  }
+
+  private static ResponseEntity<?> ok(List<UserChallengeProgress> page, String eTag) {
+    GetChallengesResponse response = new GetChallengesResponse();
+    response.setData(page.stream()
+        .map(UserChallengeProgress::getChallenge)
+        .collect(Collectors.toList()));
+    return ResponseEntity.ok().eTag(eTag).body(response);
+  }
+
+  private static ResponseEntity<?> error(HttpStatus httpStatus, int errorCode) {
+    GetChallengesResponse response = new GetChallengesResponse();
+    response.setStatus(new Status(errorCode));
+    return ResponseEntity.status(httpStatus).body(response);
+  }
+}
@@ -0,0 +1,10 @@
+package com.azkar.reactive;
+
+import com.azkar.entities.Challenge;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReactiveChallengeRepo extends ReactiveMongoRepository<Challenge, String> {
+
+}
@@ -0,0 +1,44 @@
+package com.azkar.reactive;
+
+import static com.azkar.controllers.BaseController.COMPACT_JSON_VALUE;
+import static com.azkar.controllers.BaseController.SMILE_VALUE;
+
+import com.azkar.payload.usercontroller.responses.GetFriendsResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import reactor.core.publisher.Mono;
+
+@ReactiveReadController
+@RequestMapping(value = "/friends",
+    produces = {MediaType.APPLICATION_JSON_VALUE, COMPACT_JSON_VALUE, SMILE_VALUE})
+public class ReactiveFriendshipController extends ReactiveBaseController {
+
+  @Autowired
+  ReactiveFriendshipRepo friendshipRepo;
+
+  // Streamed responses are still written by the blocking handler.
+  @GetMapping(params = "stream!=true")
+  public Mono<ResponseEntity<?>> getFriends(
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+    String currentUserId = getCurrentUser().getUserId();
+    String representation = getRepresentationStamp(/* stream= */ false);
+    return friendshipRepo.findVersionByUserId(currentUserId)
+        .flatMap(friendshipVersion -> {
+          String eTag = toETag(representation, friendshipVersion.getId(),
+              friendshipVersion.getVersion());
+          if (isNotModified(ifNoneMatch, eTag)) {
+            return Mono.just(notModified(eTag));
+          }
+          return friendshipRepo.findByUserId(currentUserId).<ResponseEntity<?>>map(friendship -> {
+            GetFriendsResponse response = new GetFriendsResponse();
+            response.setData(friendship);
+            return ResponseEntity.ok().eTag(eTag).body(response);
+          });
+        });
+  }
+}
@@ -0,0 +1,17 @@
+package com.azkar.reactive;
+
+import com.azkar.entities.Friendship;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface ReactiveFriendshipRepo extends ReactiveMongoRepository<Friendship, String> {
+
+  Mono<Friendship> findByUserId(String userId);
+
+  // Returns the friendship with only its id and version stamp populated.
+  @Query(value = "{'userId': ?0}", fields = "{'version': 1}")
+  Mono<Friendship> findVersionByUserId(String userId);
+}
@@ -0,0 +1,46 @@
+package com.azkar.reactive;
+
+import static com.azkar.controllers.BaseController.COMPACT_JSON_VALUE;
+import static com.azkar.controllers.BaseController.SMILE_VALUE;
+
+import com.azkar.payload.groupcontroller.responses.GetGroupsResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import reactor.core.publisher.Mono;
+
+@ReactiveReadController
+@RequestMapping(value = "/groups",
+    produces = {MediaType.APPLICATION_JSON_VALUE, COMPACT_JSON_VALUE, SMILE_VALUE})
+public class ReactiveGroupController extends ReactiveBaseController {
+
+  @Autowired
+  ReactiveGroupRepo groupRepo;
+
+  // Streamed responses are still written by the blocking handler.
+  @GetMapping(params = "stream!=true")
+  public Mono<ResponseEntity<?>> getGroups(
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+    String currentUserId = getCurrentUser().getUserId();
+    String representation = getRepresentationStamp(/* stream= */ false);
+    return groupRepo.findVersionsContainingUser(currentUserId)
+        .collectList()
+        .flatMap(groupsVersions -> {
+          String eTag = toGroupsETag(representation, groupsVersions);
+          if (isNotModified(ifNoneMatch, eTag)) {
+            return Mono.just(notModified(eTag));
+          }
+          return groupRepo.findAllContainingUser(currentUserId)
+              .collectList()
+              .<ResponseEntity<?>>map(groups -> {
+                GetGroupsResponse response = new GetGroupsResponse();
+                response.setData(groups);
+                return ResponseEntity.ok().eTag(eTag).body(response);
+              });
+        });
+  }
+}
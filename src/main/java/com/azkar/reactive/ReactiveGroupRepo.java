@@ -0,0 +1,20 @@
+package com.azkar.reactive;
+
+import com.azkar.entities.Group;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface ReactiveGroupRepo extends ReactiveMongoRepository<Group, String> {
+
+  // Uses the multikey index on usersIds.
+  @Query(value = "{'usersIds': ?0}", sort = "{'_id': 1}")
+  Flux<Group> findAllContainingUser(String userId);
+
+  // Returns the same groups as findAllContainingUser with only their ids and version stamps
+  // populated.
+  @Query(value = "{'usersIds': ?0}", sort = "{'_id': 1}", fields = "{'version': 1}")
+  Flux<Group> findVersionsContainingUser(String userId);
+}
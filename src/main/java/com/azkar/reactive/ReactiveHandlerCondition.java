@@ -0,0 +1,37 @@
+package com.azkar.reactive;
+
+import javax.servlet.http.HttpServletRequest;
+import org.springframework.web.servlet.mvc.condition.RequestCondition;
+
+/**
+ * Matches every request. It is only set on the mappings of {@link ReactiveReadController}s, and
+ * a mapping with a custom condition is preferred over an otherwise equal one without it, so the
+ * reactive handlers win over the blocking handlers of the same requests.
+ */
+public final class ReactiveHandlerCondition implements RequestCondition<ReactiveHandlerCondition> {
+
+  public static final ReactiveHandlerCondition INSTANCE = new ReactiveHandlerCondition();
+
+  private ReactiveHandlerCondition() {
+  }
+
+  @Override
+  public ReactiveHandlerCondition combine(ReactiveHandlerCondition other) {
+    return this;
+  }
+
+  @Override
+  public ReactiveHandlerCondition getMatchingCondition(HttpServletRequest request) {
+    return this;
+  }
+
+  @Override
+  public int compareTo(ReactiveHandlerCondition other, HttpServletRequest request) {
+    return 0;
+  }
+
+  @Override
+  public String toString() {
+    return "reactive";
+  }
+}
@@ -0,0 +1,51 @@
+package com.azkar.reactive;
+
+import static com.azkar.controllers.BaseController.COMPACT_JSON_VALUE;
+import static com.azkar.controllers.BaseController.SMILE_VALUE;
+
+import com.azkar.payload.ResponseBase.Status;
+import com.azkar.payload.homecontroller.GetHomeResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import reactor.core.publisher.Mono;
+
+@ReactiveReadController
+@RequestMapping(
+    produces = {MediaType.APPLICATION_JSON_VALUE, COMPACT_JSON_VALUE, SMILE_VALUE})
+public class ReactiveHomeController extends ReactiveBaseController {
+
+  @Autowired
+  ReactiveUserRepo userRepo;
+
+  @GetMapping(value = "/")
+  public Mono<ResponseEntity<?>> getHome(
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+    String currentUserId = getCurrentUser().getUserId();
+    String representation = getRepresentationStamp(/* stream= */ false);
+    return userRepo.findVersionById(currentUserId)
+        .flatMap(userVersion -> {
+          String eTag = toETag(representation, userVersion.getId(), userVersion.getVersion());
+          if (isNotModified(ifNoneMatch, eTag)) {
+            return Mono.just(notModified(eTag));
+          }
+          return userRepo.findById(currentUserId).<ResponseEntity<?>>map(user -> {
+            GetHomeResponse response = new GetHomeResponse();
+            response.setData(user);
+            return ResponseEntity.ok().eTag(eTag).body(response);
+          });
+        })
+        .defaultIfEmpty(userNotFound());
+  }
+
+  private static ResponseEntity<?> userNotFound() {
+    GetHomeResponse response = new GetHomeResponse();
+    response.setStatus(new Status(Status.ERROR_USER_NOT_FOUND));
+    return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+  }
+}
@@ -0,0 +1,34 @@
+package com.azkar.reactive;
+
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import org.springframework.boot.autoconfigure.mongo.MongoProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.SimpleReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.repository.config.EnableReactiveMongoRepositories;
+
+/**
+ * Connects the reactive repositories to the same database as the blocking ones. The documents are
+ * mapped by the same converter, so both see the same entities.
+ */
+@Configuration
+@Profile(ReactiveReadController.PROFILE)
+@EnableReactiveMongoRepositories
+public class ReactiveMongoConfig {
+
+  @Bean(destroyMethod = "close")
+  public MongoClient reactiveMongoClient(MongoProperties mongoProperties) {
+    return MongoClients.create(mongoProperties.determineUri());
+  }
+
+  @Bean
+  public ReactiveMongoTemplate reactiveMongoTemplate(MongoClient reactiveMongoClient,
+      MongoProperties mongoProperties, MongoConverter mongoConverter) {
+    return new ReactiveMongoTemplate(new SimpleReactiveMongoDatabaseFactory(reactiveMongoClient,
+        mongoProperties.getMongoClientDatabase()), mongoConverter);
+  }
+}
@@ -0,0 +1,26 @@
+package com.azkar.reactive;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Marks a controller of the reactive serving profile. Its handlers serve the same read requests
+ * as the blocking controllers but without holding a servlet thread while waiting on the database,
+ * and they are preferred over the blocking handlers of the same requests, see WebConfiguration.
+ *
+ * <p>The profile is opt-in, e.g. with {@code --spring.profiles.active=reactive}.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@RestController
+@Profile(ReactiveReadController.PROFILE)
+public @interface ReactiveReadController {
+
+  String PROFILE = "reactive";
+}
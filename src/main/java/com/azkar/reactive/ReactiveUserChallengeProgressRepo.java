@@ -0,0 +1,16 @@
+package com.azkar.reactive;
+
+import com.azkar.entities.UserChallengeProgress;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface ReactiveUserChallengeProgressRepo extends
+    ReactiveMongoRepository<UserChallengeProgress, String>,
+    ReactiveUserChallengeProgressRepoCustom {
+
+  Mono<UserChallengeProgress> findByUserIdAndChallengeId(String userId, String challengeId);
+
+  Mono<Boolean> existsByUserIdAndChallengeId(String userId, String challengeId);
+}
@@ -0,0 +1,23 @@
+package com.azkar.reactive;
+
+import com.azkar.entities.UserChallengeProgress;
+import com.azkar.payload.challengecontroller.requests.GetChallengesRequest;
+import com.azkar.repos.UserChallengeProgressRepoCustom;
+import reactor.core.publisher.Flux;
+
+public interface ReactiveUserChallengeProgressRepoCustom {
+
+  /**
+   * Returns the same page as {@link UserChallengeProgressRepoCustom#findUserChallenges(String,
+   * GetChallengesRequest, String)}.
+   */
+  Flux<UserChallengeProgress> findUserChallenges(String userId, GetChallengesRequest request,
+      String cursorId);
+
+  /**
+   * Returns the same page as {@link #findUserChallenges(String, GetChallengesRequest, String)}
+   * with only the ids and version stamps of the progress documents populated.
+   */
+  Flux<UserChallengeProgress> findUserChallengesVersions(String userId,
+      GetChallengesRequest request, String cursorId);
+}
@@ -0,0 +1,47 @@
+package com.azkar.reactive;
+
+import com.azkar.entities.UserChallengeProgress;
+import com.azkar.entities.VersionStamped;
+import com.azkar.payload.challengecontroller.requests.GetChallengesRequest;
+import com.azkar.repos.UserChallengeProgressRepoImpl;
+import java.util.Collections;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+
+public class ReactiveUserChallengeProgressRepoImpl implements
+    ReactiveUserChallengeProgressRepoCustom {
+
+  @Autowired
+  private ReactiveMongoTemplate reactiveMongoTemplate;
+
+  @Override
+  public Flux<UserChallengeProgress> findUserChallenges(String userId,
+      GetChallengesRequest request, String cursorId) {
+    return findPage(UserChallengeProgressRepoImpl.userChallengesPageQuery(userId, request,
+        cursorId), request);
+  }
+
+  @Override
+  public Flux<UserChallengeProgress> findUserChallengesVersions(String userId,
+      GetChallengesRequest request, String cursorId) {
+    Query query = UserChallengeProgressRepoImpl.userChallengesPageQuery(userId, request, cursorId);
+    query.fields().include(VersionStamped.VERSION_FIELD);
+    return findPage(query, request);
+  }
+
+  // The challenges after the cursor are loaded in the ascending order, see
+  // UserChallengeProgressRepoImpl#userChallengesPageQuery.
+  private Flux<UserChallengeProgress> findPage(Query query, GetChallengesRequest request) {
+    Flux<UserChallengeProgress> page = reactiveMongoTemplate.find(query,
+        UserChallengeProgress.class);
+    if (request.getAfter() == null) {
+      return page;
+    }
+    return page.collectList().flatMapIterable(progresses -> {
+      Collections.reverse(progresses);
+      return progresses;
+    });
+  }
+}
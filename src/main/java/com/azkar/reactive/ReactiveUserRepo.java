@@ -0,0 +1,15 @@
+package com.azkar.reactive;
+
+import com.azkar.entities.User;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface ReactiveUserRepo extends ReactiveMongoRepository<User, String> {
+
+  // Returns the user with only its id and version stamp populated.
+  @Query(value = "{'_id': ?0}", fields = "{'version': 1}")
+  Mono<User> findVersionById(String id);
+}
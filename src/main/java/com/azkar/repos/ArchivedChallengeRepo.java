@@ -0,0 +1,15 @@
+package com.azkar.repos;
+
+import com.azkar.entities.ArchivedChallenge;
+import java.util.Optional;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ArchivedChallengeRepo extends MongoRepository<ArchivedChallenge, String>,
+    ArchivedChallengeRepoCustom {
+
+  Optional<ArchivedChallenge> findByUserIdAndChallengeId(String userId, String challengeId);
+
+  boolean existsByUserIdAndChallengeId(String userId, String challengeId);
+}
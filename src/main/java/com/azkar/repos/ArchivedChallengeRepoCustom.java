@@ -0,0 +1,22 @@
+package com.azkar.repos;
+
+import com.azkar.entities.ArchivedChallenge;
+import com.azkar.payload.challengecontroller.requests.GetChallengesRequest;
+import java.util.List;
+
+public interface ArchivedChallengeRepoCustom {
+
+  /**
+   * Inserts the given archived challenges in a single bulk operation. Challenges that were already
+   * archived, e.g. by an interrupted run of the archive job, are skipped.
+   */
+  void insertIgnoringArchived(List<ArchivedChallenge> archivedChallenges);
+
+  /**
+   * Returns a page of the archived challenges of the given user filtered by the given request, with
+   * the most recently added challenges first. {@code cursorId} is the ID of the archived challenge
+   * of the {@link GetChallengesRequest#getCursor()} challenge if any.
+   */
+  List<ArchivedChallenge> findUserArchivedChallenges(String userId, GetChallengesRequest request,
+      String cursorId);
+}
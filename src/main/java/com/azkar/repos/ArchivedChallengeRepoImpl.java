@@ -0,0 +1,44 @@
+package com.azkar.repos;
+
+import com.azkar.entities.ArchivedChallenge;
+import com.azkar.payload.challengecontroller.requests.GetChallengesRequest;
+import com.mongodb.BulkWriteError;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+public class ArchivedChallengeRepoImpl implements ArchivedChallengeRepoCustom {
+
+  private static final int DUPLICATE_KEY_ERROR_CODE = 11000;
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  @Override
+  public void insertIgnoringArchived(List<ArchivedChallenge> archivedChallenges) {
+    if (archivedChallenges.isEmpty()) {
+      return;
+    }
+    try {
+      mongoTemplate.bulkOps(BulkMode.UNORDERED, ArchivedChallenge.class)
+          .insert(archivedChallenges)
+          .execute();
+    } catch (BulkOperationException e) {
+      // The unordered bulk insert still inserts all of the challenges that were not archived.
+      for (BulkWriteError error : e.getErrors()) {
+        if (error.getCode() != DUPLICATE_KEY_ERROR_CODE) {
+          throw e;
+        }
+      }
+    }
+  }
+
+  @Override
+  public List<ArchivedChallenge> findUserArchivedChallenges(String userId,
+      GetChallengesRequest request, String cursorId) {
+    return UserChallengeProgressRepoImpl.findUserChallengesPage(mongoTemplate, userId, request,
+        cursorId, ArchivedChallenge.class);
+  }
+}
@@ -5,6 +5,6 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface ChallengeRepo extends MongoRepository<Challenge, String> {
+public interface ChallengeRepo extends MongoRepository<Challenge, String>, ChallengeRepoCustom {
 
 }
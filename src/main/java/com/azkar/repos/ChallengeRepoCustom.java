@@ -0,0 +1,13 @@
+package com.azkar.repos;
+
+/**
+ * Targeted updates on the {@link com.azkar.entities.Challenge} documents that should not require
+ * loading and re-writing the whole document.
+ */
+public interface ChallengeRepoCustom {
+
+  /**
+   * Atomically adds {@code finishedUserId} to the users finished list of the challenge.
+   */
+  void addToUsersFinished(String challengeId, String finishedUserId);
+}
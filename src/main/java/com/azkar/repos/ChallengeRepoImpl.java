@@ -0,0 +1,21 @@
+package com.azkar.repos;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import com.azkar.entities.Challenge;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+
+public class ChallengeRepoImpl implements ChallengeRepoCustom {
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  @Override
+  public void addToUsersFinished(String challengeId, String finishedUserId) {
+    mongoTemplate.updateFirst(query(where("id").is(challengeId)),
+        new Update().addToSet("usersFinished", finishedUserId), Challenge.class);
+  }
+}
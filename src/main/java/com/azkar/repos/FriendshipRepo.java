@@ -5,7 +5,8 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface FriendshipRepo extends MongoRepository<Friendship, String> {
+public interface FriendshipRepo extends MongoRepository<Friendship, String>,
+    FriendshipRepoCustom {
 
   Friendship findByUserId(String userId);
 
@@ -0,0 +1,32 @@
+package com.azkar.repos;
+
+import com.azkar.entities.Friendship;
+import com.azkar.entities.Friendship.Friend;
+import java.util.Optional;
+import org.springframework.data.util.CloseableIterator;
+
+public interface FriendshipRepoCustom {
+
+  /**
+   * Returns the friendship of the given user with only its id and version stamp populated.
+   */
+  Optional<Friendship> findVersionByUserId(String userId);
+
+  /**
+   * Returns a cursor over the friends in the friendship of the given user, fetching {@code
+   * batchSize} friends at a time rather than the whole friendship. The cursor has to be closed.
+   */
+  CloseableIterator<Friend> streamFriendsByUserId(String userId, int batchSize);
+
+  /**
+   * Appends {@code friend} to the friends of the given user in a single update, unless the user
+   * already has a friend with the same user ID. Returns whether the friend was added.
+   */
+  boolean addFriend(String userId, Friend friend);
+
+  /**
+   * Removes the friend with the ID {@code friendUserId} from the friends of the given user in a
+   * single update.
+   */
+  void removeFriend(String userId, String friendUserId);
+}
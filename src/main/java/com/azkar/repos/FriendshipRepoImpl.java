@@ -0,0 +1,59 @@
+package com.azkar.repos;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.replaceRoot;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.unwind;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import com.azkar.entities.Friendship;
+import com.azkar.entities.Friendship.Friend;
+import com.azkar.entities.VersionStamped;
+import java.util.Optional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+
+public class FriendshipRepoImpl implements FriendshipRepoCustom {
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  @Override
+  public Optional<Friendship> findVersionByUserId(String userId) {
+    Query query = query(where("userId").is(userId));
+    query.fields().include(VersionStamped.VERSION_FIELD);
+    return Optional.ofNullable(mongoTemplate.findOne(query, Friendship.class));
+  }
+
+  @Override
+  public CloseableIterator<Friend> streamFriendsByUserId(String userId, int batchSize) {
+    // Every friend is unwound into its own result so that the cursor batches are bounded.
+    TypedAggregation<Friendship> aggregation = newAggregation(Friendship.class,
+        match(where("userId").is(userId)),
+        unwind("friends"),
+        replaceRoot("friends"))
+        .withOptions(AggregationOptions.builder().cursorBatchSize(batchSize).build());
+    return mongoTemplate.aggregateStream(aggregation, Friend.class);
+  }
+
+  @Override
+  public boolean addFriend(String userId, Friend friend) {
+    Query query = query(where("userId").is(userId).and("friends.userId").ne(friend.getUserId()));
+    Update update = new Update().push("friends", friend).inc(VersionStamped.VERSION_FIELD, 1);
+    return mongoTemplate.updateFirst(query, update, Friendship.class).getModifiedCount() > 0;
+  }
+
+  @Override
+  public void removeFriend(String userId, String friendUserId) {
+    Query query = query(where("userId").is(userId));
+    Update update = new Update().pull("friends", query(where("userId").is(friendUserId)))
+        .inc(VersionStamped.VERSION_FIELD, 1);
+    mongoTemplate.updateFirst(query, update, Friendship.class);
+  }
+}
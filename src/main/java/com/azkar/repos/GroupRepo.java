@@ -1,10 +1,20 @@
 package com.azkar.repos;
 
 import com.azkar.entities.Group;
+import java.util.List;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface GroupRepo extends MongoRepository<Group, String> {
+public interface GroupRepo extends MongoRepository<Group, String>, GroupRepoCustom {
 
+  // Uses the multikey index on usersIds.
+  @Query(value = "{'usersIds': ?0}", sort = "{'_id': 1}")
+  List<Group> findAllContainingUser(String userId);
+
+  // Returns the same groups as findAllContainingUser with only their ids and version stamps
+  // populated.
+  @Query(value = "{'usersIds': ?0}", sort = "{'_id': 1}", fields = "{'version': 1}")
+  List<Group> findVersionsContainingUser(String userId);
 }
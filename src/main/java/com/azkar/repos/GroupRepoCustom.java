@@ -0,0 +1,23 @@
+package com.azkar.repos;
+
+import com.azkar.entities.Group;
+import java.util.Collection;
+import org.springframework.data.util.CloseableIterator;
+
+/**
+ * Targeted updates on the {@link com.azkar.entities.Group} documents that should not require
+ * loading and re-writing the whole document.
+ */
+public interface GroupRepoCustom {
+
+  /**
+   * Removes the given challenges from the challenges of the given groups in a single update.
+   */
+  void removeChallenges(Collection<String> groupsIds, Collection<String> challengesIds);
+
+  /**
+   * Returns a cursor over the same groups as {@link GroupRepo#findAllContainingUser(String)},
+   * fetching {@code batchSize} documents at a time. The cursor has to be closed.
+   */
+  CloseableIterator<Group> streamAllContainingUser(String userId, int batchSize);
+}
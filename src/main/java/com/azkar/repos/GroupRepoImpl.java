@@ -0,0 +1,34 @@
+package com.azkar.repos;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import com.azkar.entities.Group;
+import com.azkar.entities.VersionStamped;
+import java.util.Collection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+
+public class GroupRepoImpl implements GroupRepoCustom {
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  @Override
+  public void removeChallenges(Collection<String> groupsIds, Collection<String> challengesIds) {
+    Update update = new Update().pullAll("challengesIds", challengesIds.toArray())
+        .inc(VersionStamped.VERSION_FIELD, 1);
+    mongoTemplate.updateMulti(query(where("id").in(groupsIds)), update, Group.class);
+  }
+
+  @Override
+  public CloseableIterator<Group> streamAllContainingUser(String userId, int batchSize) {
+    Query query = query(where("usersIds").is(userId)).with(Sort.by("id"))
+        .cursorBatchSize(batchSize);
+    return mongoTemplate.stream(query, Group.class);
+  }
+}
@@ -0,0 +1,24 @@
+package com.azkar.repos;
+
+import com.azkar.entities.PairScore;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PairScoreRepo extends MongoRepository<PairScore, String>, PairScoreRepoCustom {
+
+  // Uses pair_index for the pairs where the user is userA and user_b_index for the others.
+  @Query("{'$or': [{'userA': ?0}, {'userB': ?0}]}")
+  List<PairScore> findAllByUser(String userId);
+
+  Optional<PairScore> findByUserAAndUserB(String userA, String userB);
+
+  default Optional<PairScore> findByUsers(String userId, String otherUserId) {
+    return PairScore.isUserA(userId, otherUserId)
+        ? findByUserAAndUserB(userId, otherUserId)
+        : findByUserAAndUserB(otherUserId, userId);
+  }
+}
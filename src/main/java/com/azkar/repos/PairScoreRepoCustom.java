@@ -0,0 +1,24 @@
+package com.azkar.repos;
+
+import com.azkar.entities.ScorePeriod;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Targeted updates on the {@link com.azkar.entities.PairScore} documents.
+ */
+public interface PairScoreRepoCustom {
+
+  /**
+   * Atomically adds {@code score} to the scores of {@code userId} in all of the periods in its pair
+   * with each of {@code otherUsersIds}, creating the missing pairs.
+   */
+  void incrementScore(String userId, Collection<String> otherUsersIds, int score);
+
+  /**
+   * Same as {@link #incrementScore(String, Collection, int)} but with a different score for every
+   * period. Periods that are missing from {@code scores} are not updated.
+   */
+  void incrementScores(String userId, Collection<String> otherUsersIds,
+      Map<ScorePeriod, Integer> scores);
+}
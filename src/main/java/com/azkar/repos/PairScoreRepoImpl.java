@@ -0,0 +1,66 @@
+package com.azkar.repos;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import com.azkar.entities.PairScore;
+import com.azkar.entities.ScorePeriod;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+
+public class PairScoreRepoImpl implements PairScoreRepoCustom {
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  @Override
+  public void incrementScore(String userId, Collection<String> otherUsersIds, int score) {
+    Map<ScorePeriod, Integer> scores = new EnumMap<>(ScorePeriod.class);
+    Arrays.stream(ScorePeriod.values()).forEach(period -> scores.put(period, score));
+    incrementScores(userId, otherUsersIds, scores);
+  }
+
+  @Override
+  public void incrementScores(String userId, Collection<String> otherUsersIds,
+      Map<ScorePeriod, Integer> scores) {
+    if (otherUsersIds.isEmpty() || scores.values().stream().allMatch(score -> score == 0)) {
+      return;
+    }
+    // The bulk is ordered so that the stale buckets of every pair are overwritten before they are
+    // incremented.
+    BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkMode.ORDERED, PairScore.class);
+    for (String otherUserId : otherUsersIds) {
+      boolean isUserA = PairScore.isUserA(userId, otherUserId);
+      String userA = isUserA ? userId : otherUserId;
+      String userB = isUserA ? otherUserId : userId;
+      Update update = new Update();
+      for (Entry<ScorePeriod, Integer> score : scores.entrySet()) {
+        update.inc(score.getKey().getPairScoreField(isUserA), score.getValue());
+      }
+      for (ScorePeriod period : ScorePeriod.values()) {
+        if (!period.isBucketed()) {
+          continue;
+        }
+        long currentStart = period.getCurrentStart();
+        bulkOperations.updateOne(
+            query(where("userA").is(userA).and("userB").is(userB)
+                .and(period.getStartField()).not().gte(currentStart)),
+            new Update()
+                .set(period.getPairScoreField(/*isUserA=*/true), 0)
+                .set(period.getPairScoreField(/*isUserA=*/false), 0)
+                .set(period.getStartField(), currentStart));
+        update.setOnInsert(period.getStartField(), currentStart);
+      }
+      bulkOperations.upsert(query(where("userA").is(userA).and("userB").is(userB)), update);
+    }
+    bulkOperations.execute();
+  }
+}
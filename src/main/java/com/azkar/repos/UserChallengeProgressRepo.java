@@ -0,0 +1,19 @@
+package com.azkar.repos;
+
+import com.azkar.entities.UserChallengeProgress;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UserChallengeProgressRepo extends MongoRepository<UserChallengeProgress, String>,
+    UserChallengeProgressRepoCustom {
+
+  Optional<UserChallengeProgress> findByUserIdAndChallengeId(String userId, String challengeId);
+
+  boolean existsByUserIdAndChallengeId(String userId, String challengeId);
+
+  // Sorting by the ID results in the most recently added challenges first.
+  List<UserChallengeProgress> findAllByUserIdOrderByIdDesc(String userId);
+}
@@ -0,0 +1,83 @@
+package com.azkar.repos;
+
+import com.azkar.entities.Challenge;
+import com.azkar.entities.Challenge.SubChallenge;
+import com.azkar.entities.UserChallengeProgress;
+import com.azkar.payload.challengecontroller.requests.GetChallengesRequest;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.util.CloseableIterator;
+
+/**
+ * Targeted updates on the {@link com.azkar.entities.UserChallengeProgress} documents that should
+ * not require loading and re-writing the whole document.
+ */
+public interface UserChallengeProgressRepoCustom {
+
+  /**
+   * Atomically sets the left repetitions of the given sub-challenges in the user copy of the
+   * challenge. The left repetitions of a sub-challenge is never incremented by this update, even if
+   * another request decremented it concurrently.
+   */
+  void updateRepetitions(String userId, String challengeId, List<SubChallenge> subChallenges);
+
+  /**
+   * Creates the copies of the group challenge for the given users in a single bulk write. A user
+   * that already has a copy of the challenge keeps it as is, so retrying the write is safe.
+   */
+  void upsertUserCopies(Collection<String> usersIds, Challenge challenge);
+
+  /**
+   * Inserts the given user copies in a single bulk operation. Copies that already exist, e.g. since
+   * they were inserted by an interrupted run of a migration, are skipped.
+   */
+  void insertIgnoringExisting(List<UserChallengeProgress> userChallengeProgresses);
+
+  /**
+   * Adds {@code finishedUserId} to the users finished list of the user copy of the challenge.
+   * Returns true only if the user was not in the list before, which makes it safe to be used to
+   * detect that the challenge has just been finished even with concurrent requests.
+   */
+  boolean addToUsersFinished(String userId, String challengeId, String finishedUserId);
+
+  /**
+   * Adds {@code finishedUserId} to the users finished lists of all of the user copies of the
+   * challenge in a single update.
+   */
+  void addToAllUsersFinished(String challengeId, String finishedUserId);
+
+  /**
+   * Returns a page of the user copies of the challenges of the given user filtered by the given
+   * request, with the most recently added challenges first. {@code cursorId} is the ID of the
+   * progress document of the {@link GetChallengesRequest#getCursor()} challenge if any.
+   */
+  List<UserChallengeProgress> findUserChallenges(String userId, GetChallengesRequest request,
+      String cursorId);
+
+  /**
+   * Returns the same page as {@link #findUserChallenges(String, GetChallengesRequest, String)}
+   * with only the ids and version stamps of the progress documents populated.
+   */
+  List<UserChallengeProgress> findUserChallengesVersions(String userId,
+      GetChallengesRequest request, String cursorId);
+
+  /**
+   * Returns a cursor over the same page as {@link #findUserChallenges(String,
+   * GetChallengesRequest, String)}, fetching {@code batchSize} documents at a time. The cursor has
+   * to be closed. Reversed pages have to be loaded instead, see {@link
+   * UserChallengeProgressRepoImpl#isReversedPage(GetChallengesRequest)}.
+   */
+  CloseableIterator<UserChallengeProgress> streamUserChallenges(String userId,
+      GetChallengesRequest request, String cursorId, int batchSize);
+
+  /**
+   * Returns a cursor over all of the user copies of the challenges that expired before {@code
+   * expiryDate}, fetching {@code batchSize} documents at a time. The cursor has to be closed.
+   */
+  CloseableIterator<UserChallengeProgress> streamExpiredBefore(long expiryDate, int batchSize);
+
+  /**
+   * Deletes the given progress documents in a single operation.
+   */
+  void deleteAllByIds(Collection<String> ids);
+}
@@ -0,0 +1,250 @@
+package com.azkar.repos;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import com.azkar.entities.Challenge;
+import com.azkar.entities.Challenge.SubChallenge;
+import com.azkar.entities.UserChallengeProgress;
+import com.azkar.entities.VersionStamped;
+import com.azkar.payload.challengecontroller.requests.GetChallengesRequest;
+import com.azkar.payload.challengecontroller.requests.GetChallengesRequest.Filter;
+import com.mongodb.BulkWriteError;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+
+public class UserChallengeProgressRepoImpl implements UserChallengeProgressRepoCustom {
+
+  private static final String SUB_CHALLENGE_IDENTIFIER_PREFIX = "sub";
+  private static final int DUPLICATE_KEY_ERROR_CODE = 11000;
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  /**
+   * Adds the criteria of the filters of the given request to the given criteria, assuming that the
+   * challenge is in the {@code challenge} field.
+   */
+  static Criteria addFiltersCriteria(Criteria criteria, String userId,
+      GetChallengesRequest request) {
+    long now = Instant.now().getEpochSecond();
+    for (Filter filter : request.getFilters()) {
+      switch (filter) {
+        case ACTIVE:
+          criteria.and("challenge.expiryDate").gte(now);
+          break;
+        case EXPIRED:
+          criteria.and("challenge.expiryDate").lt(now);
+          break;
+        case FINISHED:
+          criteria.and("challenge.usersFinished").is(userId);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown challenges filter: " + filter);
+      }
+    }
+    return criteria;
+  }
+
+  /**
+   * Returns a page of the user copies of the challenges of the given user stored in {@code
+   * entityClass}, with the most recently added challenges first. The documents are expected to
+   * have the {@code userId}, {@code groupId} and {@code challenge} fields and to be created when
+   * the challenges are added.
+   */
+  static <T> List<T> findUserChallengesPage(MongoTemplate mongoTemplate, String userId,
+      GetChallengesRequest request, String cursorId, Class<T> entityClass) {
+    List<T> userChallenges =
+        mongoTemplate.find(userChallengesPageQuery(userId, request, cursorId), entityClass);
+    if (request.getAfter() != null) {
+      Collections.reverse(userChallenges);
+    }
+    return userChallenges;
+  }
+
+  /**
+   * Returns the query of a page of the user challenges, see {@link #findUserChallengesPage}. The
+   * challenges after the cursor are sorted in the ascending order, so their page has to be
+   * reversed.
+   */
+  public static Query userChallengesPageQuery(String userId, GetChallengesRequest request,
+      String cursorId) {
+    return userChallengesPageQuery(userId, request, cursorId,
+        /* ascending= */ request.getAfter() != null);
+  }
+
+  /**
+   * Returns whether the page requested by {@code request} is loaded in the opposite order to the
+   * one it is returned in, in which case it can not be read through a cursor, see {@link
+   * #streamUserChallenges}.
+   */
+  public static boolean isReversedPage(GetChallengesRequest request) {
+    return request.getAfter() != null && request.getLimit() != null;
+  }
+
+  // Sorting the page in the ascending order is only needed to limit the challenges after the
+  // cursor to the ones closest to it, in which case the page has to be reversed to be returned.
+  private static Query userChallengesPageQuery(String userId, GetChallengesRequest request,
+      String cursorId, boolean ascending) {
+    Criteria criteria = where("userId").is(userId);
+    if (request.getGroupId() != null) {
+      criteria.and("groupId").is(request.getGroupId());
+    }
+    addFiltersCriteria(criteria, userId, request);
+
+    // The documents are created when the challenges are added, so sorting by their IDs sorts the
+    // challenges by the time they were added.
+    boolean isAfter = request.getAfter() != null;
+    if (cursorId != null) {
+      if (isAfter) {
+        criteria.and("id").gt(cursorId);
+      } else {
+        criteria.and("id").lt(cursorId);
+      }
+    }
+    Query query = query(criteria).with(Sort.by(ascending ? Direction.ASC : Direction.DESC, "id"));
+    if (request.getLimit() != null) {
+      query.limit(request.getLimit());
+    }
+    return query;
+  }
+
+  private static Query userChallengeQuery(String userId, String challengeId) {
+    return query(where("userId").is(userId).and("challengeId").is(challengeId));
+  }
+
+  @Override
+  public void updateRepetitions(String userId, String challengeId,
+      List<SubChallenge> subChallenges) {
+    Update update = new Update().inc(VersionStamped.VERSION_FIELD, 1);
+    for (int i = 0; i < subChallenges.size(); i++) {
+      String subChallengeIdentifier = SUB_CHALLENGE_IDENTIFIER_PREFIX + i;
+      // $min makes sure that the left repetitions can only go down.
+      update.min(
+          String.format("challenge.subChallenges.$[%s].repetitions", subChallengeIdentifier),
+          subChallenges.get(i).getRepetitions());
+      update.filterArray(where(subChallengeIdentifier + ".zekr._id")
+          .is(subChallenges.get(i).getZekr().getId()));
+    }
+    mongoTemplate.updateFirst(userChallengeQuery(userId, challengeId), update,
+        UserChallengeProgress.class);
+  }
+
+  @Override
+  public void upsertUserCopies(Collection<String> usersIds, Challenge challenge) {
+    if (usersIds.isEmpty()) {
+      return;
+    }
+    // Upserts on the unique user_challenge_index key, which fills userId and challengeId.
+    long now = System.currentTimeMillis();
+    BulkOperations bulkOperations =
+        mongoTemplate.bulkOps(BulkMode.UNORDERED, UserChallengeProgress.class);
+    for (String userId : usersIds) {
+      bulkOperations.upsert(userChallengeQuery(userId, challenge.getId()), new Update()
+          .setOnInsert("groupId", challenge.getGroupId())
+          .setOnInsert("challenge", challenge)
+          .setOnInsert("createdAt", now)
+          .setOnInsert("modifiedAt", now)
+          .setOnInsert(VersionStamped.VERSION_FIELD, 1L));
+    }
+    bulkOperations.execute();
+  }
+
+  @Override
+  public void insertIgnoringExisting(List<UserChallengeProgress> userChallengeProgresses) {
+    if (userChallengeProgresses.isEmpty()) {
+      return;
+    }
+    try {
+      mongoTemplate.bulkOps(BulkMode.UNORDERED, UserChallengeProgress.class)
+          .insert(userChallengeProgresses)
+          .execute();
+    } catch (BulkOperationException e) {
+      // The unordered bulk insert still inserts all of the copies that did not exist.
+      for (BulkWriteError error : e.getErrors()) {
+        if (error.getCode() != DUPLICATE_KEY_ERROR_CODE) {
+          throw e;
+        }
+      }
+    }
+  }
+
+  @Override
+  public boolean addToUsersFinished(String userId, String challengeId, String finishedUserId) {
+    Query query =
+        userChallengeQuery(userId, challengeId).addCriteria(
+            where("challenge.usersFinished").ne(finishedUserId));
+    Update update = new Update().addToSet("challenge.usersFinished", finishedUserId)
+        .inc(VersionStamped.VERSION_FIELD, 1);
+    return mongoTemplate.updateFirst(query, update, UserChallengeProgress.class)
+        .getModifiedCount() > 0;
+  }
+
+  @Override
+  public void addToAllUsersFinished(String challengeId, String finishedUserId) {
+    Update update = new Update().addToSet("challenge.usersFinished", finishedUserId)
+        .inc(VersionStamped.VERSION_FIELD, 1);
+    // The copies that already have the user are not updated so that their version is unchanged.
+    Query query = query(where("challengeId").is(challengeId)
+        .and("challenge.usersFinished").ne(finishedUserId));
+    mongoTemplate.updateMulti(query, update,
+        UserChallengeProgress.class);
+  }
+
+  @Override
+  public List<UserChallengeProgress> findUserChallenges(String userId,
+      GetChallengesRequest request, String cursorId) {
+    return findUserChallengesPage(mongoTemplate, userId, request, cursorId,
+        UserChallengeProgress.class);
+  }
+
+  @Override
+  public List<UserChallengeProgress> findUserChallengesVersions(String userId,
+      GetChallengesRequest request, String cursorId) {
+    Query query = userChallengesPageQuery(userId, request, cursorId);
+    query.fields().include(VersionStamped.VERSION_FIELD);
+    // The versions are in the same order as the page, so that the page stamps do not depend on
+    // which of the two was loaded.
+    List<UserChallengeProgress> versions = mongoTemplate.find(query, UserChallengeProgress.class);
+    if (request.getAfter() != null) {
+      Collections.reverse(versions);
+    }
+    return versions;
+  }
+
+  @Override
+  public CloseableIterator<UserChallengeProgress> streamUserChallenges(String userId,
+      GetChallengesRequest request, String cursorId, int batchSize) {
+    if (isReversedPage(request)) {
+      throw new IllegalArgumentException("Reversed pages can not be streamed.");
+    }
+    Query query = userChallengesPageQuery(userId, request, cursorId, /* ascending= */ false)
+        .cursorBatchSize(batchSize);
+    return mongoTemplate.stream(query, UserChallengeProgress.class);
+  }
+
+  @Override
+  public CloseableIterator<UserChallengeProgress> streamExpiredBefore(long expiryDate,
+      int batchSize) {
+    Query query = query(where("challenge.expiryDate").lt(expiryDate)).cursorBatchSize(batchSize);
+    return mongoTemplate.stream(query, UserChallengeProgress.class);
+  }
+
+  @Override
+  public void deleteAllByIds(Collection<String> ids) {
+    mongoTemplate.remove(query(where("id").in(ids)), UserChallengeProgress.class);
+  }
+}
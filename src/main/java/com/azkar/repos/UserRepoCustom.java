@@ -0,0 +1,86 @@
+package com.azkar.repos;
+
+import com.azkar.entities.Challenge;
+import com.azkar.entities.ScorePeriod;
+import com.azkar.entities.User;
+import com.azkar.entities.User.UserGroup;
+import com.azkar.payload.challengecontroller.requests.GetChallengesRequest;
+import com.azkar.payload.utils.UserScore;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.util.CloseableIterator;
+
+/**
+ * Targeted updates on the {@link com.azkar.entities.User} documents that should not require
+ * loading and re-writing the whole document.
+ */
+public interface UserRepoCustom {
+
+  /**
+   * Atomically increments the scores of the user in the given group in all of the score periods.
+   * Returns false if the user is not a member of the group.
+   */
+  boolean incrementUserGroupScore(String userId, String groupId);
+
+  /**
+   * Appends the given group to the groups of all of the given users in a single update.
+   */
+  void addUserGroup(Collection<String> usersIds, UserGroup userGroup);
+
+  /**
+   * Removes the given group from the groups of the user.
+   */
+  void removeUserGroup(String userId, String groupId);
+
+  /**
+   * Returns the user with only their id and version stamp populated.
+   */
+  Optional<User> findVersionById(String userId);
+
+  /**
+   * Returns the user with only their id and username populated.
+   */
+  Optional<User> findUsernameById(String userId);
+
+  /**
+   * Returns the given users with only their ids and notifications tokens populated.
+   */
+  List<User> findNotificationsTokens(Collection<String> usersIds);
+
+  /**
+   * Returns the index of the given challenge in the personal challenges of the user, or -1 if the
+   * user doesn't have it.
+   */
+  int findPersonalChallengeIndex(String userId, String challengeId);
+
+  /**
+   * Returns a page of the personal challenges of the user filtered by the given request, with the
+   * most recently added challenges first. {@code cursorIndex} is the index of the {@link
+   * GetChallengesRequest#getCursor()} challenge in the personal challenges if any.
+   */
+  List<Challenge> findPersonalChallenges(String userId, GetChallengesRequest request,
+      Integer cursorIndex);
+
+  /**
+   * Returns a cursor over the users having personal challenges that expired before {@code
+   * expiryDate}, with only their ids and personal challenges populated and fetching {@code
+   * batchSize} users at a time. The cursor has to be closed.
+   */
+  CloseableIterator<User> streamUsersWithPersonalChallengesExpiredBefore(long expiryDate,
+      int batchSize);
+
+  /**
+   * Removes the personal challenges that expired before {@code expiryDate} from the given users in
+   * a single update.
+   */
+  void removePersonalChallengesExpiredBefore(Collection<String> usersIds, long expiryDate);
+
+  /**
+   * Returns the scores in {@code period} of the members of the given group sorted by the highest
+   * score first, skipping the first {@code offset} members and returning at most {@code limit}
+   * members if given.
+   */
+  List<UserScore> findGroupLeaderboard(String groupId, ScorePeriod period, int offset,
+      Integer limit);
+}
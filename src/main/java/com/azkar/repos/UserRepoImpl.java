@@ -0,0 +1,246 @@
+package com.azkar.repos;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.limit;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.project;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.skip;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.sort;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.unwind;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import com.azkar.entities.Challenge;
+import com.azkar.entities.ScorePeriod;
+import com.azkar.entities.User;
+import com.azkar.entities.User.UserGroup;
+import com.azkar.entities.VersionStamped;
+import com.azkar.payload.challengecontroller.requests.GetChallengesRequest;
+import com.azkar.payload.utils.UserScore;
+import com.mongodb.client.model.UpdateOptions;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.ArrayOperators.IndexOfArray;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+
+public class UserRepoImpl implements UserRepoCustom {
+
+  private static final String PERSONAL_CHALLENGE_INDEX_FIELD = "index";
+  private static final String LEADERBOARD_SCORE_FIELD = "score";
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  // Aggregations are not mapped to the User entity, so IDs have to be converted the same way the
+  // mapping layer stores them.
+  private static Object toStoredId(String id) {
+    return ObjectId.isValid(id) ? new ObjectId(id) : id;
+  }
+
+  @Override
+  public boolean incrementUserGroupScore(String userId, String groupId) {
+    rollUserGroupScores(userId, groupId);
+    Query query = query(where("id").is(userId).and("userGroups.groupId").is(groupId));
+    Update update = new Update().inc(VersionStamped.VERSION_FIELD, 1);
+    for (ScorePeriod period : ScorePeriod.values()) {
+      update.inc("userGroups.$." + period.getUserGroupField(), 1);
+    }
+    return mongoTemplate.updateFirst(query, update, User.class).getMatchedCount() > 0;
+  }
+
+  // Overwrites the buckets of the user in the group that were counted in older periods with empty
+  // buckets of the current periods. The scores read the same before and after, so the version is
+  // not incremented.
+  private void rollUserGroupScores(String userId, String groupId) {
+    // Array filters are not mapped by the update mapper, so the update is sent to the collection
+    // as is.
+    Document set = new Document();
+    List<Document> arrayFilters = new ArrayList<>();
+    for (ScorePeriod period : ScorePeriod.values()) {
+      if (!period.isBucketed()) {
+        continue;
+      }
+      String identifier = period.getStartField();
+      long currentStart = period.getCurrentStart();
+      set.append("userGroups.$[" + identifier + "]." + period.getUserGroupField(), 0)
+          .append("userGroups.$[" + identifier + "]." + period.getStartField(), currentStart);
+      arrayFilters.add(new Document(identifier + ".groupId", groupId)
+          .append(identifier + "." + period.getStartField(),
+              new Document("$not", new Document("$gte", currentStart))));
+    }
+    mongoTemplate.getCollection(mongoTemplate.getCollectionName(User.class)).updateOne(
+        new Document("_id", toStoredId(userId)),
+        new Document("$set", set),
+        new UpdateOptions().arrayFilters(arrayFilters));
+  }
+
+  @Override
+  public void addUserGroup(Collection<String> usersIds, UserGroup userGroup) {
+    Query query = query(where("id").in(usersIds));
+    Update update = new Update().push("userGroups", userGroup)
+        .inc(VersionStamped.VERSION_FIELD, 1);
+    mongoTemplate.updateMulti(query, update, User.class);
+  }
+
+  @Override
+  public void removeUserGroup(String userId, String groupId) {
+    Query query = query(where("id").is(userId));
+    Update update = new Update().pull("userGroups", query(where("groupId").is(groupId)))
+        .inc(VersionStamped.VERSION_FIELD, 1);
+    mongoTemplate.updateFirst(query, update, User.class);
+  }
+
+  @Override
+  public Optional<User> findVersionById(String userId) {
+    Query query = query(where("id").is(userId));
+    query.fields().include(VersionStamped.VERSION_FIELD);
+    return Optional.ofNullable(mongoTemplate.findOne(query, User.class));
+  }
+
+  @Override
+  public Optional<User> findUsernameById(String userId) {
+    Query query = query(where("id").is(userId));
+    query.fields().include("username");
+    return Optional.ofNullable(mongoTemplate.findOne(query, User.class));
+  }
+
+  @Override
+  public List<User> findNotificationsTokens(Collection<String> usersIds) {
+    Query query = query(where("id").in(usersIds));
+    query.fields().include("notificationsToken");
+    return mongoTemplate.find(query, User.class);
+  }
+
+  @Override
+  public int findPersonalChallengeIndex(String userId, String challengeId) {
+    Document result = mongoTemplate.aggregate(
+        newAggregation(
+            match(where("_id").is(toStoredId(userId))),
+            project().and(IndexOfArray.arrayOf("personalChallenges._id")
+                .indexOf(toStoredId(challengeId))).as(PERSONAL_CHALLENGE_INDEX_FIELD)),
+        mongoTemplate.getCollectionName(User.class), Document.class)
+        .getUniqueMappedResult();
+    if (result == null || result.getInteger(PERSONAL_CHALLENGE_INDEX_FIELD) == null) {
+      return -1;
+    }
+    return result.getInteger(PERSONAL_CHALLENGE_INDEX_FIELD);
+  }
+
+  @Override
+  public List<Challenge> findPersonalChallenges(String userId, GetChallengesRequest request,
+      Integer cursorIndex) {
+    // Personal challenges are appended to the user document when they are added, so their index
+    // is the order by which they were added.
+    boolean isAfter = request.getAfter() != null;
+    Criteria criteria = UserChallengeProgressRepoImpl.addFiltersCriteria(new Criteria(), userId,
+        request);
+    if (cursorIndex != null) {
+      if (isAfter) {
+        criteria.and(PERSONAL_CHALLENGE_INDEX_FIELD).gt(cursorIndex);
+      } else {
+        criteria.and(PERSONAL_CHALLENGE_INDEX_FIELD).lt(cursorIndex);
+      }
+    }
+
+    List<AggregationOperation> operations = new ArrayList<>();
+    operations.add(match(where("_id").is(toStoredId(userId))));
+    operations.add(unwind("personalChallenges", PERSONAL_CHALLENGE_INDEX_FIELD));
+    operations.add(
+        project(PERSONAL_CHALLENGE_INDEX_FIELD).and("personalChallenges").as("challenge"));
+    operations.add(match(criteria));
+    operations.add(
+        sort(isAfter ? Direction.ASC : Direction.DESC, PERSONAL_CHALLENGE_INDEX_FIELD));
+    if (request.getLimit() != null) {
+      operations.add(limit(request.getLimit()));
+    }
+
+    List<Challenge> challenges = mongoTemplate.aggregate(newAggregation(operations),
+        mongoTemplate.getCollectionName(User.class), Document.class)
+        .getMappedResults()
+        .stream()
+        .map(result -> mongoTemplate.getConverter()
+            .read(Challenge.class, (Document) result.get("challenge")))
+        .collect(Collectors.toList());
+    if (isAfter) {
+      Collections.reverse(challenges);
+    }
+    return challenges;
+  }
+
+  @Override
+  public CloseableIterator<User> streamUsersWithPersonalChallengesExpiredBefore(long expiryDate,
+      int batchSize) {
+    Query query = query(where("personalChallenges.expiryDate").lt(expiryDate))
+        .cursorBatchSize(batchSize);
+    query.fields().include("personalChallenges");
+    return mongoTemplate.stream(query, User.class);
+  }
+
+  @Override
+  public void removePersonalChallengesExpiredBefore(Collection<String> usersIds,
+      long expiryDate) {
+    Query query = query(where("id").in(usersIds));
+    Update update = new Update().pull("personalChallenges",
+        query(where("expiryDate").lt(expiryDate)))
+        .inc(VersionStamped.VERSION_FIELD, 1);
+    mongoTemplate.updateMulti(query, update, User.class);
+  }
+
+  @Override
+  public List<UserScore> findGroupLeaderboard(String groupId, ScorePeriod period, int offset,
+      Integer limit) {
+    // The first match uses the index on userGroups.groupId to only load the group members, and
+    // the second one drops their other groups after unwinding.
+    List<AggregationOperation> operations = new ArrayList<>();
+    operations.add(match(where("userGroups.groupId").is(groupId)));
+    operations.add(unwind("userGroups"));
+    operations.add(match(where("userGroups.groupId").is(groupId)));
+    if (period.isBucketed()) {
+      // Scores counted in older periods are ranked as zeros.
+      operations.add(project("firstName", "lastName", "username")
+          .and(ConditionalOperators
+              .when(ComparisonOperators.valueOf("userGroups." + period.getStartField())
+                  .greaterThanEqualToValue(period.getCurrentStart()))
+              .thenValueOf("userGroups." + period.getUserGroupField())
+              .otherwise(0))
+          .as(LEADERBOARD_SCORE_FIELD));
+    } else {
+      operations.add(project("firstName", "lastName", "username")
+          .and("userGroups." + period.getUserGroupField()).as(LEADERBOARD_SCORE_FIELD));
+    }
+    operations.add(sort(Direction.DESC, LEADERBOARD_SCORE_FIELD).and(Direction.ASC, "_id"));
+    if (offset > 0) {
+      operations.add(skip((long) offset));
+    }
+    if (limit != null) {
+      operations.add(limit(limit));
+    }
+
+    return mongoTemplate.aggregate(newAggregation(operations),
+        mongoTemplate.getCollectionName(User.class), Document.class)
+        .getMappedResults()
+        .stream()
+        .map(result -> UserScore.builder()
+            .firstName(result.getString("firstName"))
+            .lastName(result.getString("lastName"))
+            .username(result.getString("username"))
+            .totalScore(result.getInteger(LEADERBOARD_SCORE_FIELD, 0))
+            .build())
+        .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,65 @@
+package com.azkar.services;
+
+import com.azkar.configs.AzkarCacher;
+import com.azkar.configs.CategoriesCacher;
+import com.azkar.payload.azkarcontroller.responses.GetAzkarResponse;
+import com.azkar.payload.azkarcontroller.responses.GetCategoriesResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.hash.Hashing;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+import lombok.Getter;
+import org.springframework.stereotype.Service;
+
+/**
+ * The responses of GET /azkar and GET /categories serialized once at startup, since the catalog
+ * never changes while the server is running. Every response is kept both as is and gzipped, each
+ * with a strong ETag of its bytes.
+ */
+@Service
+@Getter
+public class CatalogResponses {
+
+  private final SerializedResponse azkar;
+  private final SerializedResponse categories;
+
+  public CatalogResponses(AzkarCacher azkarCacher, CategoriesCacher categoriesCacher,
+      ObjectMapper objectMapper) throws IOException {
+    GetAzkarResponse azkarResponse = new GetAzkarResponse();
+    azkarResponse.setData(azkarCacher.getAzkar());
+    azkar = new SerializedResponse(objectMapper.writeValueAsBytes(azkarResponse));
+
+    GetCategoriesResponse categoriesResponse = new GetCategoriesResponse();
+    categoriesResponse.setData(categoriesCacher.getCategories());
+    categories = new SerializedResponse(objectMapper.writeValueAsBytes(categoriesResponse));
+  }
+
+  @Getter
+  public static class SerializedResponse {
+
+    private final byte[] body;
+    private final String eTag;
+    private final byte[] gzippedBody;
+    private final String gzippedETag;
+
+    SerializedResponse(byte[] body) throws IOException {
+      this.body = body;
+      this.eTag = toETag(body);
+      this.gzippedBody = gzip(body);
+      this.gzippedETag = toETag(gzippedBody);
+    }
+
+    private static String toETag(byte[] bytes) {
+      return "\"" + Hashing.sha256().hashBytes(bytes) + "\"";
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+      ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+      try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(gzipped)) {
+        gzipOutputStream.write(bytes);
+      }
+      return gzipped.toByteArray();
+    }
+  }
+}
@@ -0,0 +1,153 @@
+package com.azkar.services;
+
+import com.azkar.entities.ArchivedChallenge;
+import com.azkar.entities.Challenge;
+import com.azkar.entities.User;
+import com.azkar.entities.UserChallengeProgress;
+import com.azkar.repos.ArchivedChallengeRepo;
+import com.azkar.repos.GroupRepo;
+import com.azkar.repos.UserChallengeProgressRepo;
+import com.azkar.repos.UserRepo;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves the user copies of the expired challenges out of the user_challenge_progress collection and
+ * the user documents into the archived_challenges collection, and removes the expired challenges
+ * from their groups. Documents are walked with a cursor and moved in batches, pausing between
+ * batches so that the job doesn't compete with the requests for the database.
+ *
+ * <p>Challenges are only archived after a grace period so that recently expired challenges can
+ * still be listed with the other challenges of the user.
+ */
+@Component
+public class ChallengesArchiveJob {
+
+  private static final Logger logger = LoggerFactory.getLogger(ChallengesArchiveJob.class);
+
+  @Value("${app.challenges-archive.enabled:true}")
+  private boolean enabled;
+
+  @Value("${app.challenges-archive.grace-period-seconds:604800}")
+  private long gracePeriodSeconds;
+
+  @Value("${app.challenges-archive.batch-size:500}")
+  private int batchSize;
+
+  @Value("${app.challenges-archive.batch-pause-millis:100}")
+  private long batchPauseMillis;
+
+  @Autowired
+  private UserRepo userRepo;
+
+  @Autowired
+  private GroupRepo groupRepo;
+
+  @Autowired
+  private UserChallengeProgressRepo userChallengeProgressRepo;
+
+  @Autowired
+  private ArchivedChallengeRepo archivedChallengeRepo;
+
+  @Scheduled(fixedDelayString = "${app.challenges-archive.fixed-delay-millis:3600000}",
+      initialDelayString = "${app.challenges-archive.initial-delay-millis:60000}")
+  public void archiveExpiredChallenges() {
+    if (!enabled) {
+      return;
+    }
+    try {
+      archiveChallengesExpiredBefore(Instant.now().getEpochSecond() - gracePeriodSeconds);
+    } catch (InterruptedException e) {
+      logger.warn("Archiving the expired challenges was interrupted.");
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Archives all of the challenges that expired before {@code expiryDate}. It is safe to run again
+   * after being interrupted.
+   */
+  public void archiveChallengesExpiredBefore(long expiryDate) throws InterruptedException {
+    long archivedAt = Instant.now().getEpochSecond();
+    int groupChallengesCount = archiveGroupChallenges(expiryDate, archivedAt);
+    int personalChallengesCount = archivePersonalChallenges(expiryDate, archivedAt);
+    logger.info(String.format("Archived %d group challenges copies and %d personal challenges.",
+        groupChallengesCount, personalChallengesCount));
+  }
+
+  private int archiveGroupChallenges(long expiryDate, long archivedAt)
+      throws InterruptedException {
+    int archivedCount = 0;
+    List<UserChallengeProgress> batch = new ArrayList<>(batchSize);
+    try (CloseableIterator<UserChallengeProgress> expiredProgresses =
+        userChallengeProgressRepo.streamExpiredBefore(expiryDate, batchSize)) {
+      while (expiredProgresses.hasNext()) {
+        batch.add(expiredProgresses.next());
+        if (batch.size() == batchSize || !expiredProgresses.hasNext()) {
+          archiveGroupChallengesBatch(batch, archivedAt);
+          archivedCount += batch.size();
+          batch.clear();
+          Thread.sleep(batchPauseMillis);
+        }
+      }
+    }
+    return archivedCount;
+  }
+
+  private void archiveGroupChallengesBatch(List<UserChallengeProgress> batch, long archivedAt) {
+    List<ArchivedChallenge> archivedChallenges = new ArrayList<>(batch.size());
+    List<String> progressesIds = new ArrayList<>(batch.size());
+    Set<String> groupsIds = new HashSet<>();
+    Set<String> challengesIds = new HashSet<>();
+    for (UserChallengeProgress progress : batch) {
+      archivedChallenges.add(ArchivedChallenge.fromUserChallengeProgress(progress, archivedAt));
+      progressesIds.add(progress.getId());
+      groupsIds.add(progress.getGroupId());
+      challengesIds.add(progress.getChallengeId());
+    }
+    // The copies are only deleted after they are archived, so an interrupted batch is archived
+    // again by the next run.
+    archivedChallengeRepo.insertIgnoringArchived(archivedChallenges);
+    groupRepo.removeChallenges(groupsIds, challengesIds);
+    userChallengeProgressRepo.deleteAllByIds(progressesIds);
+  }
+
+  private int archivePersonalChallenges(long expiryDate, long archivedAt)
+      throws InterruptedException {
+    int archivedCount = 0;
+    List<ArchivedChallenge> archivedChallenges = new ArrayList<>();
+    List<String> usersIds = new ArrayList<>(batchSize);
+    try (CloseableIterator<User> users =
+        userRepo.streamUsersWithPersonalChallengesExpiredBefore(expiryDate, batchSize)) {
+      while (users.hasNext()) {
+        User user = users.next();
+        usersIds.add(user.getId());
+        for (Challenge challenge : user.getPersonalChallenges()) {
+          if (challenge.getExpiryDate() < expiryDate) {
+            archivedChallenges
+                .add(ArchivedChallenge.fromPersonalChallenge(user.getId(), challenge, archivedAt));
+          }
+        }
+        if (usersIds.size() == batchSize || !users.hasNext()) {
+          archivedChallengeRepo.insertIgnoringArchived(archivedChallenges);
+          userRepo.removePersonalChallengesExpiredBefore(usersIds, expiryDate);
+          archivedCount += archivedChallenges.size();
+          archivedChallenges.clear();
+          usersIds.clear();
+          Thread.sleep(batchPauseMillis);
+        }
+      }
+    }
+    return archivedCount;
+  }
+}
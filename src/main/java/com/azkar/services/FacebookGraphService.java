@@ -0,0 +1,132 @@
+package com.azkar.services;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import lombok.Data;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Loads the Facebook profiles of access tokens from the Graph API through a pool of kept-alive
+ * connections, with strict timeouts so that a slow Graph API can't hold the request threads.
+ *
+ * <p>The profiles of the tokens that were verified recently are cached for a short time, so that
+ * repeated logins with the same token don't call the Graph API again. A token revoked on Facebook
+ * may then still be accepted until its profile expires from the cache.
+ */
+@Service
+public class FacebookGraphService {
+
+  private static final Logger logger = LoggerFactory.getLogger(FacebookGraphService.class);
+  private static final String PROFILE_FIELDS = "id,first_name,last_name,email";
+
+  private String graphBaseUrl;
+  private final CloseableHttpClient httpClient;
+  private final RestTemplate restTemplate;
+  // Maps the digests of the recently verified tokens to their profiles.
+  private final Cache<String, BasicProfile> profilesCache;
+
+  public FacebookGraphService(RestTemplateBuilder restTemplateBuilder,
+      @Value("${app.facebook.graph-base-url:https://graph.facebook.com/v7.0}") String graphBaseUrl,
+      @Value("${app.facebook.connect-timeout-millis:1000}") long connectTimeoutMillis,
+      @Value("${app.facebook.read-timeout-millis:3000}") long readTimeoutMillis,
+      @Value("${app.facebook.max-connections:50}") int maxConnections,
+      @Value("${app.facebook.profiles-cache.max-size:10000}") long profilesCacheMaxSize,
+      @Value("${app.facebook.profiles-cache.ttl-seconds:60}") long profilesCacheTtlSeconds) {
+    this.graphBaseUrl = graphBaseUrl;
+
+    // All the requests go to the same host, so the pool has a single route.
+    PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+    connectionManager.setMaxTotal(maxConnections);
+    connectionManager.setDefaultMaxPerRoute(maxConnections);
+    httpClient = HttpClients.custom()
+        .setConnectionManager(connectionManager)
+        .setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE)
+        .evictExpiredConnections()
+        .evictIdleConnections(30, TimeUnit.SECONDS)
+        // Waiting for a free connection of the pool is bounded by the connect timeout too.
+        .setDefaultRequestConfig(RequestConfig.custom()
+            .setConnectionRequestTimeout((int) connectTimeoutMillis)
+            .build())
+        .build();
+    restTemplate = restTemplateBuilder
+        .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient))
+        .setConnectTimeout(Duration.ofMillis(connectTimeoutMillis))
+        .setReadTimeout(Duration.ofMillis(readTimeoutMillis))
+        .build();
+
+    profilesCache = CacheBuilder.newBuilder()
+        .maximumSize(profilesCacheMaxSize)
+        .expireAfterWrite(profilesCacheTtlSeconds, TimeUnit.SECONDS)
+        .build();
+  }
+
+  /**
+   * Returns the profile of the owner of the given access token, or null if the Graph API rejected
+   * the token, failed or didn't answer in time.
+   */
+  public BasicProfile getBasicProfile(String accessToken) {
+    String tokenDigest =
+        Hashing.sha256().hashString(accessToken, StandardCharsets.UTF_8).toString();
+    BasicProfile cachedProfile = profilesCache.getIfPresent(tokenDigest);
+    if (cachedProfile != null) {
+      return cachedProfile;
+    }
+
+    URI profileUri = UriComponentsBuilder.fromHttpUrl(graphBaseUrl)
+        .path("/me")
+        .queryParam("fields", PROFILE_FIELDS)
+        .queryParam("access_token", accessToken)
+        .build()
+        .encode()
+        .toUri();
+    BasicProfile profile;
+    try {
+      profile = restTemplate.getForObject(profileUri, BasicProfile.class);
+    } catch (RestClientException e) {
+      // The message may contain the URL, which contains the token.
+      logger.warn("Failed to load a Facebook profile: {}", e.getClass().getSimpleName());
+      return null;
+    }
+    if (profile == null || profile.getId() == null) {
+      return null;
+    }
+    profilesCache.put(tokenDigest, profile);
+    return profile;
+  }
+
+  @PreDestroy
+  public void close() throws Exception {
+    httpClient.close();
+  }
+
+  @Data
+  public static class BasicProfile {
+
+    String id;
+    @JsonProperty("first_name")
+    String firstName;
+    @JsonProperty("last_name")
+    String lastName;
+    String email;
+  }
+}
@@ -3,12 +3,21 @@ package com.azkar.services;
 import com.auth0.jwt.JWT;
 import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.exceptions.TokenExpiredException;
 import com.auth0.jwt.interfaces.DecodedJWT;
 import com.azkar.entities.User;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
 import javax.servlet.http.HttpServletRequest;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Service;
@@ -22,11 +31,30 @@ public class JwtService {
   @Value("${app.jwtSecret}")
   String jwtSecret;
 
+  @Value("${app.verified-tokens-cache.max-size:10000}")
+  long verifiedTokensCacheMaxSize;
+
+  // Both the algorithm and the verifier are immutable and thread-safe.
+  private Algorithm algorithm;
+  private JWTVerifier verifier;
+  // Maps the digests of the tokens that were verified before to their subjects and expiry dates so
+  // that repeated requests with the same token are not verified again until it expires.
+  private Cache<String, VerifiedToken> verifiedTokensCache;
+
+  @PostConstruct
+  public void initialize() throws UnsupportedEncodingException {
+    algorithm = Algorithm.HMAC512(jwtSecret);
+    verifier = JWT.require(algorithm).build();
+    verifiedTokensCache = CacheBuilder.newBuilder()
+        .maximumSize(verifiedTokensCacheMaxSize)
+        .build();
+  }
+
   public String generateToken(User user) throws UnsupportedEncodingException {
     return JWT.create()
         .withSubject(user.getId())
         .withExpiresAt(new Date(System.currentTimeMillis() + TOKEN_TIMEOUT_IN_MILLIS))
-        .sign(Algorithm.HMAC512(jwtSecret));
+        .sign(algorithm);
   }
 
   public String extractJwtToken(HttpServletRequest httpServletRequest) {
@@ -37,11 +65,44 @@ public class JwtService {
     return null;
   }
 
-  public JWTVerifier getVerifier() throws UnsupportedEncodingException {
-    return JWT.require(Algorithm.HMAC512(jwtSecret)).build();
+  public JWTVerifier getVerifier() {
+    return verifier;
+  }
+
+  /**
+   * Verifies the given token and returns its subject. Tokens that were verified before are not
+   * verified again until they expire.
+   *
+   * @throws TokenExpiredException if the token is valid but expired.
+   * @throws JWTVerificationException if the token is not valid.
+   */
+  public String verifyAndGetSubject(String token) throws JWTVerificationException {
+    String tokenDigest = Hashing.sha256().hashString(token, StandardCharsets.UTF_8).toString();
+    VerifiedToken verifiedToken = verifiedTokensCache.getIfPresent(tokenDigest);
+    if (verifiedToken != null) {
+      if (verifiedToken.getExpiresAtMillis() > System.currentTimeMillis()) {
+        return verifiedToken.getSubject();
+      }
+      verifiedTokensCache.invalidate(tokenDigest);
+    }
+
+    DecodedJWT decodedJwt = verifier.verify(token);
+    if (decodedJwt.getExpiresAt() != null) {
+      verifiedTokensCache.put(tokenDigest,
+          new VerifiedToken(decodedJwt.getSubject(), decodedJwt.getExpiresAt().getTime()));
+    }
+    return decodedJwt.getSubject();
   }
 
   public DecodedJWT decode(String token) throws UnsupportedEncodingException {
     return JWT.decode(token);
   }
+
+  @Getter
+  @AllArgsConstructor
+  private static class VerifiedToken {
+
+    private final String subject;
+    private final long expiresAtMillis;
+  }
 }
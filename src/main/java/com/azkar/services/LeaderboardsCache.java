@@ -0,0 +1,151 @@
+package com.azkar.services;
+
+import com.azkar.entities.ScorePeriod;
+import com.azkar.payload.usercontroller.responses.GetFriendsLeaderboardResponse.FriendshipScores;
+import com.azkar.payload.utils.UserScore;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import javax.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * A bounded cache of the computed group and friends leaderboards. Concurrent requests for the same
+ * missing leaderboard wait for a single computation. Leaderboards are invalidated when the scores
+ * or the memberships they depend on change, see {@link #invalidate(String, String, Collection)}.
+ *
+ * <p>Every group and user has a generation that is part of the keys of the leaderboards depending
+ * on it, so invalidating is bumping the generations of the affected groups and users, and the
+ * leaderboards of the older generations are never read again until they are evicted.
+ */
+@Service
+public class LeaderboardsCache {
+
+  @Value("${app.leaderboards-cache.max-size:10000}")
+  private long maxSize;
+
+  // A safety net for changes that are not explicitly invalidated.
+  @Value("${app.leaderboards-cache.ttl-seconds:300}")
+  private long ttlSeconds;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  // Keyed by [groupId, group generation, binary group members generations, period, period start,
+  // offset, limit]. The start of the period is part of the keys so that leaderboards of a period
+  // that ended are not served in the next one.
+  private Cache<List<Object>, List<UserScore>> groupsLeaderboards;
+  // Keyed by [userId, user generation, period, period start].
+  private Cache<List<Object>, List<FriendshipScores>> friendsLeaderboards;
+  // The generations of the groups and the users. A generation is never reused, even after it is
+  // evicted, since every new generation is taken from the same counter.
+  private Cache<String, Long> groupsGenerations;
+  private Cache<String, Long> usersGenerations;
+  private final AtomicLong lastGeneration = new AtomicLong();
+
+  @PostConstruct
+  public void initialize() {
+    groupsLeaderboards = CacheBuilder.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+        .recordStats()
+        .build();
+    friendsLeaderboards = CacheBuilder.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+        .recordStats()
+        .build();
+    // Evicting a generation only invalidates the leaderboards depending on it.
+    groupsGenerations = CacheBuilder.newBuilder().maximumSize(maxSize).build();
+    usersGenerations = CacheBuilder.newBuilder().maximumSize(maxSize).build();
+    GuavaCacheMetrics.monitor(meterRegistry, groupsLeaderboards, "leaderboards.groups");
+    GuavaCacheMetrics.monitor(meterRegistry, friendsLeaderboards, "leaderboards.friends");
+  }
+
+  /**
+   * Returns the cached leaderboard of the group or computes it using {@code loader}. {@code
+   * binaryGroupMembersIds} should be the two members of the group if it is a binary group and
+   * empty otherwise, since the leaderboard of a binary group depends on all of the groups its two
+   * members share.
+   */
+  public List<UserScore> getGroupLeaderboard(String groupId,
+      Collection<String> binaryGroupMembersIds, ScorePeriod period, int offset, Integer limit,
+      Supplier<List<UserScore>> loader) {
+    List<Object> key = new ArrayList<>();
+    key.add(groupId);
+    key.add(getGeneration(groupsGenerations, groupId));
+    binaryGroupMembersIds.stream().sorted()
+        .forEach(memberId -> key.add(getGeneration(usersGenerations, memberId)));
+    key.addAll(Arrays.asList(period, period.getCurrentStart(), offset, limit));
+    return get(groupsLeaderboards, key, loader);
+  }
+
+  /**
+   * Returns the cached friends leaderboard of the user or computes it using {@code loader}.
+   */
+  public List<FriendshipScores> getFriendsLeaderboard(String userId, ScorePeriod period,
+      Supplier<List<FriendshipScores>> loader) {
+    return get(friendsLeaderboards, Arrays.asList(userId, getGeneration(usersGenerations, userId),
+        period, period.getCurrentStart()), loader);
+  }
+
+  /**
+   * Invalidates all of the leaderboards that depend on the score of {@code userId} in the group or
+   * on their membership in it: the group leaderboard, the friends leaderboards of all of the group
+   * members, and the leaderboards of the binary groups of the members. Should be called after the
+   * change is written.
+   */
+  public void invalidate(String groupId, String userId, Collection<String> groupMembersIds) {
+    bumpGeneration(groupsGenerations, groupId);
+    bumpGeneration(usersGenerations, userId);
+    groupMembersIds.forEach(memberId -> bumpGeneration(usersGenerations, memberId));
+  }
+
+  /**
+   * Invalidates the friends leaderboards of the given users, e.g. when they become friends.
+   */
+  public void invalidateFriendsLeaderboards(Collection<String> usersIds) {
+    usersIds.forEach(userId -> bumpGeneration(usersGenerations, userId));
+  }
+
+  public void invalidateAll() {
+    groupsGenerations.invalidateAll();
+    usersGenerations.invalidateAll();
+    groupsLeaderboards.invalidateAll();
+    friendsLeaderboards.invalidateAll();
+  }
+
+  private long getGeneration(Cache<String, Long> generations, String id) {
+    try {
+      return generations.get(id, lastGeneration::incrementAndGet);
+    } catch (ExecutionException e) {
+      throw new RuntimeException("Could not get the leaderboards generation.", e.getCause());
+    }
+  }
+
+  private void bumpGeneration(Cache<String, Long> generations, String id) {
+    generations.put(id, lastGeneration.incrementAndGet());
+  }
+
+  // A leaderboard computed concurrently with an invalidation is stored under the generation it was
+  // requested with, so it is never read by the requests after the invalidation.
+  private static <V> V get(Cache<List<Object>, V> cache, List<Object> key, Supplier<V> loader) {
+    try {
+      return cache.get(key, loader::get);
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      throw new RuntimeException("Could not compute the leaderboard.", e.getCause());
+    }
+  }
+}
@@ -2,23 +2,78 @@ package com.azkar.services;
 
 import com.azkar.entities.User;
 import com.google.auth.oauth2.GoogleCredentials;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
+import com.google.firebase.messaging.BatchResponse;
 import com.google.firebase.messaging.FirebaseMessaging;
 import com.google.firebase.messaging.FirebaseMessagingException;
 import com.google.firebase.messaging.Message;
 import com.google.firebase.messaging.Notification;
+import com.google.firebase.messaging.SendResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+/**
+ * Sends push notifications asynchronously. Notifications are added to a bounded queue that is
+ * drained by a pool of workers sending them to FCM in batches, so that callers never wait for FCM.
+ */
 @Service
 public class NotificationsService {
 
+  // The maximum number of messages FCM accepts in one sendAll call.
+  private static final int MAX_BATCH_SIZE = 500;
+  private static final long POLL_TIMEOUT_MILLIS = 500;
+
   private static final Logger logger = LoggerFactory.getLogger(NotificationsService.class);
 
+  @Value("${notifications.queue-capacity:10000}")
+  private int queueCapacity;
+
+  @Value("${notifications.workers:2}")
+  private int workersNum;
+
+  @Value("${notifications.shutdown-timeout-seconds:10}")
+  private long shutdownTimeoutSeconds;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  private Supplier<FirebaseMessaging> firebaseMessaging;
+  private BlockingQueue<PendingNotification> queue;
+  private ExecutorService workers;
+  private volatile boolean running;
+  // Notifications are queued under the read lock and running is only cleared under the write lock,
+  // so a notification is either queued before the workers start draining for the last time or
+  // counted as dropped.
+  private final ReadWriteLock runningLock = new ReentrantReadWriteLock();
+  private Counter droppedNotificationsCounter;
+  private Counter failedNotificationsCounter;
+  private DistributionSummary batchSizeSummary;
+
   @PostConstruct
   public void initialize() {
     FirebaseOptions options = null;
@@ -30,8 +85,65 @@ public class NotificationsService {
     } catch (IOException e) {
       logger.error("Could not initialize Firebase app correctly.", e);
     }
+    start(FirebaseMessaging::getInstance);
+  }
+
+  /**
+   * Starts the workers sending the queued notifications using the given FCM client. The client is
+   * only looked up when sending, so a Firebase app that failed to initialize fails the batches
+   * instead of the startup.
+   */
+  void start(Supplier<FirebaseMessaging> firebaseMessaging) {
+    this.firebaseMessaging = firebaseMessaging;
+    queue = new ArrayBlockingQueue<>(queueCapacity);
+    Gauge.builder("notifications.queue.size", queue, BlockingQueue::size)
+        .description("The number of notifications waiting to be sent")
+        .register(meterRegistry);
+    droppedNotificationsCounter = Counter.builder("notifications.dropped")
+        .description("The number of notifications dropped because the queue was full")
+        .register(meterRegistry);
+    failedNotificationsCounter = Counter.builder("notifications.failed")
+        .description("The number of notifications that FCM failed to send")
+        .register(meterRegistry);
+    batchSizeSummary = DistributionSummary.builder("notifications.batch.size")
+        .description("The number of notifications sent in one FCM call")
+        .register(meterRegistry);
+
+    running = true;
+    workers = Executors.newFixedThreadPool(workersNum,
+        new ThreadFactoryBuilder().setNameFormat("notifications-worker-%d").build());
+    for (int i = 0; i < workersNum; i++) {
+      workers.execute(this::processQueue);
+    }
+  }
+
+  /**
+   * Sends all of the queued notifications before shutting down, waiting at most for the configured
+   * shutdown timeout.
+   */
+  @PreDestroy
+  public void shutdown() {
+    runningLock.writeLock().lock();
+    try {
+      running = false;
+    } finally {
+      runningLock.writeLock().unlock();
+    }
+    workers.shutdown();
+    try {
+      if (!workers.awaitTermination(shutdownTimeoutSeconds, TimeUnit.SECONDS)) {
+        logger.error(String.format("Shutting down with %d notifications not sent.", queue.size()));
+        workers.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      workers.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
   }
 
+  /**
+   * Queues a notification to the given user. Only the user id and notifications token are used.
+   */
   public void sendNotificationToUser(User user, String title, String body) {
     if (user.getNotificationsToken() == null || user.getNotificationsToken().isEmpty()) {
       logger.error(String.format("Token not found for user: %s", user.getId()));
@@ -43,12 +155,76 @@ public class NotificationsService {
             Notification.builder().setTitle(title).setBody(body).build())
         .build();
 
-    try {
-      FirebaseMessaging.getInstance().send(message);
-    } catch (FirebaseMessagingException e) {
+    if (!offer(new PendingNotification(user.getId(), title, message))) {
+      droppedNotificationsCounter.increment();
       logger.error(
-          String.format("Failed to send a notification to user: %s with title: %s, and body: %s",
-              user.getId(), title, body), e);
+          String.format("Dropped a notification to user: %s with title: %s, and body: %s",
+              user.getId(), title, body));
+    }
+  }
+
+  private boolean offer(PendingNotification notification) {
+    runningLock.readLock().lock();
+    try {
+      return running && queue.offer(notification);
+    } finally {
+      runningLock.readLock().unlock();
+    }
+  }
+
+  private void processQueue() {
+    List<PendingNotification> batch = new ArrayList<>(MAX_BATCH_SIZE);
+    while (running || !queue.isEmpty()) {
+      try {
+        PendingNotification first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+        sendBatch(batch);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (RuntimeException e) {
+        logger.error("Unexpected error while sending notifications.", e);
+      } finally {
+        batch.clear();
+      }
     }
   }
+
+  private void sendBatch(List<PendingNotification> batch) {
+    batchSizeSummary.record(batch.size());
+    List<Message> messages =
+        batch.stream().map(PendingNotification::getMessage).collect(Collectors.toList());
+    try {
+      BatchResponse batchResponse = firebaseMessaging.get().sendAll(messages);
+      if (batchResponse.getFailureCount() == 0) {
+        return;
+      }
+      failedNotificationsCounter.increment(batchResponse.getFailureCount());
+      List<SendResponse> responses = batchResponse.getResponses();
+      for (int i = 0; i < responses.size(); i++) {
+        if (!responses.get(i).isSuccessful()) {
+          logger.error(
+              String.format("Failed to send a notification to user: %s with title: %s",
+                  batch.get(i).getUserId(), batch.get(i).getTitle()),
+              responses.get(i).getException());
+        }
+      }
+    } catch (FirebaseMessagingException | RuntimeException e) {
+      failedNotificationsCounter.increment(batch.size());
+      logger.error(String.format("Failed to send a batch of %d notifications.", batch.size()), e);
+    }
+  }
+
+  @Getter
+  @AllArgsConstructor
+  private static class PendingNotification {
+
+    private final String userId;
+    private final String title;
+    private final Message message;
+  }
 }
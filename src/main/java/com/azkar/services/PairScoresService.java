@@ -0,0 +1,85 @@
+package com.azkar.services;
+
+import com.azkar.entities.Group;
+import com.azkar.entities.ScorePeriod;
+import com.azkar.entities.User;
+import com.azkar.repos.PairScoreRepo;
+import com.azkar.repos.UserRepo;
+import com.google.common.collect.ImmutableList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps the pair_scores collection consistent with the users' scores in their groups. The score of
+ * a user in a pair is the sum of their scores in all of the groups both users are members in, and
+ * is kept for every {@link ScorePeriod}.
+ */
+@Service
+public class PairScoresService {
+
+  @Autowired
+  private PairScoreRepo pairScoreRepo;
+
+  @Autowired
+  private UserRepo userRepo;
+
+  /**
+   * Should be called after the score of {@code userId} in a group is incremented by one, with the
+   * members of the group as read after the increment.
+   */
+  public void onScoreIncremented(String userId, List<String> groupMembersIds) {
+    pairScoreRepo.incrementScore(userId, getOtherMembersIds(groupMembersIds, userId), 1);
+  }
+
+  /**
+   * Should be called when {@code newMemberId} is added to {@code group} so that the existing scores
+   * of the other members in the group are added to their pairs with the new member.
+   */
+  public void onMemberAdded(Group group, String newMemberId) {
+    List<String> newMemberList = ImmutableList.of(newMemberId);
+    for (User member : userRepo.findAllById(getOtherMembersIds(group, newMemberId))) {
+      pairScoreRepo.incrementScores(member.getId(), newMemberList, getScores(member, group, 1));
+    }
+  }
+
+  /**
+   * Should be called when {@code member} is removed from {@code group}, with the member as loaded
+   * before the removal, so that the scores of the group are subtracted from all of the member's
+   * pairs with the other members.
+   */
+  public void onMemberRemoved(Group group, User member) {
+    List<String> otherMembersIds = getOtherMembersIds(group, member.getId());
+    pairScoreRepo.incrementScores(member.getId(), otherMembersIds, getScores(member, group, -1));
+    List<String> memberList = ImmutableList.of(member.getId());
+    for (User otherMember : userRepo.findAllById(otherMembersIds)) {
+      pairScoreRepo
+          .incrementScores(otherMember.getId(), memberList, getScores(otherMember, group, -1));
+    }
+  }
+
+  private static List<String> getOtherMembersIds(Group group, String userId) {
+    return getOtherMembersIds(group.getUsersIds(), userId);
+  }
+
+  private static List<String> getOtherMembersIds(List<String> membersIds, String userId) {
+    return membersIds.stream()
+        .filter(memberId -> !memberId.equals(userId))
+        .collect(Collectors.toList());
+  }
+
+  // Returns the scores of the user in the group in all of the periods multiplied by sign.
+  private static Map<ScorePeriod, Integer> getScores(User user, Group group, int sign) {
+    Map<ScorePeriod, Integer> scores = new EnumMap<>(ScorePeriod.class);
+    user.getUserGroups().stream()
+        .filter(userGroup -> userGroup.getGroupId().equals(group.getId()))
+        .findFirst()
+        .ifPresent(userGroup -> Arrays.stream(ScorePeriod.values())
+            .forEach(period -> scores.put(period, sign * period.getScore(userGroup))));
+    return scores;
+  }
+}
@@ -0,0 +1,51 @@
+package com.azkar.services;
+
+import static com.azkar.configs.IoExecutorConfig.IO_EXECUTOR;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs independent blocking lookups of a request, e.g. loading two documents that don't depend on
+ * each other, concurrently on the bounded I/O executor, so that the request waits about as long
+ * as its slowest lookup instead of the sum of all of them.
+ *
+ * <p>Note: Lookups run outside of the request, so they should only read, and they can't use the
+ * security context or the repositories request cache. Everything they need from the request, e.g.
+ * the current user ID, should be read before starting them.
+ */
+@Service
+public class ParallelLookups {
+
+  private final TaskExecutor ioExecutor;
+
+  public ParallelLookups(@Qualifier(IO_EXECUTOR) TaskExecutor ioExecutor) {
+    this.ioExecutor = ioExecutor;
+  }
+
+  public <T> CompletableFuture<T> start(Supplier<T> lookup) {
+    return CompletableFuture.supplyAsync(lookup, ioExecutor);
+  }
+
+  /**
+   * Waits for the given lookup and returns its result. A failed lookup rethrows its exception
+   * as is, the same as if it had run on the calling thread.
+   */
+  public static <T> T await(CompletableFuture<T> lookup) {
+    try {
+      return lookup.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw e;
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package com.azkar.services;
+
+import com.azkar.payload.ResponseBase.Status;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Function;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Writes responses whose data is serialized as it is read, e.g. from a database cursor, instead of
+ * being loaded into memory first. The responses have the same shape as the responses extending
+ * ResponseBase but are always written as JSON.
+ *
+ * <p>Note: The data is written after the controller method returns and on another thread, so it
+ * should not depend on the current request or the authenticated user.
+ */
+@Service
+public class StreamingResponses {
+
+  private final ObjectMapper objectMapper;
+  // The number of elements fetched from the database at a time for a streamed response.
+  @Getter
+  private final int batchSize;
+
+  public StreamingResponses(ObjectMapper objectMapper,
+      @Value("${app.streaming.batch-size:100}") int batchSize) {
+    this.objectMapper = objectMapper;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Writes the elements of the given cursor as a JSON array and closes the cursor.
+   */
+  public static <T> void writeArray(JsonGenerator generator, CloseableIterator<T> elements)
+      throws IOException {
+    writeArray(generator, elements, Function.<T>identity());
+  }
+
+  /**
+   * Writes what every element of the given cursor is mapped to as a JSON array and closes the
+   * cursor.
+   */
+  public static <T> void writeArray(JsonGenerator generator, CloseableIterator<T> elements,
+      Function<? super T, ?> mapper) throws IOException {
+    try (CloseableIterator<T> cursor = elements) {
+      generator.writeStartArray();
+      while (cursor.hasNext()) {
+        generator.writeObject(mapper.apply(cursor.next()));
+      }
+      generator.writeEndArray();
+    }
+  }
+
+  /**
+   * Writes what every element of an already loaded list is mapped to as a JSON array.
+   */
+  public static <T> void writeArray(JsonGenerator generator, List<T> elements,
+      Function<? super T, ?> mapper) throws IOException {
+    generator.writeStartArray();
+    for (T element : elements) {
+      generator.writeObject(mapper.apply(element));
+    }
+    generator.writeEndArray();
+  }
+
+  public StreamingResponseBody of(DataWriter dataWriter) {
+    return outputStream -> {
+      try (JsonGenerator generator =
+          objectMapper.getFactory().createGenerator(outputStream, JsonEncoding.UTF8)) {
+        // The output stream is closed by the servlet container.
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.writeStartObject();
+        generator.writeFieldName("data");
+        dataWriter.write(generator);
+        generator.writeObjectField("status", new Status(Status.SUCCESS));
+        generator.writeEndObject();
+      }
+    };
+  }
+
+  @FunctionalInterface
+  public interface DataWriter {
+
+    void write(JsonGenerator generator) throws IOException;
+  }
+}
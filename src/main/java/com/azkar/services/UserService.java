@@ -1,12 +1,18 @@
 package com.azkar.services;
 
+import com.azkar.configs.authentication.UserPrincipal;
 import com.azkar.entities.Friendship;
 import com.azkar.entities.User;
 import com.azkar.repos.FriendshipRepo;
 import com.azkar.repos.UserRepo;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import java.util.Optional;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -17,6 +23,49 @@ public class UserService {
   private UserRepo userRepo;
   @Autowired
   private FriendshipRepo friendshipRepo;
+  @Value("${app.principals-cache.max-size:10000}")
+  private long principalsCacheMaxSize;
+  @Value("${app.principals-cache.ttl-seconds:300}")
+  private long principalsCacheTtlSeconds;
+  // Maps user IDs to the principals used to authenticate their requests.
+  private Cache<String, UserPrincipal> principalsCache;
+
+  @PostConstruct
+  public void initialize() {
+    principalsCache = CacheBuilder.newBuilder()
+        .maximumSize(principalsCacheMaxSize)
+        .expireAfterWrite(principalsCacheTtlSeconds, TimeUnit.SECONDS)
+        .build();
+  }
+
+  /**
+   * Returns the principal of the user with the given ID, or null if there is no such user. Only
+   * the username of the user is loaded, and the principal is cached until the user is saved
+   * again, see UserPrincipalsCacheEvictionListener.
+   */
+  public UserPrincipal loadUserPrincipalById(String id) {
+    UserPrincipal cachedPrincipal = principalsCache.getIfPresent(id);
+    if (cachedPrincipal != null) {
+      return cachedPrincipal;
+    }
+    Optional<User> user = userRepo.findUsernameById(id);
+    if (!user.isPresent()) {
+      return null;
+    }
+    UserPrincipal userPrincipal = new UserPrincipal();
+    userPrincipal.setUserId(id);
+    userPrincipal.setUsername(user.get().getUsername());
+    principalsCache.put(id, userPrincipal);
+    return userPrincipal;
+  }
+
+  public void evictUserPrincipal(String id) {
+    principalsCache.invalidate(id);
+  }
+
+  public void evictAllUserPrincipals() {
+    principalsCache.invalidateAll();
+  }
 
   public User loadUserById(String id) {
     Optional<User> user = userRepo.findById(id);
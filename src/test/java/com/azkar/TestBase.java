@@ -4,6 +4,7 @@ package com.azkar;
 import static org.mockito.ArgumentMatchers.any;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.azkar.configs.MongoIndexesInitializer;
 import com.azkar.controllers.challengecontroller.PersonalChallengeTest;
 import com.azkar.controllers.utils.AzkarApi;
 import com.azkar.controllers.utils.HttpClient;
@@ -14,11 +15,15 @@ import com.azkar.factories.entities.ChallengeFactory;
 import com.azkar.factories.entities.UserFactory;
 import com.azkar.payload.challengecontroller.requests.AddPersonalChallengeRequest;
 import com.azkar.payload.challengecontroller.responses.AddPersonalChallengeResponse;
+import com.azkar.repos.UserChallengeProgressRepo;
+import com.azkar.services.LeaderboardsCache;
 import com.azkar.services.NotificationsService;
 import com.azkar.services.UserService;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import java.io.UnsupportedEncodingException;
 import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
 import org.junit.Before;
 import org.junit.runner.RunWith;
 import org.mockito.Mockito;
@@ -44,13 +49,22 @@ public abstract class TestBase {
   @Autowired
   UserService userService;
   @Autowired
-  MongoTemplate mongoTemplate;
+  protected MongoTemplate mongoTemplate;
+  @Autowired
+  protected UserChallengeProgressRepo userChallengeProgressRepo;
+  @Autowired
+  MongoIndexesInitializer mongoIndexesInitializer;
+  @Autowired
+  LeaderboardsCache leaderboardsCache;
   @MockBean
   NotificationsService notificationsService;
 
   @Before
   public final void beforeBase() {
     mongoTemplate.getDb().drop();
+    // Dropping the database drops the indexes too.
+    mongoIndexesInitializer.ensureIndexes();
+    leaderboardsCache.invalidateAll();
 
     Mockito.doNothing().when(notificationsService).
         sendNotificationToUser(any(), any(), any());
@@ -133,5 +147,11 @@ public abstract class TestBase {
     return getResponse(response, AddPersonalChallengeResponse.class).getData();
   }
 
+  protected List<Challenge> getUserChallenges(User user) {
+    return userChallengeProgressRepo.findAllByUserIdOrderByIdDesc(user.getId()).stream()
+        .map(userChallengeProgress -> userChallengeProgress.getChallenge())
+        .collect(Collectors.toList());
+  }
+
 
 }
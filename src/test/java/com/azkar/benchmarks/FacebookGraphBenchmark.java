@@ -0,0 +1,104 @@
+package com.azkar.benchmarks;
+
+import com.azkar.controllers.utils.FacebookGraphStub;
+import com.azkar.services.FacebookGraphService;
+import com.azkar.services.FacebookGraphService.BasicProfile;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Compares loading a Facebook profile from a local stub of the Graph API the way
+ * AuthenticationController used to do it, with a default RestTemplate, with
+ * FacebookGraphService, both without and with its verified tokens cache.
+ *
+ * <p>Run it with the main method from the IDE or with {@code mvn test-compile exec:exec
+ * -Dbenchmark=com.azkar.benchmarks.FacebookGraphBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class FacebookGraphBenchmark {
+
+  private static final String TOKEN = "benchmarkToken";
+
+  // The latency of the stub Graph API.
+  @Param({"0", "20"})
+  private long latencyMillis;
+
+  private FacebookGraphStub facebookGraphStub;
+  private RestTemplate defaultRestTemplate;
+  private String profileUrl;
+  private FacebookGraphService uncachedFacebookGraphService;
+  private FacebookGraphService facebookGraphService;
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(FacebookGraphBenchmark.class.getSimpleName())
+        .build())
+        .run();
+  }
+
+  @Setup
+  public void setUp() throws Exception {
+    facebookGraphStub = new FacebookGraphStub();
+    facebookGraphStub.setLatencyMillis(latencyMillis);
+    BasicProfile profile = new BasicProfile();
+    profile.setId("benchmarkFacebookUserId");
+    facebookGraphStub.addProfile(TOKEN, profile);
+
+    defaultRestTemplate = new RestTemplate();
+    profileUrl = facebookGraphStub.getBaseUrl()
+        + "/me?fields=id,first_name,last_name,email&access_token=" + TOKEN;
+    uncachedFacebookGraphService = newFacebookGraphService(/* profilesCacheMaxSize= */ 0);
+    facebookGraphService = newFacebookGraphService(/* profilesCacheMaxSize= */ 10000);
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    uncachedFacebookGraphService.close();
+    facebookGraphService.close();
+    facebookGraphStub.stop();
+  }
+
+  @Benchmark
+  public BasicProfile defaultRestTemplate() {
+    return defaultRestTemplate.getForObject(profileUrl, BasicProfile.class);
+  }
+
+  @Benchmark
+  public BasicProfile pooledClient() {
+    return uncachedFacebookGraphService.getBasicProfile(TOKEN);
+  }
+
+  @Benchmark
+  public BasicProfile pooledClientWithVerifiedTokensCache() {
+    return facebookGraphService.getBasicProfile(TOKEN);
+  }
+
+  private FacebookGraphService newFacebookGraphService(long profilesCacheMaxSize) {
+    return new FacebookGraphService(new RestTemplateBuilder(), facebookGraphStub.getBaseUrl(),
+        /* connectTimeoutMillis= */ 1000, /* readTimeoutMillis= */ 3000, /* maxConnections= */ 50,
+        profilesCacheMaxSize, /* profilesCacheTtlSeconds= */ 60);
+  }
+}
@@ -0,0 +1,74 @@
+package com.azkar.benchmarks;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.azkar.entities.User;
+import com.azkar.services.JwtService;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Compares resolving the subject of a bearer token the way JwtAuthenticationFilter used to do it,
+ * building a new verifier and verifying the token on every request, with
+ * JwtService.verifyAndGetSubject.
+ *
+ * <p>Run it with the main method from the IDE or with {@code mvn test-compile exec:exec
+ * -Dbenchmark=com.azkar.benchmarks.JwtVerificationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+  private static final String JWT_SECRET = "benchmark_secret";
+
+  private JwtService jwtService;
+  private String token;
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(JwtVerificationBenchmark.class.getSimpleName())
+        .build())
+        .run();
+  }
+
+  @Setup
+  public void setUp() throws Exception {
+    jwtService = new JwtService();
+    ReflectionTestUtils.setField(jwtService, "jwtSecret", JWT_SECRET);
+    ReflectionTestUtils.setField(jwtService, "verifiedTokensCacheMaxSize", 10000);
+    jwtService.initialize();
+    token = jwtService.generateToken(User.builder().id("benchmarkUserId").build());
+  }
+
+  @Benchmark
+  public String newVerifierPerRequest() throws Exception {
+    return JWT.require(Algorithm.HMAC512(JWT_SECRET)).build().verify(token).getSubject();
+  }
+
+  @Benchmark
+  public String sharedVerifier() throws Exception {
+    return jwtService.getVerifier().verify(token).getSubject();
+  }
+
+  @Benchmark
+  public String sharedVerifierWithVerifiedTokensCache() {
+    return jwtService.verifyAndGetSubject(token);
+  }
+}
@@ -0,0 +1,121 @@
+package com.azkar.benchmarks;
+
+import com.azkar.AzkarApplication;
+import com.azkar.entities.User;
+import com.azkar.factories.entities.UserFactory;
+import com.azkar.reactive.ReactiveReadController;
+import com.azkar.services.JwtService;
+import com.azkar.services.UserService;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+
+/**
+ * Compares the throughput of the read endpoints served by the blocking controllers with the one
+ * of the reactive serving profile, with the same heap and the same small number of Tomcat threads
+ * for both and many more concurrent clients than threads.
+ *
+ * <p>The server is started in the test profile, so a local mongod is needed as for the tests. Run
+ * it with the main method from the IDE or with {@code mvn test-compile exec:exec
+ * -Dbenchmark=com.azkar.benchmarks.ReactiveReadsBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx256m")
+@Threads(64)
+public class ReactiveReadsBenchmark {
+
+  private static final int TOMCAT_THREADS = 8;
+
+  @Param({"servlet", ReactiveReadController.PROFILE})
+  private String stack;
+
+  private ConfigurableApplicationContext context;
+  private String baseUrl;
+  private String token;
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(ReactiveReadsBenchmark.class.getSimpleName())
+        .build())
+        .run();
+  }
+
+  @Setup
+  public void setUp() throws Exception {
+    SpringApplicationBuilder applicationBuilder = new SpringApplicationBuilder(
+        AzkarApplication.class)
+        .properties(
+            "server.port=0",
+            "server.ssl.enabled=false",
+            "server.tomcat.max-threads=" + TOMCAT_THREADS,
+            "debug=false");
+    if (stack.equals(ReactiveReadController.PROFILE)) {
+      applicationBuilder.profiles("test", ReactiveReadController.PROFILE);
+    } else {
+      applicationBuilder.profiles("test");
+    }
+    context = applicationBuilder.run();
+    baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+
+    User user = UserFactory.getNewUser();
+    context.getBean(UserService.class).addNewUser(user);
+    token = context.getBean(JwtService.class).generateToken(user);
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public int getHome() throws IOException {
+    return get("/");
+  }
+
+  @Benchmark
+  public int getFriends() throws IOException {
+    return get("/friends");
+  }
+
+  @Benchmark
+  public int getGroups() throws IOException {
+    return get("/groups");
+  }
+
+  private int get(String path) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+    connection.setRequestProperty(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+    // Reads the whole body so that the connection is kept alive for the next request.
+    try (InputStream body = connection.getInputStream()) {
+      byte[] buffer = new byte[8192];
+      while (body.read(buffer) != -1) {
+      }
+    }
+    return connection.getResponseCode();
+  }
+}
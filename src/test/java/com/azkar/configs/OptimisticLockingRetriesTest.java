@@ -0,0 +1,146 @@
+package com.azkar.configs;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import com.azkar.TestBase;
+import com.azkar.entities.User;
+import com.azkar.entities.VersionStamped;
+import com.azkar.repos.FriendshipRepo;
+import com.azkar.repos.UserRepo;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+
+public class OptimisticLockingRetriesTest extends TestBase {
+
+  private static final String ENDPOINT = "NotificationsTokenWriter.setNotificationsToken";
+  private static final String TOKEN = "token";
+
+  @Autowired
+  UserRepo userRepo;
+  @Autowired
+  NotificationsTokenWriter notificationsTokenWriter;
+  @Autowired
+  MeterRegistry meterRegistry;
+
+  private User user;
+
+  @Before
+  public void before() {
+    user = getNewRegisteredUser();
+  }
+
+  @Test
+  public void save_staleUser_shouldFail() {
+    User staleUser = userRepo.findById(user.getId()).get();
+    User freshUser = userRepo.findById(user.getId()).get();
+    freshUser.setFirstName("fresh");
+    userRepo.save(freshUser);
+
+    staleUser.setFirstName("stale");
+    assertThrows(OptimisticLockingFailureException.class, () -> userRepo.save(staleUser));
+    assertThat(userRepo.findById(user.getId()).get().getFirstName(), is("fresh"));
+  }
+
+  @Test
+  public void retryOnConflict_conflictBeforeWriting_shouldRetry() {
+    double retriesBefore = count("optimistic.locking.retries");
+    double failuresBefore = count("optimistic.locking.failures");
+
+    notificationsTokenWriter.setConflictingAttempts(2);
+    notificationsTokenWriter.setNotificationsToken(user.getId(), TOKEN, /*writeFirst=*/false);
+
+    assertThat(userRepo.findById(user.getId()).get().getNotificationsToken(), is(TOKEN));
+    assertThat(count("optimistic.locking.retries"), is(retriesBefore + 2));
+    assertThat(count("optimistic.locking.failures"), is(failuresBefore));
+  }
+
+  @Test
+  public void retryOnConflict_conflictOnEveryAttempt_shouldFail() {
+    double conflictsBefore = count("optimistic.locking.conflicts");
+    double failuresBefore = count("optimistic.locking.failures");
+
+    notificationsTokenWriter.setConflictingAttempts(10);
+    assertThrows(OptimisticLockingFailureException.class, () -> notificationsTokenWriter
+        .setNotificationsToken(user.getId(), TOKEN, /*writeFirst=*/false));
+
+    // Three attempts are allowed by default.
+    assertThat(count("optimistic.locking.conflicts"), is(conflictsBefore + 3));
+    assertThat(count("optimistic.locking.failures"), is(failuresBefore + 1));
+  }
+
+  @Test
+  public void retryOnConflict_conflictAfterWriting_shouldNotRetry() {
+    double retriesBefore = count("optimistic.locking.retries");
+
+    notificationsTokenWriter.setConflictingAttempts(1);
+    assertThrows(OptimisticLockingFailureException.class, () -> notificationsTokenWriter
+        .setNotificationsToken(user.getId(), TOKEN, /*writeFirst=*/true));
+
+    assertThat(count("optimistic.locking.retries"), is(retriesBefore));
+    assertThat(notificationsTokenWriter.getConflictingAttempts(), is(0));
+  }
+
+  private double count(String meterName) {
+    return meterRegistry.counter(meterName, "endpoint", ENDPOINT).count();
+  }
+
+  @TestConfiguration
+  static class Config {
+
+    @Bean
+    NotificationsTokenWriter notificationsTokenWriter() {
+      return new NotificationsTokenWriter();
+    }
+  }
+
+  // Sets the notifications token of a user while the user is concurrently modified in the first
+  // conflictingAttempts attempts.
+  static class NotificationsTokenWriter {
+
+    @Autowired
+    UserRepo userRepo;
+    @Autowired
+    FriendshipRepo friendshipRepo;
+    @Autowired
+    MongoTemplate mongoTemplate;
+
+    // Note: The proxied writer is only accessed through its methods.
+    private int conflictingAttempts;
+
+    public int getConflictingAttempts() {
+      return conflictingAttempts;
+    }
+
+    public void setConflictingAttempts(int conflictingAttempts) {
+      this.conflictingAttempts = conflictingAttempts;
+    }
+
+    @RetryOnConflict
+    public void setNotificationsToken(String userId, String token, boolean writeFirst) {
+      if (writeFirst) {
+        friendshipRepo.save(friendshipRepo.findByUserId(userId));
+      }
+      User user = userRepo.findById(userId).get();
+      if (conflictingAttempts > 0) {
+        conflictingAttempts--;
+        // A concurrent targeted update of the user.
+        mongoTemplate.updateFirst(query(where("id").is(userId)),
+            new Update().set("lastName", "concurrent").inc(VersionStamped.VERSION_FIELD, 1),
+            User.class);
+      }
+      user.setNotificationsToken(token);
+      userRepo.save(user);
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package com.azkar.configs;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.azkar.TestBase;
+import com.azkar.controllers.BaseController;
+import com.azkar.entities.User;
+import com.azkar.payload.ResponseBase.Status;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+public class ResponseEncodingsTest extends TestBase {
+
+  private User user;
+
+  @Before
+  public void before() {
+    user = getNewRegisteredUser();
+  }
+
+  @Test
+  public void getProfile_noAcceptedMediaType_shouldReturnJson() throws Exception {
+    azkarApi.getProfile(user)
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath("$.data.personalChallenges").isEmpty());
+  }
+
+  @Test
+  public void getProfile_compactJsonAccepted_shouldOmitDefaults() throws Exception {
+    HttpHeaders headers = new HttpHeaders();
+    headers.set(HttpHeaders.ACCEPT, BaseController.COMPACT_JSON_VALUE);
+
+    httpClient.performGetRequest(user, "/users/me", headers)
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(BaseController.COMPACT_JSON))
+        .andExpect(jsonPath("$.data.id").value(user.getId()))
+        .andExpect(jsonPath("$.data.personalChallenges").doesNotExist())
+        .andExpect(jsonPath("$.status.code").value(Status.SUCCESS));
+  }
+
+  @Test
+  public void getProfile_newApiVersion_shouldReturnCompactJson() throws Exception {
+    HttpHeaders headers = new HttpHeaders();
+    headers.set(BaseController.API_VERSION_HEADER, "2.1.0");
+
+    httpClient.performGetRequest(user, "/users/me", headers)
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(BaseController.COMPACT_JSON))
+        .andExpect(jsonPath("$.data.personalChallenges").doesNotExist());
+  }
+
+  @Test
+  public void getProfile_newApiVersionAcceptingJson_shouldReturnJson() throws Exception {
+    HttpHeaders headers = new HttpHeaders();
+    headers.set(BaseController.API_VERSION_HEADER, "2.1.0");
+    headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
+
+    httpClient.performGetRequest(user, "/users/me", headers)
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+  }
+
+  @Test
+  public void getProfile_oldApiVersion_shouldReturnJson() throws Exception {
+    HttpHeaders headers = new HttpHeaders();
+    headers.set(BaseController.API_VERSION_HEADER, "1.3.0");
+
+    httpClient.performGetRequest(user, "/users/me", headers)
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath("$.data.personalChallenges").isEmpty());
+  }
+
+  @Test
+  public void getProfile_smileAccepted_shouldReturnSmile() throws Exception {
+    HttpHeaders headers = new HttpHeaders();
+    headers.set(HttpHeaders.ACCEPT, BaseController.SMILE_VALUE);
+
+    byte[] body = httpClient.performGetRequest(user, "/users/me", headers)
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(BaseController.SMILE_VALUE))
+        .andReturn().getResponse().getContentAsByteArray();
+
+    JsonNode response = new ObjectMapper(new SmileFactory()).readTree(body);
+    assertThat(response.get("data").get("id").asText(), is(user.getId()));
+    assertThat(response.get("status").get("code").asInt(), is(Status.SUCCESS));
+  }
+
+  @Test
+  public void compareVersions() {
+    assertThat(ApiVersionContentNegotiationStrategy.compareVersions("1.10", "1.3.0"), is(1));
+    assertThat(ApiVersionContentNegotiationStrategy.compareVersions("2.0", "2.0.0"), is(0));
+    assertThat(ApiVersionContentNegotiationStrategy.compareVersions("1.3.0", "2.0.0"), is(-1));
+  }
+}
@@ -1,6 +1,9 @@
 package com.azkar.controllers;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.azkar.TestBase;
@@ -12,11 +15,16 @@ import com.azkar.factories.entities.UserFactory;
 import com.azkar.payload.azkarcontroller.responses.GetAzkarResponse;
 import com.azkar.payload.azkarcontroller.responses.GetCategoriesResponse;
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import java.io.ByteArrayInputStream;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
 
 // TODO(issue/238): Remove GET /azkar test and rename this class
 public class AzkarControllerTest extends TestBase {
@@ -79,4 +87,61 @@ public class AzkarControllerTest extends TestBase {
         .andExpect(content().contentType(MediaType.APPLICATION_JSON))
         .andExpect(content().json(JsonHandler.toJson(expectedResponse)));
   }
+
+  @Test
+  public void getCategories_acceptsGzip_shouldReturnGzippedCategories() throws Exception {
+    User user = UserFactory.getNewUser();
+    addNewUser(user);
+    byte[] expectedJson = httpClient.performGetRequest(user, "/categories")
+        .andReturn().getResponse().getContentAsByteArray();
+    HttpHeaders headers = new HttpHeaders();
+    headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+
+    MockHttpServletResponse response = httpClient.performGetRequest(user, "/categories", headers)
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+        .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+        .andReturn().getResponse();
+
+    byte[] json = ByteStreams.toByteArray(
+        new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray())));
+    assertThat(json, is(expectedJson));
+  }
+
+  @Test
+  public void getCategories_rejectsGzip_shouldReturnUncompressedCategories() throws Exception {
+    User user = UserFactory.getNewUser();
+    addNewUser(user);
+    byte[] expectedJson = httpClient.performGetRequest(user, "/categories")
+        .andReturn().getResponse().getContentAsByteArray();
+    HttpHeaders headers = new HttpHeaders();
+    headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, *");
+
+    MockHttpServletResponse response = httpClient.performGetRequest(user, "/categories", headers)
+        .andExpect(status().isOk())
+        .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+        .andReturn().getResponse();
+
+    assertThat(response.getContentAsByteArray(), is(expectedJson));
+  }
+
+  @Test
+  public void getAzkar_unchangedAzkar_shouldReturnNotModified() throws Exception {
+    User user = UserFactory.getNewUser();
+    addNewUser(user);
+    MockHttpServletResponse response = httpClient.performGetRequest(user, "/azkar")
+        .andExpect(status().isOk())
+        .andExpect(header().exists(HttpHeaders.CACHE_CONTROL))
+        .andReturn().getResponse();
+    String eTag = response.getHeader(HttpHeaders.ETAG);
+
+    MockHttpServletResponse notModifiedResponse =
+        httpClient.performConditionalGetRequest(user, "/azkar", eTag)
+            .andExpect(status().isNotModified())
+            .andReturn().getResponse();
+
+    assertThat(notModifiedResponse.getContentAsByteArray().length, is(0));
+    assertThat(notModifiedResponse.getHeader(HttpHeaders.CACHE_CONTROL),
+        is(response.getHeader(HttpHeaders.CACHE_CONTROL)));
+  }
 }
@@ -0,0 +1,122 @@
+package com.azkar.controllers.authenticationcontroller;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.azkar.TestBase;
+import com.azkar.controllers.AuthenticationController;
+import com.azkar.controllers.utils.FacebookGraphStub;
+import com.azkar.controllers.utils.JsonHandler;
+import com.azkar.entities.User;
+import com.azkar.payload.ResponseBase.Status;
+import com.azkar.payload.authenticationcontroller.requests.FacebookAuthenticationRequest;
+import com.azkar.payload.authenticationcontroller.responses.FacebookAuthenticationResponse;
+import com.azkar.repos.UserRepo;
+import com.azkar.services.FacebookGraphService;
+import com.azkar.services.FacebookGraphService.BasicProfile;
+import java.util.UUID;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.ResultActions;
+
+public class LoginWithFacebookTest extends TestBase {
+
+  private static final String FACEBOOK_USER_ID = "facebookUserId";
+
+  @Autowired
+  FacebookGraphService facebookGraphService;
+  @Autowired
+  UserRepo userRepo;
+
+  private FacebookGraphStub facebookGraphStub;
+  private Object graphBaseUrl;
+  // Tokens are unique per test since verified tokens are cached by the shared service.
+  private String token;
+
+  @Before
+  public void before() throws Exception {
+    facebookGraphStub = new FacebookGraphStub();
+    graphBaseUrl = ReflectionTestUtils.getField(facebookGraphService, "graphBaseUrl");
+    ReflectionTestUtils.setField(facebookGraphService, "graphBaseUrl",
+        facebookGraphStub.getBaseUrl());
+
+    token = UUID.randomUUID().toString();
+    BasicProfile profile = new BasicProfile();
+    profile.setId(FACEBOOK_USER_ID);
+    profile.setFirstName("first");
+    profile.setLastName("last");
+    profile.setEmail("facebook_user@example.com");
+    facebookGraphStub.addProfile(token, profile);
+  }
+
+  @After
+  public void after() {
+    ReflectionTestUtils.setField(facebookGraphService, "graphBaseUrl", graphBaseUrl);
+    facebookGraphStub.stop();
+  }
+
+  @Test
+  public void loginWithFacebook_newUser_shouldRegisterUserAndReturnToken() throws Exception {
+    loginWithFacebook(token, FACEBOOK_USER_ID)
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.AUTHORIZATION, startsWith("Bearer ")))
+        .andExpect(content().json(JsonHandler.toJson(new FacebookAuthenticationResponse())));
+
+    User user = userRepo.findByUserFacebookData_UserId(FACEBOOK_USER_ID).get();
+    assertThat(user.getFirstName(), is("first"));
+    assertThat(user.getUserFacebookData().getAccessToken(), is(token));
+  }
+
+  @Test
+  public void loginWithFacebook_repeatedLogins_shouldLoadProfileOnce() throws Exception {
+    loginWithFacebook(token, FACEBOOK_USER_ID).andExpect(status().isOk());
+    loginWithFacebook(token, FACEBOOK_USER_ID).andExpect(status().isOk());
+
+    assertThat(facebookGraphStub.getRequestsCount(), is(1));
+  }
+
+  @Test
+  public void loginWithFacebook_tokenOfAnotherFacebookUser_shouldFail() throws Exception {
+    expectFacebookAuthenticationError(loginWithFacebook(token, "anotherFacebookUserId"));
+  }
+
+  @Test
+  public void loginWithFacebook_invalidToken_shouldFailAndNotBeCached() throws Exception {
+    String invalidToken = UUID.randomUUID().toString();
+
+    expectFacebookAuthenticationError(loginWithFacebook(invalidToken, FACEBOOK_USER_ID));
+    expectFacebookAuthenticationError(loginWithFacebook(invalidToken, FACEBOOK_USER_ID));
+
+    assertThat(facebookGraphStub.getRequestsCount(), is(2));
+  }
+
+  @Test
+  public void loginWithFacebook_graphApiSlowerThanReadTimeout_shouldFail() throws Exception {
+    // The read timeout is 500 milliseconds in the tests.
+    facebookGraphStub.setLatencyMillis(1000);
+
+    expectFacebookAuthenticationError(loginWithFacebook(token, FACEBOOK_USER_ID));
+  }
+
+  private ResultActions loginWithFacebook(String token, String facebookUserId) throws Exception {
+    return httpClient.performPutRequest(AuthenticationController.LOGIN_WITH_FACEBOOK_PATH,
+        JsonHandler.toJson(new FacebookAuthenticationRequest(token, facebookUserId)));
+  }
+
+  private static void expectFacebookAuthenticationError(ResultActions resultActions)
+      throws Exception {
+    FacebookAuthenticationResponse expectedResponse = new FacebookAuthenticationResponse();
+    expectedResponse.setStatus(new Status(Status.AUTHENTICATION_WITH_FACEBOOK_ERROR));
+    resultActions
+        .andExpect(status().isBadRequest())
+        .andExpect(content().json(JsonHandler.toJson(expectedResponse)));
+  }
+}
@@ -3,26 +3,32 @@ package com.azkar.controllers.challengecontroller;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.azkar.TestBase;
 import com.azkar.controllers.utils.JsonHandler;
 import com.azkar.entities.Challenge;
+import com.azkar.entities.Challenge.SubChallenge;
 import com.azkar.entities.Group;
 import com.azkar.entities.User;
+import com.azkar.entities.UserChallengeProgress;
 import com.azkar.factories.entities.ChallengeFactory;
 import com.azkar.factories.entities.GroupFactory;
 import com.azkar.factories.entities.UserFactory;
 import com.azkar.payload.ResponseBase.Status;
+import com.azkar.payload.challengecontroller.requests.UpdateChallengeRequest;
 import com.azkar.payload.challengecontroller.responses.DeleteChallengeResponse;
 import com.azkar.payload.challengecontroller.responses.GetChallengeResponse;
 import com.azkar.repos.GroupRepo;
 import com.azkar.repos.UserRepo;
+import com.google.common.collect.ImmutableList;
 import java.util.List;
 import org.junit.Before;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 
 public class ChallengeTest extends TestBase {
@@ -48,7 +54,7 @@ public class ChallengeTest extends TestBase {
     Challenge anotherChallenge = createGroupChallenge(user, group);
     DeleteChallengeResponse response = new DeleteChallengeResponse();
     response.setData(queriedChallenge);
-    List<Challenge> userChallenges = userRepo.findById(user.getId()).get().getUserChallenges();
+    List<Challenge> userChallenges = getUserChallenges(user);
     assertThat(userChallenges.size(), is(2));
 
     azkarApi.deleteChallenge(user, queriedChallenge.getId())
@@ -56,7 +62,7 @@ public class ChallengeTest extends TestBase {
         .andExpect(content().contentType(MediaType.APPLICATION_JSON))
         .andExpect(content().json(JsonHandler.toJson(response)));
 
-    userChallenges = userRepo.findById(user.getId()).get().getUserChallenges();
+    userChallenges = getUserChallenges(user);
     assertThat(userChallenges.size(), is(1));
     assertThat(userChallenges.get(0).getId(), equalTo(anotherChallenge.getId()));
   }
@@ -95,13 +101,15 @@ public class ChallengeTest extends TestBase {
     createGroupChallenge(user, group);
 
     // Change the user's copy of the challenge
-    User updatedUser1 = userRepo.findById(user.getId()).get();
-    updatedUser1.getUserChallenges().stream().forEach(
-        userChallenge -> userChallenge.getSubChallenges().stream().forEach(
-            subChallenge -> subChallenge.setRepetitions(subChallenge.getRepetitions() + 1)
-        )
+    List<UserChallengeProgress> userChallengesProgress =
+        userChallengeProgressRepo.findAllByUserIdOrderByIdDesc(user.getId());
+    userChallengesProgress.stream().forEach(
+        userChallengeProgress -> userChallengeProgress.getChallenge().getSubChallenges().stream()
+            .forEach(
+                subChallenge -> subChallenge.setRepetitions(subChallenge.getRepetitions() + 1)
+            )
     );
-    userRepo.save(updatedUser1);
+    userChallengeProgressRepo.saveAll(userChallengesProgress);
 
     GetChallengeResponse response = new GetChallengeResponse();
     response.setData(queriedChallenge);
@@ -173,6 +181,33 @@ public class ChallengeTest extends TestBase {
         .andExpect(content().json(JsonHandler.toJson(notFoundResponse)));
   }
 
+  @Test
+  public void getChallenges_unchangedChallenges_shouldReturnNotModified() throws Exception {
+    Challenge challenge = createGroupChallenge(user, group);
+    String eTag = azkarApi.getAllChallenges(user)
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+    azkarApi.getAllChallengesWithETag(user, eTag)
+        .andExpect(status().isNotModified())
+        .andExpect(content().string(""));
+
+    SubChallenge updatedSubChallenge = ChallengeFactory.subChallenge1().toBuilder()
+        .repetitions(ChallengeFactory.subChallenge1().getRepetitions() - 1)
+        .build();
+    Challenge updatedChallenge = challenge.toBuilder()
+        .subChallenges(ImmutableList.of(updatedSubChallenge, ChallengeFactory.subChallenge2()))
+        .build();
+    azkarApi.updateChallenge(user, challenge.getId(),
+        UpdateChallengeRequest.builder().newChallenge(updatedChallenge).build())
+        .andExpect(status().isOk());
+
+    String newETag = azkarApi.getAllChallengesWithETag(user, eTag)
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    assertThat(newETag, not(equalTo(eTag)));
+  }
+
   private Challenge createGroupChallenge(User user, Group group)
       throws Exception {
     Challenge challenge = ChallengeFactory.getNewChallenge(group.getId());
@@ -0,0 +1,167 @@
+package com.azkar.controllers.challengecontroller;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.azkar.TestBase;
+import com.azkar.controllers.utils.JsonHandler;
+import com.azkar.entities.Challenge;
+import com.azkar.entities.Group;
+import com.azkar.entities.User;
+import com.azkar.entities.UserChallengeProgress;
+import com.azkar.factories.entities.GroupFactory;
+import com.azkar.payload.ResponseBase.Status;
+import com.azkar.payload.challengecontroller.responses.GetChallengeResponse;
+import com.azkar.payload.challengecontroller.responses.GetChallengesResponse;
+import com.azkar.repos.GroupRepo;
+import com.azkar.repos.UserRepo;
+import com.azkar.services.ChallengesArchiveJob;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.web.servlet.ResultActions;
+
+public class ChallengesArchiveTest extends TestBase {
+
+  @Autowired
+  GroupRepo groupRepo;
+  @Autowired
+  UserRepo userRepo;
+  @Autowired
+  ChallengesArchiveJob challengesArchiveJob;
+
+  private User user;
+  private Group group;
+
+  @Before
+  public void before() {
+    user = getNewRegisteredUser();
+    group = GroupFactory.getNewGroup(user.getId());
+    groupRepo.save(group);
+  }
+
+  @Test
+  public void archiveJob_expiredGroupChallenge_shouldBeMovedToArchive() throws Exception {
+    Challenge activeChallenge = createGroupChallenge(user, group.getId());
+    Challenge expiredChallenge = createGroupChallenge(user, group.getId());
+    expireGroupChallenge(user, expiredChallenge);
+
+    challengesArchiveJob.archiveChallengesExpiredBefore(Instant.now().getEpochSecond());
+
+    assertThat(getIds(getUserChallenges(user)), contains(activeChallenge.getId()));
+    assertThat(groupRepo.findById(group.getId()).get().getChallengesIds(),
+        contains(activeChallenge.getId()));
+    assertThat(getIds(getArchivedChallenges(user, "").getData()),
+        contains(expiredChallenge.getId()));
+  }
+
+  @Test
+  public void archiveJob_expiredGroupChallenge_shouldStillBeReadable() throws Exception {
+    Challenge expiredChallenge = createGroupChallenge(user, group.getId());
+    expireGroupChallenge(user, expiredChallenge);
+    long groupVersion = groupRepo.findById(group.getId()).get().getVersion();
+
+    challengesArchiveJob.archiveChallengesExpiredBefore(Instant.now().getEpochSecond());
+
+    assertThat(groupRepo.findById(group.getId()).get().getVersion(), is(groupVersion + 1));
+    GetChallengeResponse userChallenge = getResponse(
+        azkarApi.getChallenge(user, expiredChallenge.getId()).andExpect(status().isOk()),
+        GetChallengeResponse.class);
+    GetChallengeResponse originalChallenge = getResponse(
+        azkarApi.getOriginalChallenge(user, expiredChallenge.getId()).andExpect(status().isOk()),
+        GetChallengeResponse.class);
+    assertThat(userChallenge.getData().getId(), is(expiredChallenge.getId()));
+    assertThat(originalChallenge.getData().getId(), is(expiredChallenge.getId()));
+  }
+
+  @Test
+  public void archiveJob_expiredPersonalChallenge_shouldBeMovedToArchive() throws Exception {
+    Challenge activeChallenge = createPersonalChallenge(user);
+    Challenge expiredChallenge = createPersonalChallenge(user);
+    User storedUser = userRepo.findById(user.getId()).get();
+    storedUser.getPersonalChallenges().stream()
+        .filter(challenge -> challenge.getId().equals(expiredChallenge.getId()))
+        .forEach(challenge -> challenge.setExpiryDate(Instant.now().getEpochSecond() - 1));
+    userRepo.save(storedUser);
+
+    challengesArchiveJob.archiveChallengesExpiredBefore(Instant.now().getEpochSecond());
+
+    assertThat(getIds(userRepo.findById(user.getId()).get().getPersonalChallenges()),
+        contains(activeChallenge.getId()));
+    assertThat(getIds(getArchivedChallenges(user, "").getData()),
+        contains(expiredChallenge.getId()));
+  }
+
+  @Test
+  public void archiveJob_interruptedBeforeDeletingCopies_shouldNotDuplicateArchivedChallenges()
+      throws Exception {
+    Challenge expiredChallenge = createGroupChallenge(user, group.getId());
+    expireGroupChallenge(user, expiredChallenge);
+    UserChallengeProgress expiredCopy = userChallengeProgressRepo
+        .findByUserIdAndChallengeId(user.getId(), expiredChallenge.getId()).get();
+    challengesArchiveJob.archiveChallengesExpiredBefore(Instant.now().getEpochSecond());
+    // The copy is back as if the previous run was interrupted after archiving it.
+    userChallengeProgressRepo.save(expiredCopy);
+
+    challengesArchiveJob.archiveChallengesExpiredBefore(Instant.now().getEpochSecond());
+
+    assertThat(getUserChallenges(user), is(empty()));
+    assertThat(getArchivedChallenges(user, "").getData(), hasSize(1));
+  }
+
+  @Test
+  public void getArchivedChallenges_limitAndBefore_returnsRequestedPage() throws Exception {
+    Challenge challenge1 = createGroupChallenge(user, group.getId());
+    Challenge challenge2 = createGroupChallenge(user, group.getId());
+    Challenge challenge3 = createGroupChallenge(user, group.getId());
+    expireGroupChallenge(user, challenge1);
+    expireGroupChallenge(user, challenge2);
+    expireGroupChallenge(user, challenge3);
+    challengesArchiveJob.archiveChallengesExpiredBefore(Instant.now().getEpochSecond());
+
+    List<Challenge> firstPage = getArchivedChallenges(user, "limit=2").getData();
+    List<Challenge> secondPage =
+        getArchivedChallenges(user, "limit=2&before=" + challenge2.getId()).getData();
+
+    assertThat(getIds(firstPage), contains(challenge3.getId(), challenge2.getId()));
+    assertThat(getIds(secondPage), contains(challenge1.getId()));
+  }
+
+  @Test
+  public void getArchivedChallenges_nonArchivedCursor_shouldFail() throws Exception {
+    Challenge activeChallenge = createGroupChallenge(user, group.getId());
+    GetChallengesResponse expectedResponse = new GetChallengesResponse();
+    expectedResponse.setStatus(new Status(Status.CHALLENGE_NOT_FOUND_ERROR));
+
+    azkarApi.getArchivedChallenges(user, "before=" + activeChallenge.getId())
+        .andExpect(status().isBadRequest())
+        .andExpect(content().json(JsonHandler.toJson(expectedResponse)));
+    assertThat(getArchivedChallenges(user, "").getData(), is(empty()));
+  }
+
+  private void expireGroupChallenge(User user, Challenge challenge) {
+    UserChallengeProgress userChallengeProgress = userChallengeProgressRepo
+        .findByUserIdAndChallengeId(user.getId(), challenge.getId()).get();
+    userChallengeProgress.getChallenge().setExpiryDate(Instant.now().getEpochSecond() - 1);
+    userChallengeProgressRepo.save(userChallengeProgress);
+  }
+
+  private GetChallengesResponse getArchivedChallenges(User user, String queryParameters)
+      throws Exception {
+    ResultActions resultActions =
+        azkarApi.getArchivedChallenges(user, queryParameters).andExpect(status().isOk());
+    return getResponse(resultActions, GetChallengesResponse.class);
+  }
+
+  private static List<String> getIds(List<Challenge> challenges) {
+    return challenges.stream().map(Challenge::getId).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,69 @@
+package com.azkar.controllers.challengecontroller;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.azkar.TestBase;
+import com.azkar.entities.Challenge;
+import com.azkar.entities.Challenge.SubChallenge;
+import com.azkar.entities.Group;
+import com.azkar.entities.User;
+import com.azkar.entities.UserChallengeProgress;
+import com.azkar.factories.entities.ChallengeFactory;
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.context.TestPropertySource;
+
+// The tests handle the domain events synchronously, so these tests make sure that what the group
+// members rely on doesn't depend on the events handlers when they run in the background.
+@TestPropertySource(properties = "app.domain-events.async=true")
+public class GroupChallengeAsyncEventsTest extends TestBase {
+
+  private User user1;
+  private User user2;
+  private Group group;
+
+  @Before
+  public void before() throws Exception {
+    user1 = getNewRegisteredUser();
+    user2 = getNewRegisteredUser();
+    azkarApi.makeFriends(user1, user2);
+    group = azkarApi.addGroupAndReturn(user1, "group");
+    azkarApi.addUserToGroup(/* invitingUser= */ user1, user2, group.getId())
+        .andExpect(status().isOk());
+  }
+
+  @Test
+  public void addChallenge_asyncDomainEvents_shouldCreateMembersCopiesBeforeResponding()
+      throws Exception {
+    Challenge challenge = createGroupChallenge(user1, group.getId());
+
+    assertThat(userChallengeProgressRepo
+        .findByUserIdAndChallengeId(user1.getId(), challenge.getId()).isPresent(), is(true));
+    assertThat(userChallengeProgressRepo
+        .findByUserIdAndChallengeId(user2.getId(), challenge.getId()).isPresent(), is(true));
+  }
+
+  @Test
+  public void upsertUserCopies_existingCopies_shouldKeepThem() throws Exception {
+    Challenge challenge = createGroupChallenge(user1, group.getId());
+    UserChallengeProgress progress = userChallengeProgressRepo
+        .findByUserIdAndChallengeId(user2.getId(), challenge.getId()).get();
+    List<SubChallenge> subChallenges = progress.getChallenge().getSubChallenges();
+    subChallenges.get(0).setRepetitions(0);
+    userChallengeProgressRepo.updateRepetitions(user2.getId(), challenge.getId(), subChallenges);
+
+    userChallengeProgressRepo.upsertUserCopies(ImmutableList.of(user1.getId(), user2.getId()),
+        ChallengeFactory.getNewChallenge(group.getId()).toBuilder()
+            .id(challenge.getId())
+            .build());
+
+    assertThat(userChallengeProgressRepo.count(), is(2L));
+    assertThat(userChallengeProgressRepo
+        .findByUserIdAndChallengeId(user2.getId(), challenge.getId()).get()
+        .getChallenge().getSubChallenges().get(0).getRepetitions(), is(0));
+  }
+}
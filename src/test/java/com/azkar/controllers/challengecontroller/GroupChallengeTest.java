@@ -1,5 +1,6 @@
 package com.azkar.controllers.challengecontroller;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.empty;
@@ -18,9 +19,14 @@ import com.azkar.controllers.utils.JsonHandler;
 import com.azkar.entities.Challenge;
 import com.azkar.entities.Challenge.SubChallenge;
 import com.azkar.entities.Group;
+import com.azkar.entities.PairScore;
 import com.azkar.entities.User;
 import com.azkar.entities.User.UserGroup;
+import com.azkar.entities.UserChallengeProgress;
+import com.azkar.entities.ScorePeriod;
 import com.azkar.entities.Zekr;
+import com.azkar.events.ChallengeCompletedEvent;
+import com.azkar.events.ChallengeEventsListener;
 import com.azkar.factories.entities.ChallengeFactory;
 import com.azkar.factories.entities.GroupFactory;
 import com.azkar.factories.entities.UserFactory;
@@ -29,6 +35,7 @@ import com.azkar.payload.challengecontroller.requests.AddFriendsChallengeRequest
 import com.azkar.payload.challengecontroller.responses.AddChallengeResponse;
 import com.azkar.payload.challengecontroller.responses.GetChallengesResponse;
 import com.azkar.repos.GroupRepo;
+import com.azkar.repos.PairScoreRepo;
 import com.azkar.repos.UserRepo;
 import com.google.common.collect.ImmutableList;
 import java.time.Instant;
@@ -36,7 +43,10 @@ import java.util.ArrayList;
 import java.util.List;
 import org.junit.Before;
 import org.junit.Test;
+import org.skyscreamer.jsonassert.JSONAssert;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 
@@ -49,6 +59,10 @@ public class GroupChallengeTest extends TestBase {
   GroupRepo groupRepo;
   @Autowired
   UserRepo userRepo;
+  @Autowired
+  PairScoreRepo pairScoreRepo;
+  @Autowired
+  ChallengeEventsListener challengeEventsListener;
 
   private User user1 = UserFactory.getNewUser();
   private Group validGroup = GroupFactory.getNewGroup(user1.getId());
@@ -79,17 +93,16 @@ public class GroupChallengeTest extends TestBase {
         .andExpect(status().isOk())
         .andExpect(content().json(JsonHandler.toJson(expectedResponse)));
 
-    List<Challenge> challengesProgress = userRepo.findById(user1.getId()).get()
-        .getUserChallenges();
+    List<Challenge> challengesProgress = getUserChallenges(user1);
     assertThat(challengesProgress.size(), is(1));
     List<String> groupChallenges = groupRepo.findById(validGroup.getId()).get().getChallengesIds();
     assertThat(groupChallenges.size(), is(1));
     User updatedUser1 = userRepo.findById(user1.getId()).get();
     User updatedAnotherGroupMember = userRepo.findById(anotherGroupMember.getId()).get();
     User updatedNonGroupMember = userRepo.findById(nonGroupMember.getId()).get();
-    assertThat(updatedUser1.getUserChallenges().size(), is(1));
-    assertThat(updatedAnotherGroupMember.getUserChallenges().size(), is(1));
-    assertThat(updatedNonGroupMember.getUserChallenges().size(), is(0));
+    assertThat(getUserChallenges(updatedUser1).size(), is(1));
+    assertThat(getUserChallenges(updatedAnotherGroupMember).size(), is(1));
+    assertThat(getUserChallenges(updatedNonGroupMember).size(), is(0));
   }
 
   @Test
@@ -146,18 +159,18 @@ public class GroupChallengeTest extends TestBase {
 
     assertThat(user1AddedGroup.getGroupName(), nullValue());
 
-    assertThat(updatedUser1.getUserChallenges().size(), is(1));
-    assertThat(updatedUser2.getUserChallenges().size(), is(1));
-    assertThat(updatedUser3.getUserChallenges().size(), is(1));
+    assertThat(getUserChallenges(updatedUser1).size(), is(1));
+    assertThat(getUserChallenges(updatedUser2).size(), is(1));
+    assertThat(getUserChallenges(updatedUser3).size(), is(1));
 
-    assertThat(updatedUser1.getUserChallenges().get(0).getGroupId(),
+    assertThat(getUserChallenges(updatedUser1).get(0).getGroupId(),
         equalTo(user1AddedGroup.getGroupId()));
-    assertThat(updatedUser2.getUserChallenges().get(0).getGroupId(),
+    assertThat(getUserChallenges(updatedUser2).get(0).getGroupId(),
         equalTo(user1AddedGroup.getGroupId()));
-    assertThat(updatedUser3.getUserChallenges().get(0).getGroupId(),
+    assertThat(getUserChallenges(updatedUser3).get(0).getGroupId(),
         equalTo(user1AddedGroup.getGroupId()));
 
-    assertThat(updatedUser1.getUserChallenges().get(0).getName(),
+    assertThat(getUserChallenges(updatedUser1).get(0).getName(),
         equalTo(challenge.getName()));
 
     Group updatedGroup = groupRepo.findById(user1AddedGroup.getGroupId()).get();
@@ -203,9 +216,9 @@ public class GroupChallengeTest extends TestBase {
     assertThat(updatedUser2.getUserGroups().size(), is(user2GroupsNumBefore));
     assertThat(updatedUser3.getUserGroups().size(), is(user3GroupsNumBefore));
 
-    assertThat(updatedUser1.getUserChallenges().size(), is(0));
-    assertThat(updatedUser2.getUserChallenges().size(), is(0));
-    assertThat(updatedUser3.getUserChallenges().size(), is(0));
+    assertThat(getUserChallenges(updatedUser1).size(), is(0));
+    assertThat(getUserChallenges(updatedUser2).size(), is(0));
+    assertThat(getUserChallenges(updatedUser3).size(), is(0));
   }
 
   @Test
@@ -241,8 +254,8 @@ public class GroupChallengeTest extends TestBase {
     assertThat(updatedUser1.getUserGroups().size(), is(user1GroupsNumBefore));
     assertThat(updatedUser2.getUserGroups().size(), is(user2GroupsNumBefore));
 
-    assertThat(updatedUser1.getUserChallenges().size(), is(0));
-    assertThat(updatedUser2.getUserChallenges().size(), is(0));
+    assertThat(getUserChallenges(updatedUser1).size(), is(0));
+    assertThat(getUserChallenges(updatedUser2).size(), is(0));
   }
 
   @Test
@@ -278,8 +291,8 @@ public class GroupChallengeTest extends TestBase {
     assertThat(updatedUser1.getUserGroups().size(), is(user1GroupsNumBefore));
     assertThat(updatedUser2.getUserGroups().size(), is(user2GroupsNumBefore));
 
-    assertThat(updatedUser1.getUserChallenges().size(), is(0));
-    assertThat(updatedUser2.getUserChallenges().size(), is(0));
+    assertThat(getUserChallenges(updatedUser1).size(), is(0));
+    assertThat(getUserChallenges(updatedUser2).size(), is(0));
   }
 
   @Test
@@ -296,8 +309,7 @@ public class GroupChallengeTest extends TestBase {
         .andExpect(status().isOk())
         .andExpect(content().json(JsonHandler.toJson(expectedResponse)));
 
-    List<Challenge> challengesProgress = userRepo.findById(user1.getId()).get()
-        .getUserChallenges();
+    List<Challenge> challengesProgress = getUserChallenges(user1);
     List<String> groupChallenges = groupRepo.findById(validGroup.getId()).get().getChallengesIds();
     assertThat(challengesProgress.size(), is(1));
     assertThat(groupChallenges.size(), is(1));
@@ -323,8 +335,7 @@ public class GroupChallengeTest extends TestBase {
         .andExpect(status().isBadRequest())
         .andExpect(content().json(JsonHandler.toJson(expectedResponse)));
 
-    List<Challenge> challengesProgress = userRepo.findById(user1.getId()).get()
-        .getUserChallenges();
+    List<Challenge> challengesProgress = getUserChallenges(user1);
     assertTrue("Challenges progress list is not empty.", challengesProgress.isEmpty());
   }
 
@@ -351,8 +362,7 @@ public class GroupChallengeTest extends TestBase {
         .andExpect(status().isBadRequest())
         .andExpect(content().json(JsonHandler.toJson(expectedResponse)));
 
-    List<Challenge> challengesProgress = userRepo.findById(user1.getId()).get()
-        .getUserChallenges();
+    List<Challenge> challengesProgress = getUserChallenges(user1);
     assertTrue("Challenges progress list is not empty.", challengesProgress.isEmpty());
   }
 
@@ -366,8 +376,7 @@ public class GroupChallengeTest extends TestBase {
         .andExpect(status().isBadRequest())
         .andExpect(content().json(JsonHandler.toJson(expectedResponse)));
 
-    List<Challenge> challengesProgress = userRepo.findById(user1.getId()).get()
-        .getUserChallenges();
+    List<Challenge> challengesProgress = getUserChallenges(user1);
     assertTrue("UserChallenges list is not empty.", challengesProgress.isEmpty());
   }
 
@@ -383,9 +392,7 @@ public class GroupChallengeTest extends TestBase {
         .andExpect(status().isForbidden())
         .andExpect(content().json(JsonHandler.toJson(expectedResponse)));
 
-    List<Challenge> userChallenges = userRepo.findById(nonGroupMember.getId())
-        .get()
-        .getUserChallenges();
+    List<Challenge> userChallenges = getUserChallenges(nonGroupMember);
     assertThat(userChallenges, empty());
     List<String> groupChallenges = groupRepo.findById(validGroup.getId()).get().getChallengesIds();
     assertThat(groupChallenges, empty());
@@ -408,8 +415,7 @@ public class GroupChallengeTest extends TestBase {
         .andExpect(status().isOk())
         .andExpect(content().json(JsonHandler.toJson(expectedResponse)));
 
-    List<Challenge> challengesProgress = userRepo.findById(user1.getId()).get()
-        .getUserChallenges();
+    List<Challenge> challengesProgress = getUserChallenges(user1);
     List<String> groupChallenges = groupRepo.findById(validGroup.getId()).get().getChallengesIds();
     assertThat(challengesProgress.size(), is(1));
     assertThat(groupChallenges.size(), is(1));
@@ -433,8 +439,7 @@ public class GroupChallengeTest extends TestBase {
         .andExpect(status().isBadRequest())
         .andExpect(content().json(JsonHandler.toJson(expectedResponse)));
 
-    List<Challenge> challengesProgress = userRepo.findById(user1.getId()).get()
-        .getUserChallenges();
+    List<Challenge> challengesProgress = getUserChallenges(user1);
     assertTrue("UserChallenges list is not empty.", challengesProgress.isEmpty());
     List<String> groupChallenges = groupRepo.findById(validGroup.getId()).get().getChallengesIds();
     assertTrue("GroupChallenges list is expected to be empty but it is not.",
@@ -467,6 +472,67 @@ public class GroupChallengeTest extends TestBase {
   }
 
 
+  @Test
+  public void getChallenges_paged_shouldReturnRequestedPages() throws Exception {
+    Challenge challenge1 = createGroupChallenge(user1, validGroup.getId());
+    Challenge challenge2 = createGroupChallenge(user1, validGroup.getId());
+    Challenge challenge3 = createGroupChallenge(user1, validGroup.getId());
+
+    List<Challenge> firstPage = getUserAllChallenges(user1, "limit=1").getData();
+    assertThat(firstPage, hasSize(1));
+    assertThat(firstPage.get(0).getId(), equalTo(challenge3.getId()));
+
+    List<Challenge> olderPage =
+        getUserAllChallenges(user1, "limit=2&before=" + challenge3.getId()).getData();
+    assertThat(olderPage, hasSize(2));
+    assertThat(olderPage.get(0).getId(), equalTo(challenge2.getId()));
+    assertThat(olderPage.get(1).getId(), equalTo(challenge1.getId()));
+
+    List<Challenge> newerPage =
+        getUserAllChallenges(user1, "limit=1&after=" + challenge1.getId()).getData();
+    assertThat(newerPage, hasSize(1));
+    assertThat(newerPage.get(0).getId(), equalTo(challenge2.getId()));
+  }
+
+  @Test
+  public void getChallenges_expiredFilter_shouldOnlyReturnExpiredChallenges() throws Exception {
+    Challenge activeChallenge = createGroupChallenge(user1, validGroup.getId());
+    Challenge expiredChallenge = createGroupChallenge(user1, validGroup.getId());
+    UserChallengeProgress expiredChallengeProgress = userChallengeProgressRepo
+        .findByUserIdAndChallengeId(user1.getId(), expiredChallenge.getId()).get();
+    expiredChallengeProgress.getChallenge().setExpiryDate(Instant.now().getEpochSecond() - 1);
+    userChallengeProgressRepo.save(expiredChallengeProgress);
+
+    List<Challenge> expiredChallenges = getUserAllChallenges(user1, "filter=expired").getData();
+    List<Challenge> activeChallenges = getUserAllChallenges(user1, "filter=active").getData();
+
+    assertThat(expiredChallenges, hasSize(1));
+    assertThat(expiredChallenges.get(0).getId(), equalTo(expiredChallenge.getId()));
+    assertThat(activeChallenges, hasSize(1));
+    assertThat(activeChallenges.get(0).getId(), equalTo(activeChallenge.getId()));
+  }
+
+  @Test
+  public void getChallenges_invalidParameters_shouldFail() throws Exception {
+    createGroupChallenge(user1, validGroup.getId());
+    GetChallengesResponse invalidFilterResponse = new GetChallengesResponse();
+    invalidFilterResponse.setStatus(new Status(Status.INVALID_CHALLENGES_FILTER_ERROR));
+    GetChallengesResponse invalidLimitResponse = new GetChallengesResponse();
+    invalidLimitResponse.setStatus(new Status(Status.INVALID_PAGINATION_PARAMETERS_ERROR));
+    GetChallengesResponse invalidCursorResponse = new GetChallengesResponse();
+    invalidCursorResponse.setStatus(new Status(Status.CHALLENGE_NOT_FOUND_ERROR));
+
+    azkarApi.getAllChallenges(user1, "filter=unknown")
+        .andExpect(status().isBadRequest())
+        .andExpect(content().json(JsonHandler.toJson(invalidFilterResponse)));
+    azkarApi.getAllChallenges(user1, "limit=0")
+        .andExpect(status().isBadRequest())
+        .andExpect(content().json(JsonHandler.toJson(invalidLimitResponse)));
+    azkarApi.getAllChallenges(user1, "before=nonExistingChallengeId")
+        .andExpect(status().isBadRequest())
+        .andExpect(content().json(JsonHandler.toJson(invalidCursorResponse)));
+  }
+
   @Test
   public void getGroupChallenges_invalidGroup_shouldFail() throws Exception {
     GetChallengesResponse expectedResponse = new GetChallengesResponse();
@@ -503,6 +569,57 @@ public class GroupChallengeTest extends TestBase {
     assertThat(anotherGroupAllChallenges.getData(), empty());
   }
 
+  @Test
+  public void getAllChallenges_streamed_shouldReturnSameChallenges() throws Exception {
+    for (int i = 0; i < 3; i++) {
+      addNewValidChallenge(user1, /* challengeNamePrefix= */"", validGroup.getId())
+          .andExpect(status().isOk());
+    }
+    String oldestChallengeId = getUserAllChallenges(user1).getData().get(2).getId();
+
+    List<String> queriesParameters = ImmutableList.of("limit=2", "filter=active",
+        "after=" + oldestChallengeId, "after=" + oldestChallengeId + "&limit=1");
+    for (String queryParameters : queriesParameters) {
+      String response = azkarApi.getAllChallenges(user1, queryParameters)
+          .andExpect(status().isOk())
+          .andReturn().getResponse().getContentAsString(UTF_8);
+      MockHttpServletResponse streamedResponse =
+          azkarApi.getAllChallengesStreamed(user1, queryParameters);
+
+      assertThat(streamedResponse.getStatus(), is(HttpStatus.OK.value()));
+      JSONAssert.assertEquals(response, streamedResponse.getContentAsString(UTF_8),
+          /* strict= */ true);
+    }
+  }
+
+  @Test
+  public void onChallengeCompleted_memberJoinedAfterCompletion_shouldNotIncrementPairTwice()
+      throws Exception {
+    User user2 = getNewRegisteredUser();
+    User user3 = getNewRegisteredUser();
+    azkarApi.makeFriends(user1, user2);
+    azkarApi.makeFriends(user1, user3);
+    Group group = azkarApi.addGroupAndReturn(user1, "group");
+    azkarApi.addUserToGroup(user1, user2, group.getId()).andExpect(status().isOk());
+    Challenge challenge = ChallengeFactory.getNewChallenge(group.getId());
+
+    // The request increments the score and snapshots the members, then user3 joins before the
+    // event is handled.
+    userRepo.incrementUserGroupScore(user1.getId(), group.getId());
+    List<String> groupMembersIds = groupRepo.findById(group.getId()).get().getUsersIds();
+    azkarApi.addUserToGroup(user1, user3, group.getId()).andExpect(status().isOk());
+    challengeEventsListener.onChallengeCompleted(
+        new ChallengeCompletedEvent(challenge, user1, groupMembersIds));
+
+    assertThat(getPairScore(user1, user2), is(1));
+    assertThat(getPairScore(user1, user3), is(1));
+  }
+
+  private int getPairScore(User user, User otherUser) {
+    PairScore pairScore = pairScoreRepo.findByUsers(user.getId(), otherUser.getId()).get();
+    return pairScore.getScoreOf(user.getId(), ScorePeriod.ALL_TIME);
+  }
+
   private GetChallengesResponse getAllChallengesInGroup(User user, String groupId)
       throws Exception {
     ResultActions resultActions = azkarApi.getAllChallengesInGroup(user, groupId)
@@ -515,6 +632,13 @@ public class GroupChallengeTest extends TestBase {
     return getResponse(resultActions, GetChallengesResponse.class);
   }
 
+  private GetChallengesResponse getUserAllChallenges(User user, String queryParameters)
+      throws Exception {
+    ResultActions resultActions =
+        azkarApi.getAllChallenges(user, queryParameters).andExpect(status().isOk());
+    return getResponse(resultActions, GetChallengesResponse.class);
+  }
+
   private ResultActions addNewValidChallenge(User creatingUser, String challengeNamePrefix,
       String groupId)
       throws Exception {
@@ -1,5 +1,6 @@
 package com.azkar.controllers.challengecontroller;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
@@ -9,6 +10,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.azkar.TestBase;
+import com.azkar.configs.AzkarCacher;
 import com.azkar.controllers.utils.JsonHandler;
 import com.azkar.entities.Challenge;
 import com.azkar.entities.Challenge.SubChallenge;
@@ -29,6 +31,7 @@ import com.google.common.collect.ImmutableList;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import org.bson.Document;
 import org.junit.Before;
 import org.junit.Test;
 import org.skyscreamer.jsonassert.JSONAssert;
@@ -51,6 +54,9 @@ public class PersonalChallengeTest extends TestBase {
   @Autowired
   ChallengeRepo challengeRepo;
 
+  @Autowired
+  AzkarCacher azkarCacher;
+
   public static AddPersonalChallengeRequest createPersonalChallengeRequest(long expiryDate) {
     return createPersonalChallengeRequest(CHALLENGE_NAME, expiryDate);
   }
@@ -97,6 +103,55 @@ public class PersonalChallengeTest extends TestBase {
         false);
   }
 
+  @Test
+  public void addPersonalChallenge_zekrText_shouldBeFilledFromCatalogAndNotStored()
+      throws Exception {
+    long expiryDate = Instant.now().getEpochSecond() + DATE_OFFSET_IN_SECONDS;
+    AddPersonalChallengeRequest requestBody = createPersonalChallengeRequest(expiryDate);
+    requestBody.getChallenge().setSubChallenges(ImmutableList.of(SubChallenge.builder()
+        .zekr(Zekr.builder().id(1).zekr("text sent by the client").build())
+        .repetitions(3)
+        .build()));
+
+    MvcResult result = azkarApi.addPersonalChallenge(USER, requestBody)
+        .andExpect(status().isOk())
+        .andReturn();
+
+    Challenge challenge = JsonHandler.fromJson(result.getResponse().getContentAsString(UTF_8),
+        AddPersonalChallengeResponse.class).getData();
+    assertThat(challenge.getSubChallenges().get(0).getZekr().getZekr(),
+        equalTo(azkarCacher.getAzkarById().get(1).getZekr()));
+    Document storedZekr = mongoTemplate.findById(challenge.getId(), Document.class,
+        mongoTemplate.getCollectionName(Challenge.class))
+        .getList("subChallenges", Document.class).get(0).get("zekr", Document.class);
+    assertThat(storedZekr.containsKey("zekr"), is(false));
+    assertThat(storedZekr.get("_id"), equalTo(1));
+  }
+
+  @Test
+  public void addPersonalChallenge_zekrNotInCatalog_shouldStoreAndReturnItsText()
+      throws Exception {
+    int zekrIdNotInCatalog = 1000;
+    long expiryDate = Instant.now().getEpochSecond() + DATE_OFFSET_IN_SECONDS;
+    AddPersonalChallengeRequest requestBody = createPersonalChallengeRequest(expiryDate);
+    requestBody.getChallenge().setSubChallenges(ImmutableList.of(SubChallenge.builder()
+        .zekr(Zekr.builder().id(zekrIdNotInCatalog).zekr("text sent by the client").build())
+        .repetitions(3)
+        .build()));
+
+    MvcResult result = azkarApi.addPersonalChallenge(USER, requestBody)
+        .andExpect(status().isOk())
+        .andReturn();
+
+    Challenge challenge = JsonHandler.fromJson(result.getResponse().getContentAsString(UTF_8),
+        AddPersonalChallengeResponse.class).getData();
+    assertThat(challenge.getSubChallenges().get(0).getZekr().getZekr(),
+        equalTo("text sent by the client"));
+    Challenge storedChallenge = challengeRepo.findById(challenge.getId()).get();
+    assertThat(storedChallenge.getSubChallenges().get(0).getZekr().getZekr(),
+        equalTo("text sent by the client"));
+  }
+
   @Test
   public void addChallenge_duplicateZekr_shouldNotSucceed() throws Exception {
     long expiryDate = Instant.now().getEpochSecond() + ChallengeFactory.EXPIRY_DATE_OFFSET;
@@ -195,6 +250,31 @@ public class PersonalChallengeTest extends TestBase {
     assertUserChallengeConsistentWithRequest(data.get(1), request1);
   }
 
+  @Test
+  public void getPersonalChallenge_paged_shouldReturnRequestedPage() throws Exception {
+    long expiryDate = Instant.now().getEpochSecond() + ChallengeFactory.EXPIRY_DATE_OFFSET;
+    AddPersonalChallengeRequest request1 = PersonalChallengeTest
+        .createPersonalChallengeRequest("challenge_1", expiryDate);
+    AddPersonalChallengeRequest request2 = PersonalChallengeTest
+        .createPersonalChallengeRequest("challenge_2", expiryDate);
+    AddPersonalChallengeRequest request3 = PersonalChallengeTest
+        .createPersonalChallengeRequest("challenge_3", expiryDate);
+
+    createPersonalChallenge(USER, request1);
+    createPersonalChallenge(USER, request2);
+    Challenge challenge3 = createPersonalChallenge(USER, request3);
+
+    String response = azkarApi
+        .getPersonalChallenges(USER, "limit=1&before=" + challenge3.getId())
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+
+    List<Challenge> data = JsonHandler.fromJson(response, GetChallengesResponse.class)
+        .getData();
+    assertThat(data, hasSize(1));
+    assertUserChallengeConsistentWithRequest(data.get(0), request2);
+  }
+
   @Test
   public void getOriginalChallenge_normalScenario_shouldSucceed() throws Exception {
     Challenge queriedChallenge = createPersonalChallenge(USER);
@@ -138,6 +138,29 @@ public class UpdateGroupChallengeTest extends UpdateChallengeTestBase {
     assertThat(userGroup.getTotalScore(), is(0));
   }
 
+  @Test
+  public void updateChallenge_multipleChallenges_shouldOnlyUpdateRequestedChallenge()
+      throws Exception {
+    Challenge challenge1 = createGroupChallenge(user, group.getId());
+    Challenge challenge2 = createGroupChallenge(user, group.getId());
+    challenge1.getSubChallenges().get(0).setRepetitions(NEW_SUB_CHALLENGE_1_LEFT_REPETITIONS);
+    UpdateChallengeRequest requestBody = createUpdateChallengeRequest(challenge1);
+
+    updateChallenge(user, challenge1.getId(), requestBody)
+        .andExpect(status().isOk());
+
+    Challenge updatedChallenge1 = azkarApi.getChallengeAndReturn(user, challenge1.getId());
+    Challenge updatedChallenge2 = azkarApi.getChallengeAndReturn(user, challenge2.getId());
+    assertThat(updatedChallenge1.getSubChallenges().get(0).getRepetitions(),
+        is(NEW_SUB_CHALLENGE_1_LEFT_REPETITIONS));
+    assertThat(updatedChallenge1.getSubChallenges().get(1).getRepetitions(),
+        is(OLD_SUB_CHALLENGE_2_LEFT_REPETITIONS));
+    assertThat(updatedChallenge2.getSubChallenges().get(0).getRepetitions(),
+        is(OLD_SUB_CHALLENGE_1_LEFT_REPETITIONS));
+    assertThat(updatedChallenge2.getSubChallenges().get(1).getRepetitions(),
+        is(OLD_SUB_CHALLENGE_2_LEFT_REPETITIONS));
+  }
+
   @Override
   protected ResultActions updateChallenge(User user, String challengeId,
       UpdateChallengeRequest requestBody) throws Exception {
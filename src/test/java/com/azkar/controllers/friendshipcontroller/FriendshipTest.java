@@ -2,19 +2,23 @@ package com.azkar.controllers.friendshipcontroller;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.azkar.TestBase;
+import com.azkar.controllers.BaseController;
 import com.azkar.controllers.utils.AzkarApi;
 import com.azkar.controllers.utils.JsonHandler;
 import com.azkar.entities.Challenge;
 import com.azkar.entities.Friendship;
 import com.azkar.entities.Friendship.Friend;
 import com.azkar.entities.Group;
+import com.azkar.entities.PairScore;
 import com.azkar.entities.User;
+import com.azkar.entities.User.UserGroup;
 import com.azkar.factories.entities.ChallengeFactory;
 import com.azkar.factories.entities.UserFactory;
 import com.azkar.payload.ResponseBase.Status;
@@ -32,14 +36,24 @@ import com.azkar.repos.GroupRepo;
 import com.azkar.repos.UserRepo;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterators;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import org.bson.Document;
 import org.junit.Before;
 import org.junit.Test;
+import org.skyscreamer.jsonassert.JSONAssert;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.web.servlet.MvcResult;
 
 public class FriendshipTest extends TestBase {
@@ -68,6 +82,9 @@ public class FriendshipTest extends TestBase {
   @Autowired
   AzkarApi azkarApi;
 
+  @Autowired
+  MeterRegistry meterRegistry;
+
   @Before
   public void before() {
     addNewUser(USER1);
@@ -77,6 +94,62 @@ public class FriendshipTest extends TestBase {
     addNewUser(USER5);
   }
 
+  @Test
+  public void getFriends_unchangedFriends_shouldReturnNotModified() throws Exception {
+    User user1 = getNewRegisteredUser();
+    User user2 = getNewRegisteredUser();
+    String eTag = azkarApi.getFriends(user1)
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+    azkarApi.getFriends(user1, eTag)
+        .andExpect(status().isNotModified())
+        .andExpect(content().string(""));
+
+    azkarApi.makeFriends(user1, user2);
+
+    String newETag = azkarApi.getFriends(user1, eTag)
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    assertThat(newETag, not(equalTo(eTag)));
+  }
+
+  @Test
+  public void getFriends_otherRepresentations_shouldNotShareETags() throws Exception {
+    User user = getNewRegisteredUser();
+    String eTag = azkarApi.getFriends(user)
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+    HttpHeaders smileHeaders = new HttpHeaders();
+    smileHeaders.set(HttpHeaders.ACCEPT, BaseController.SMILE_VALUE);
+    smileHeaders.setIfNoneMatch(eTag);
+    String smileETag = httpClient.performGetRequest(user, "/friends", smileHeaders)
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    MockHttpServletResponse streamedResponse =
+        httpClient.performStreamedGetRequest(user, "/friends?stream=true");
+
+    assertThat(smileETag, not(equalTo(eTag)));
+    assertThat(streamedResponse.getHeader(HttpHeaders.ETAG), not(equalTo(eTag)));
+  }
+
+  @Test
+  public void getFriends_streamed_shouldReturnSameFriends() throws Exception {
+    User user1 = getNewRegisteredUser();
+    azkarApi.makeFriends(user1, getNewRegisteredUser());
+    azkarApi.makeFriends(user1, getNewRegisteredUser());
+    azkarApi.sendFriendRequest(user1, getNewRegisteredUser());
+
+    String response = azkarApi.getFriends(user1)
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+    MockHttpServletResponse streamedResponse = azkarApi.getFriendsStreamed(user1);
+
+    assertThat(streamedResponse.getStatus(), is(HttpStatus.OK.value()));
+    JSONAssert.assertEquals(response, streamedResponse.getContentAsString(), /* strict= */ true);
+  }
+
   @Test
   public void addFriend_normalScenario_shouldSucceed() throws Exception {
     AddFriendResponse expectedResponse = new AddFriendResponse();
@@ -500,6 +573,159 @@ public class FriendshipTest extends TestBase {
         .andExpect(content().json(JsonHandler.toJson(expectedResponse)));
   }
 
+  @Test
+  public void getFriendsLeaderboard_friendLeftSharedGroup_shouldNotCountGroupScores()
+      throws Exception {
+    User user1 = getNewRegisteredUser();
+    User user2 = getNewRegisteredUser();
+    azkarApi.makeFriends(user1, user2);
+    String friendshipGroupId = getFriendshipGroupId(user1, user2);
+
+    // Members = [user1, user2]
+    Group group = azkarApi.addGroupAndReturn(user1, "group");
+    azkarApi.addUserToGroup(/*invitingUser=*/user1, user2, group.getId());
+
+    Challenge challenge = createChallengeInGroup(user1, group.getId());
+    finishChallenge(user1, challenge.getId());
+    finishChallenge(user2, challenge.getId());
+    challenge = createChallengeInGroup(user1, friendshipGroupId);
+    finishChallenge(user1, challenge.getId());
+    // Friends Scores Now:
+    // [user1, user2] = [2, 1]
+
+    azkarApi.leaveGroup(user2, group.getId()).andExpect(status().isOk());
+    // Friends Scores Now:
+    // [user1, user2] = [1, 0]
+
+    GetFriendsLeaderboardResponse expectedResponse = new GetFriendsLeaderboardResponse();
+    expectedResponse.setData(ImmutableList.of(
+        FriendshipScores.builder()
+            .currentUserScore(1)
+            .friendScore(0)
+            .friend(Friend.builder().userId(user2.getId()).groupId(friendshipGroupId).build())
+            .build()));
+    azkarApi.getFriendsLeaderboard(user1)
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+        .andExpect(content().json(JsonHandler.toJson(expectedResponse)));
+  }
+
+  @Test
+  public void getFriendsLeaderboard_monthPeriod_shouldOnlyCountScoresOfCurrentMonth()
+      throws Exception {
+    User user1 = getNewRegisteredUser();
+    User user2 = getNewRegisteredUser();
+    azkarApi.makeFriends(user1, user2);
+    String friendshipGroupId = getFriendshipGroupId(user1, user2);
+
+    Challenge challenge = createChallengeInGroup(user1, friendshipGroupId);
+    finishChallenge(user1, challenge.getId());
+    moveMonthScoresToPreviousMonth();
+    challenge = createChallengeInGroup(user1, friendshipGroupId);
+    finishChallenge(user2, challenge.getId());
+    // Friends Scores Now:
+    // All time: [user1, user2] = [1, 1]
+    // Month: [user1, user2] = [0, 1]
+
+    UserGroup user1Group = userRepo.findById(user1.getId()).get().getUserGroups().get(0);
+    assertThat(user1Group.getTotalScore(), is(1));
+    assertThat(user1Group.getMonthScore(), is(0));
+    assertThat(user1Group.getWeekScore(), is(1));
+
+    GetFriendsLeaderboardResponse expectedResponse = new GetFriendsLeaderboardResponse();
+    expectedResponse.setData(ImmutableList.of(
+        FriendshipScores.builder()
+            .currentUserScore(0)
+            .friendScore(1)
+            .friend(Friend.builder().userId(user2.getId()).groupId(friendshipGroupId).build())
+            .build()));
+    azkarApi.getFriendsLeaderboard(user1, "period=month")
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+        .andExpect(content().json(JsonHandler.toJson(expectedResponse)));
+
+    expectedResponse.setData(ImmutableList.of(
+        FriendshipScores.builder()
+            .currentUserScore(1)
+            .friendScore(1)
+            .friend(Friend.builder().userId(user2.getId()).groupId(friendshipGroupId).build())
+            .build()));
+    azkarApi.getFriendsLeaderboard(user1, "period=all_time")
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+        .andExpect(content().json(JsonHandler.toJson(expectedResponse)));
+  }
+
+  @Test
+  public void getFriendsLeaderboard_cachedLeaderboard_shouldBeInvalidatedOnFinishedChallenge()
+      throws Exception {
+    User user1 = getNewRegisteredUser();
+    User user2 = getNewRegisteredUser();
+    azkarApi.makeFriends(user1, user2);
+    String friendshipGroupId = getFriendshipGroupId(user1, user2);
+    Challenge challenge = createChallengeInGroup(user1, friendshipGroupId);
+
+    GetFriendsLeaderboardResponse expectedResponse = new GetFriendsLeaderboardResponse();
+    expectedResponse.setData(ImmutableList.of(
+        FriendshipScores.builder()
+            .currentUserScore(0)
+            .friendScore(0)
+            .friend(Friend.builder().userId(user2.getId()).groupId(friendshipGroupId).build())
+            .build()));
+    double cacheHitsBefore = getFriendsLeaderboardsCacheHits();
+    azkarApi.getFriendsLeaderboard(user1)
+        .andExpect(status().isOk())
+        .andExpect(content().json(JsonHandler.toJson(expectedResponse)));
+    azkarApi.getFriendsLeaderboard(user1)
+        .andExpect(status().isOk())
+        .andExpect(content().json(JsonHandler.toJson(expectedResponse)));
+    assertThat(getFriendsLeaderboardsCacheHits(), is(cacheHitsBefore + 1));
+
+    finishChallenge(user2, challenge.getId());
+
+    expectedResponse.setData(ImmutableList.of(
+        FriendshipScores.builder()
+            .currentUserScore(0)
+            .friendScore(1)
+            .friend(Friend.builder().userId(user2.getId()).groupId(friendshipGroupId).build())
+            .build()));
+    azkarApi.getFriendsLeaderboard(user1)
+        .andExpect(status().isOk())
+        .andExpect(content().json(JsonHandler.toJson(expectedResponse)));
+  }
+
+  @Test
+  public void getFriendsLeaderboard_invalidPeriod_shouldFail() throws Exception {
+    User user = getNewRegisteredUser();
+
+    GetFriendsLeaderboardResponse expectedResponse = new GetFriendsLeaderboardResponse();
+    expectedResponse.setStatus(new Status(Status.INVALID_SCORE_PERIOD_ERROR));
+    azkarApi.getFriendsLeaderboard(user, "period=year")
+        .andExpect(status().isBadRequest())
+        .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+        .andExpect(content().json(JsonHandler.toJson(expectedResponse)));
+  }
+
+  @Test
+  public void getFriendsLeaderboard_invalidOffset_shouldFail() throws Exception {
+    User user = getNewRegisteredUser();
+
+    GetFriendsLeaderboardResponse expectedResponse = new GetFriendsLeaderboardResponse();
+    expectedResponse.setStatus(new Status(Status.INVALID_PAGINATION_PARAMETERS_ERROR));
+    azkarApi.getFriendsLeaderboard(user, "offset=-1")
+        .andExpect(status().isBadRequest())
+        .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+        .andExpect(content().json(JsonHandler.toJson(expectedResponse)));
+  }
+
+  private double getFriendsLeaderboardsCacheHits() {
+    return meterRegistry.get("cache.gets")
+        .tag("cache", "leaderboards.friends")
+        .tag("result", "hit")
+        .functionCounter()
+        .count();
+  }
+
   private UserScore buildUserScoreTemplateForUser(User user) {
     return UserScore.builder()
         .firstName(user.getFirstName())
@@ -563,4 +789,15 @@ public class FriendshipTest extends TestBase {
     assertThat(friend.getUsername(), equalTo(user.getUsername()));
     assertThat(friend.isPending(), is(isPending));
   }
+
+  // Moves all of the monthly scores written so far to the previous month, as if it has just ended.
+  private void moveMonthScoresToPreviousMonth() {
+    long previousMonthStart = LocalDate.now(ZoneOffset.UTC).minusMonths(1).withDayOfMonth(1)
+        .atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+    mongoTemplate.getCollection(mongoTemplate.getCollectionName(User.class)).updateMany(
+        new Document("userGroups.0", new Document("$exists", true)),
+        new Document("$set", new Document("userGroups.$[].monthStart", previousMonthStart)));
+    mongoTemplate.updateMulti(new Query(), new Update().set("monthStart", previousMonthStart),
+        PairScore.class);
+  }
 }
@@ -1,7 +1,9 @@
 package com.azkar.controllers.groupcontroller;
 
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -9,6 +11,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import com.azkar.TestBase;
 import com.azkar.controllers.utils.JsonHandler;
 import com.azkar.entities.Group;
+import com.azkar.entities.ScorePeriod;
 import com.azkar.entities.User;
 import com.azkar.entities.User.UserGroup;
 import com.azkar.factories.entities.GroupFactory;
@@ -24,15 +27,24 @@ import com.azkar.payload.groupcontroller.responses.LeaveGroupResponse;
 import com.azkar.payload.utils.UserScore;
 import com.azkar.repos.FriendshipRepo;
 import com.azkar.repos.GroupRepo;
+import com.azkar.repos.PairScoreRepo;
 import com.azkar.repos.UserRepo;
 import com.google.common.collect.ImmutableList;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
+import org.bson.Document;
 import org.junit.Before;
 import org.junit.Test;
+import org.skyscreamer.jsonassert.JSONAssert;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 
@@ -47,6 +59,12 @@ public class GroupControllerTest extends TestBase {
   @Autowired
   FriendshipRepo friendshipRepo;
 
+  @Autowired
+  PairScoreRepo pairScoreRepo;
+
+  @Autowired
+  MeterRegistry meterRegistry;
+
   private User user1 = UserFactory.getNewUser();
   private User user2 = UserFactory.getNewUser();
   private User user3 = UserFactory.getNewUser();
@@ -107,6 +125,18 @@ public class GroupControllerTest extends TestBase {
     assertThat(updatedGroup.getUsersIds().get(1), equalTo(user2.getId()));
   }
 
+  @Test
+  public void addUser_normalScenario_shouldLoadInvitingUserOnce() throws Exception {
+    azkarApi.makeFriends(user1, user2);
+    double userCacheHitsBefore = getUserRepoRequestCacheHits();
+
+    azkarApi.addUserToGroup(/*invitingUser=*/user1, user2, user1Group.getId())
+        .andExpect(status().isOk());
+
+    // The inviting user is loaded twice by the controller.
+    assertThat(getUserRepoRequestCacheHits(), is(userCacheHitsBefore + 1));
+  }
+
   @Test
   public void addUser_notFriend_shouldFail() throws Exception {
     AddToGroupResponse expectedResponse = new AddToGroupResponse();
@@ -323,6 +353,55 @@ public class GroupControllerTest extends TestBase {
         .andExpect(content().json(JsonHandler.toJson(expectedResponse)));
   }
 
+  @Test
+  public void getGroups_streamed_shouldReturnSameGroups() throws Exception {
+    azkarApi.addGroupAndReturn(user1, "group1");
+    azkarApi.addGroupAndReturn(user1, "group2");
+
+    String response = azkarApi.getGroups(user1)
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+    MockHttpServletResponse streamedResponse = azkarApi.getGroupsStreamed(user1);
+
+    assertThat(streamedResponse.getStatus(), is(HttpStatus.OK.value()));
+    JSONAssert.assertEquals(response, streamedResponse.getContentAsString(), /* strict= */ true);
+  }
+
+  @Test
+  public void getGroups_unchangedGroups_shouldReturnNotModified() throws Exception {
+    azkarApi.makeFriends(user1, user2);
+    String eTag = azkarApi.getGroups(user1)
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+    azkarApi.getGroups(user1, eTag)
+        .andExpect(status().isNotModified())
+        .andExpect(content().string(""));
+
+    azkarApi.addUserToGroup(/*invitingUser=*/user1, user2, user1Group.getId())
+        .andExpect(status().isOk());
+
+    String newETag = azkarApi.getGroups(user1, eTag)
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    assertThat(newETag, not(equalTo(eTag)));
+  }
+
+  @Test
+  public void getGroups_query_shouldUseUsersIdsIndex() {
+    Document explainCommand = new Document("explain",
+        new Document("find", mongoTemplate.getCollectionName(Group.class))
+            .append("filter", new Document("usersIds", user1.getId())))
+        .append("verbosity", "queryPlanner");
+
+    Document explainResult = mongoTemplate.getDb().runCommand(explainCommand);
+
+    String winningPlan = ((Document) explainResult.get("queryPlanner")).get("winningPlan")
+        .toString();
+    assertThat(winningPlan, containsString("IXSCAN"));
+    assertThat(winningPlan, containsString("users_ids_index"));
+  }
+
   @Test
   public void getGroup_normalScenario_shouldSucceed() throws Exception {
     azkarApi.addGroup(user1, "group1");
@@ -447,6 +526,45 @@ public class GroupControllerTest extends TestBase {
         .andReturn();
   }
 
+  @Test
+  public void getGroupLeaderboard_monthPeriod_ranksScoresOfPreviousMonthsAsZeros()
+      throws Exception {
+    User user1 = getNewRegisteredUser();
+    User user2 = getNewRegisteredUser();
+    azkarApi.makeFriends(user1, user2);
+
+    Group group = azkarApi.addGroupAndReturn(user1, "group");
+    int user1GroupIndex = getLastAddedUserGroupIndex(user1);
+    azkarApi.addUserToGroup(/*invitingUser=*/user1, user2, group.getId());
+    int user2GroupIndex = getLastAddedUserGroupIndex(user2);
+
+    long previousMonthStart = LocalDate.now(ZoneOffset.UTC).minusMonths(1).withDayOfMonth(1)
+        .atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+    User user1InDb = userRepo.findById(user1.getId()).get();
+    User user2InDb = userRepo.findById(user2.getId()).get();
+    UserGroup user1Group = user1InDb.getUserGroups().get(user1GroupIndex);
+    user1Group.setMonthScore(5);
+    user1Group.setMonthStart(ScorePeriod.MONTH.getCurrentStart());
+    UserGroup user2Group = user2InDb.getUserGroups().get(user2GroupIndex);
+    user2Group.setMonthScore(10);
+    user2Group.setMonthStart(previousMonthStart);
+    userRepo.save(user1InDb);
+    userRepo.save(user2InDb);
+
+    GetGroupLeaderboardResponse expectedResponse = new GetGroupLeaderboardResponse();
+    expectedResponse.setData(ImmutableList.of(
+        UserScore.builder().firstName(user1.getFirstName()).lastName(user1.getLastName())
+            .username(user1.getUsername()).totalScore(5)
+            .build(),
+        UserScore.builder().firstName(user2.getFirstName()).lastName(user2.getLastName())
+            .username(user2.getUsername()).totalScore(0)
+            .build()));
+    azkarApi.getGroupLeaderboard(user1, group.getId(), "period=month")
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+        .andExpect(content().json(JsonHandler.toJson(expectedResponse)));
+  }
+
   @Test
   public void getGroupLeaderboard_binaryGroup_accountsForOtherGroupsScore() throws Exception {
     User user1 = getNewRegisteredUser();
@@ -478,6 +596,10 @@ public class GroupControllerTest extends TestBase {
 
     userRepo.save(user1InDb);
     userRepo.save(user2InDb);
+    // The scores are written directly, so the pair scores are updated as finishing challenges
+    // would have updated them.
+    pairScoreRepo.incrementScore(user1.getId(), ImmutableList.of(user2.getId()), 5 + 10);
+    pairScoreRepo.incrementScore(user2.getId(), ImmutableList.of(user1.getId()), 50 + 100);
     GetGroupLeaderboardResponse expectedResponse = new GetGroupLeaderboardResponse();
     List<UserScore> expectedUserScores = new ArrayList<>();
     expectedUserScores.add(
@@ -504,6 +626,55 @@ public class GroupControllerTest extends TestBase {
         .andReturn();
   }
 
+  @Test
+  public void getGroupLeaderboard_limitAndOffset_returnsRequestedPage() throws Exception {
+    User user1 = getNewRegisteredUser();
+    User user2 = getNewRegisteredUser();
+    User user3 = getNewRegisteredUser();
+    azkarApi.makeFriends(user1, user2);
+    azkarApi.makeFriends(user1, user3);
+
+    Group group = azkarApi.addGroupAndReturn(user1, "group");
+    int user1GroupIndex = getLastAddedUserGroupIndex(user1);
+    azkarApi.addUserToGroup(/*invitingUser=*/user1, user2, group.getId());
+    int user2GroupIndex = getLastAddedUserGroupIndex(user2);
+    azkarApi.addUserToGroup(/*invitingUser=*/user1, user3, group.getId());
+    int user3GroupIndex = getLastAddedUserGroupIndex(user3);
+
+    User user1InDb = userRepo.findById(user1.getId()).get();
+    User user2InDb = userRepo.findById(user2.getId()).get();
+    User user3InDb = userRepo.findById(user3.getId()).get();
+    user1InDb.getUserGroups().get(user1GroupIndex).setTotalScore(5);
+    user2InDb.getUserGroups().get(user2GroupIndex).setTotalScore(15);
+    user3InDb.getUserGroups().get(user3GroupIndex).setTotalScore(10);
+    userRepo.save(user1InDb);
+    userRepo.save(user2InDb);
+    userRepo.save(user3InDb);
+
+    GetGroupLeaderboardResponse expectedResponse = new GetGroupLeaderboardResponse();
+    expectedResponse.setData(ImmutableList.of(
+        UserScore.builder().firstName(user3.getFirstName()).lastName(user3.getLastName())
+            .username(user3.getUsername()).totalScore(10)
+            .build()));
+    azkarApi.getGroupLeaderboard(user1, group.getId(), "offset=1&limit=1")
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+        .andExpect(content().json(JsonHandler.toJson(expectedResponse)));
+  }
+
+  @Test
+  public void getGroupLeaderboard_invalidLimit_shouldFail() throws Exception {
+    User user = getNewRegisteredUser();
+    Group group = azkarApi.addGroupAndReturn(user, "group");
+
+    GetGroupLeaderboardResponse expectedResponse = new GetGroupLeaderboardResponse();
+    expectedResponse.setStatus(new Status(Status.INVALID_PAGINATION_PARAMETERS_ERROR));
+    azkarApi.getGroupLeaderboard(user, group.getId(), "limit=0")
+        .andExpect(status().isBadRequest())
+        .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+        .andExpect(content().json(JsonHandler.toJson(expectedResponse)));
+  }
+
   @Test
   public void getGroupLeaderboard_userNotInGroup_shouldFail() throws Exception {
     User user = UserFactory.getNewUser();
@@ -533,4 +704,10 @@ public class GroupControllerTest extends TestBase {
   private int getLastAddedUserGroupIndex(User user1) {
     return userRepo.findById(user1.getId()).get().getUserGroups().size() - 1;
   }
+
+  private double getUserRepoRequestCacheHits() {
+    return meterRegistry
+        .counter("repositories.request.cache", "repository", "UserRepo", "result", "hit")
+        .count();
+  }
 }
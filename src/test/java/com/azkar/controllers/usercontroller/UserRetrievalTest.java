@@ -1,6 +1,10 @@
 package com.azkar.controllers.usercontroller;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.azkar.TestBase;
@@ -10,6 +14,7 @@ import com.azkar.factories.entities.UserFactory;
 import com.azkar.payload.ResponseBase.Status;
 import com.azkar.payload.usercontroller.responses.GetUserResponse;
 import org.junit.Test;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.ResultActions;
 
@@ -30,6 +35,34 @@ public class UserRetrievalTest extends TestBase {
         .andExpect(content().json(JsonHandler.toJson(expectedResponse)));
   }
 
+  @Test
+  public void getLoggedInUserProfile_unchangedProfile_shouldReturnNotModified() throws Exception {
+    User user = getNewRegisteredUser();
+    String eTag = azkarApi.getProfile(user)
+        .andExpect(status().isOk())
+        .andExpect(header().exists(HttpHeaders.ETAG))
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+    azkarApi.getProfile(user, eTag)
+        .andExpect(status().isNotModified())
+        .andExpect(content().string(""));
+  }
+
+  @Test
+  public void getLoggedInUserProfile_changedProfile_shouldReturnNewProfile() throws Exception {
+    User user = getNewRegisteredUser();
+    String eTag = azkarApi.getProfile(user)
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    createPersonalChallenge(user);
+
+    String newETag = azkarApi.getProfile(user, eTag)
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+    assertThat(newETag, not(equalTo(eTag)));
+    azkarApi.getProfile(user, newETag).andExpect(status().isNotModified());
+  }
+
   @Test
   public void getUserById_validUserId_shouldSucceed() throws Exception {
     String userId = "example id";
@@ -14,6 +14,7 @@ import com.azkar.payload.groupcontroller.requests.AddGroupRequest;
 import com.azkar.payload.groupcontroller.responses.AddGroupResponse;
 import com.azkar.payload.usercontroller.requests.SetNotificationTokenRequestBody;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.stereotype.Service;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
@@ -28,6 +29,10 @@ public class AzkarApi {
     return httpClient.performGetRequest(user, "/users/me");
   }
 
+  public ResultActions getProfile(User user, String eTag) throws Exception {
+    return httpClient.performConditionalGetRequest(user, "/users/me", eTag);
+  }
+
   public ResultActions getProfileWithoutAuthentication() throws Exception {
     return httpClient.performGetRequest(/*user=*/ (User) null, "/users/me");
   }
@@ -107,6 +112,21 @@ public class AzkarApi {
         .performGetRequest(user, "/challenges/");
   }
 
+  public ResultActions getAllChallengesWithETag(User user, String eTag) throws Exception {
+    return httpClient.performConditionalGetRequest(user, "/challenges/", eTag);
+  }
+
+  public ResultActions getAllChallenges(User user, String queryParameters) throws Exception {
+    return httpClient
+        .performGetRequest(user, String.format("/challenges/?%s", queryParameters));
+  }
+
+  public MockHttpServletResponse getAllChallengesStreamed(User user, String queryParameters)
+      throws Exception {
+    return httpClient.performStreamedGetRequest(user,
+        String.format("/challenges/?%s&stream=true", queryParameters));
+  }
+
   public ResultActions updateChallenge(User user, String challengeId,
       UpdateChallengeRequest request) throws Exception {
     return httpClient.performPutRequest(user, String.format("/challenges/%s", challengeId),
@@ -117,6 +137,17 @@ public class AzkarApi {
     return httpClient.performGetRequest(user, "/challenges/personal");
   }
 
+  public ResultActions getPersonalChallenges(User user, String queryParameters) throws Exception {
+    return httpClient
+        .performGetRequest(user, String.format("/challenges/personal?%s", queryParameters));
+  }
+
+  public ResultActions getArchivedChallenges(User user, String queryParameters)
+      throws Exception {
+    return httpClient
+        .performGetRequest(user, String.format("/challenges/archive?%s", queryParameters));
+  }
+
   public ResultActions updatePersonalChallenge(User user, String challengeId,
       UpdateChallengeRequest body)
       throws Exception {
@@ -148,10 +179,24 @@ public class AzkarApi {
     return httpClient.performGetRequest(user, "/groups");
   }
 
+  public ResultActions getGroups(User user, String eTag) throws Exception {
+    return httpClient.performConditionalGetRequest(user, "/groups", eTag);
+  }
+
+  public MockHttpServletResponse getGroupsStreamed(User user) throws Exception {
+    return httpClient.performStreamedGetRequest(user, "/groups?stream=true");
+  }
+
   public ResultActions getGroupLeaderboard(User user, String groupId) throws Exception {
     return httpClient.performGetRequest(user, String.format("/groups/%s/leaderboard", groupId));
   }
 
+  public ResultActions getGroupLeaderboard(User user, String groupId, String queryParameters)
+      throws Exception {
+    return httpClient.performGetRequest(user,
+        String.format("/groups/%s/leaderboard?%s", groupId, queryParameters));
+  }
+
   public ResultActions addUserToGroup(User invitingUser, User invitedUser, String groupId)
       throws Exception {
     return httpClient.performPutRequest(invitingUser, String.format("/groups/%s/add/%s", groupId,
@@ -159,6 +204,11 @@ public class AzkarApi {
         /*body=*/ null);
   }
 
+  public ResultActions leaveGroup(User user, String groupId) throws Exception {
+    return httpClient.performPutRequest(user, String.format("/groups/%s/leave", groupId),
+        /*body=*/ null);
+  }
+
   public ResultActions resetPassword(String email) throws Exception {
     return httpClient.performPostRequest("/reset_password",
         JsonHandler.toJson(ResetPasswordRequest.builder().email(email).build()));
@@ -196,10 +246,28 @@ public class AzkarApi {
         .performDeleteRequest(requester, String.format("/friends/%s", otherUser.getId()));
   }
 
+  public ResultActions getFriends(User user) throws Exception {
+    return httpClient.performGetRequest(user, "/friends");
+  }
+
+  public ResultActions getFriends(User user, String eTag) throws Exception {
+    return httpClient.performConditionalGetRequest(user, "/friends", eTag);
+  }
+
+  public MockHttpServletResponse getFriendsStreamed(User user) throws Exception {
+    return httpClient.performStreamedGetRequest(user, "/friends?stream=true");
+  }
+
   public ResultActions getFriendsLeaderboard(User user) throws Exception {
     return httpClient.performGetRequest(user, "/friends/leaderboard");
   }
 
+  public ResultActions getFriendsLeaderboard(User user, String queryParameters)
+      throws Exception {
+    return httpClient
+        .performGetRequest(user, String.format("/friends/leaderboard?%s", queryParameters));
+  }
+
   public void makeFriends(User user1, User user2) throws Exception {
     sendFriendRequest(user1, user2);
     acceptFriendRequest(user2, user1);
@@ -0,0 +1,90 @@
+package com.azkar.controllers.utils;
+
+import com.azkar.services.FacebookGraphService.BasicProfile;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * A local stand-in for the /me endpoint of the Facebook Graph API, answering with the profiles of
+ * the access tokens added to it after an optional latency. Unknown tokens are rejected the way
+ * the Graph API rejects them.
+ */
+public class FacebookGraphStub {
+
+  private static final String INVALID_TOKEN_RESPONSE =
+      "{\"error\":{\"message\":\"Invalid OAuth access token.\",\"type\":\"OAuthException\","
+          + "\"code\":190}}";
+
+  private final Map<String, BasicProfile> profiles = new ConcurrentHashMap<>();
+  private final AtomicInteger requestsCount = new AtomicInteger();
+  private final HttpServer server;
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+  private volatile long latencyMillis;
+
+  public FacebookGraphStub() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/me", this::handleMe);
+    server.setExecutor(executor);
+    server.start();
+  }
+
+  public String getBaseUrl() {
+    return String.format("http://localhost:%d", server.getAddress().getPort());
+  }
+
+  public void addProfile(String accessToken, BasicProfile profile) {
+    profiles.put(accessToken, profile);
+  }
+
+  public void setLatencyMillis(long latencyMillis) {
+    this.latencyMillis = latencyMillis;
+  }
+
+  public int getRequestsCount() {
+    return requestsCount.get();
+  }
+
+  public void stop() {
+    server.stop(/* delay= */ 0);
+    executor.shutdownNow();
+  }
+
+  private void handleMe(HttpExchange exchange) throws IOException {
+    requestsCount.incrementAndGet();
+    try {
+      TimeUnit.MILLISECONDS.sleep(latencyMillis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    String accessToken = UriComponentsBuilder.fromUri(exchange.getRequestURI()).build()
+        .getQueryParams().getFirst("access_token");
+    BasicProfile profile = accessToken == null ? null : profiles.get(accessToken);
+    if (profile == null) {
+      respond(exchange, 400, INVALID_TOKEN_RESPONSE);
+    } else {
+      respond(exchange, 200, JsonHandler.toJson(profile));
+    }
+  }
+
+  private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+    exchange.sendResponseHeaders(status, bytes.length);
+    try (OutputStream responseBody = exchange.getResponseBody()) {
+      responseBody.write(bytes);
+    }
+  }
+}
@@ -1,9 +1,11 @@
 package com.azkar.controllers.utils;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 
 import com.auth0.jwt.JWT;
 import com.auth0.jwt.algorithms.Algorithm;
@@ -15,8 +17,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.stereotype.Service;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.RequestBuilder;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
@@ -41,6 +45,45 @@ public class HttpClient {
     return mockMvc.perform(requestBuilder);
   }
 
+  public ResultActions performGetRequest(User user, String path, HttpHeaders headers)
+      throws Exception {
+    MockHttpServletRequestBuilder requestBuilder = get(path);
+    addAuthenticationToken(requestBuilder, user);
+    requestBuilder.headers(headers);
+    return mockMvc.perform(requestBuilder);
+  }
+
+  // Performs a GET request whose response is streamed and waits until the response is written.
+  public MockHttpServletResponse performStreamedGetRequest(User user, String path)
+      throws Exception {
+    MockHttpServletRequestBuilder requestBuilder = get(path);
+    addAuthenticationToken(requestBuilder, user);
+    MvcResult result = mockMvc.perform(requestBuilder).andExpect(request().asyncStarted())
+        .andReturn();
+    result.getAsyncResult();
+    return result.getResponse();
+  }
+
+  // Performs a GET request that is handled asynchronously, e.g. by a handler of the reactive
+  // serving profile, and dispatches its result.
+  public ResultActions performAsyncGetRequest(User user, String path, HttpHeaders headers)
+      throws Exception {
+    MockHttpServletRequestBuilder requestBuilder = get(path);
+    addAuthenticationToken(requestBuilder, user);
+    requestBuilder.headers(headers);
+    MvcResult result = mockMvc.perform(requestBuilder).andExpect(request().asyncStarted())
+        .andReturn();
+    return mockMvc.perform(asyncDispatch(result));
+  }
+
+  public ResultActions performConditionalGetRequest(User user, String path, String eTag)
+      throws Exception {
+    MockHttpServletRequestBuilder requestBuilder = get(path);
+    addAuthenticationToken(requestBuilder, user);
+    requestBuilder.header(HttpHeaders.IF_NONE_MATCH, eTag);
+    return mockMvc.perform(requestBuilder);
+  }
+
   public ResultActions performPostRequest(String path, String body) throws Exception {
     MockHttpServletRequestBuilder requestBuilder = post(path);
     addRequestBody(requestBuilder, body);
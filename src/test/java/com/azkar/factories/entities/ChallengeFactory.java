@@ -13,16 +13,17 @@ public class ChallengeFactory {
   public final static long EXPIRY_DATE_OFFSET = 60 * 60;
   private static int challengesRequested = 0;
 
+  // Only the IDs of the azkar are sent, their texts are those of test-azkar.csv.
   public static SubChallenge subChallenge1() {
     return SubChallenge.builder()
-        .zekr(Zekr.builder().id(1).zekr("zekr").build())
+        .zekr(Zekr.builder().id(1).build())
         .repetitions(3)
         .build();
   }
 
   public static SubChallenge subChallenge2() {
     return SubChallenge.builder()
-        .zekr(Zekr.builder().id(2).zekr("zekr2").build())
+        .zekr(Zekr.builder().id(2).build())
         .repetitions(5)
         .build();
   }
@@ -0,0 +1,151 @@
+package com.azkar.reactive;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.azkar.TestBase;
+import com.azkar.controllers.utils.JsonHandler;
+import com.azkar.entities.Challenge;
+import com.azkar.entities.Group;
+import com.azkar.entities.User;
+import com.azkar.payload.ResponseBase.Status;
+import com.azkar.payload.challengecontroller.responses.GetChallengeResponse;
+import com.azkar.payload.challengecontroller.responses.GetChallengesResponse;
+import com.azkar.payload.homecontroller.GetHomeResponse;
+import org.junit.Before;
+import org.junit.Test;
+import org.skyscreamer.jsonassert.JSONAssert;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.ResultActions;
+
+// The streamed responses are still written by the blocking handlers, and they are the same as the
+// non-streamed ones, so they are what the reactive responses are compared to.
+@ActiveProfiles(ReactiveReadController.PROFILE)
+public class ReactiveReadControllersTest extends TestBase {
+
+  private User user1;
+  private User user2;
+  private Group group;
+
+  @Before
+  public void before() throws Exception {
+    user1 = getNewRegisteredUser();
+    user2 = getNewRegisteredUser();
+    group = azkarApi.addGroupAndReturn(user1, "group");
+  }
+
+  @Test
+  public void getHome_reactiveProfile_shouldReturnUser() throws Exception {
+    GetHomeResponse response = getResponse(
+        performReactiveGetRequest(user1, "/").andExpect(status().isOk()), GetHomeResponse.class);
+
+    assertThat(response.getData().getId(), is(user1.getId()));
+    assertThat(response.getData().getUserGroups().get(0).getGroupId(), is(group.getId()));
+  }
+
+  @Test
+  public void getHome_reactiveProfile_notModified_shouldReturnNotModified() throws Exception {
+    String eTag = performReactiveGetRequest(user1, "/").andExpect(status().isOk())
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+    HttpHeaders headers = new HttpHeaders();
+    headers.setIfNoneMatch(eTag);
+    httpClient.performAsyncGetRequest(user1, "/", headers)
+        .andExpect(status().isNotModified())
+        .andExpect(header().string(HttpHeaders.ETAG, eTag));
+  }
+
+  @Test
+  public void getFriends_reactiveProfile_shouldReturnSameFriends() throws Exception {
+    azkarApi.makeFriends(user1, user2);
+
+    String response = performReactiveGetRequest(user1, "/friends")
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString(UTF_8);
+    MockHttpServletResponse streamedResponse = azkarApi.getFriendsStreamed(user1);
+
+    assertThat(streamedResponse.getStatus(), is(HttpStatus.OK.value()));
+    JSONAssert.assertEquals(streamedResponse.getContentAsString(UTF_8), response,
+        /* strict= */ true);
+  }
+
+  @Test
+  public void getGroups_reactiveProfile_shouldReturnSameGroups() throws Exception {
+    azkarApi.addGroupAndReturn(user1, "group2");
+
+    String response = performReactiveGetRequest(user1, "/groups")
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString(UTF_8);
+    MockHttpServletResponse streamedResponse = azkarApi.getGroupsStreamed(user1);
+
+    assertThat(streamedResponse.getStatus(), is(HttpStatus.OK.value()));
+    JSONAssert.assertEquals(streamedResponse.getContentAsString(UTF_8), response,
+        /* strict= */ true);
+  }
+
+  @Test
+  public void getGroups_reactiveProfile_notModified_shouldReturnNotModified() throws Exception {
+    String eTag = performReactiveGetRequest(user1, "/groups").andExpect(status().isOk())
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+    HttpHeaders headers = new HttpHeaders();
+    headers.setIfNoneMatch(eTag);
+    httpClient.performAsyncGetRequest(user1, "/groups", headers)
+        .andExpect(status().isNotModified())
+        .andExpect(header().string(HttpHeaders.ETAG, eTag));
+  }
+
+  @Test
+  public void getAllChallenges_reactiveProfile_shouldReturnSameChallenges() throws Exception {
+    for (int i = 0; i < 3; i++) {
+      createGroupChallenge(user1, group.getId());
+    }
+
+    for (String queryParameters : new String[]{"limit=2", "filter=active"}) {
+      String response = performReactiveGetRequest(user1, "/challenges/?" + queryParameters)
+          .andExpect(status().isOk())
+          .andReturn().getResponse().getContentAsString(UTF_8);
+      MockHttpServletResponse streamedResponse =
+          azkarApi.getAllChallengesStreamed(user1, queryParameters);
+
+      assertThat(streamedResponse.getStatus(), is(HttpStatus.OK.value()));
+      JSONAssert.assertEquals(streamedResponse.getContentAsString(UTF_8), response,
+          /* strict= */ true);
+    }
+  }
+
+  @Test
+  public void getAllChallengesInGroup_reactiveProfile_nonMember_shouldFail() throws Exception {
+    createGroupChallenge(user1, group.getId());
+
+    GetChallengesResponse expectedResponse = new GetChallengesResponse();
+    expectedResponse.setStatus(new Status(Status.NON_GROUP_MEMBER_ERROR));
+    performReactiveGetRequest(user2, String.format("/challenges/groups/%s/", group.getId()))
+        .andExpect(status().isForbidden())
+        .andExpect(content().json(JsonHandler.toJson(expectedResponse)));
+  }
+
+  @Test
+  public void getOriginalChallenge_reactiveProfile_shouldReturnChallenge() throws Exception {
+    Challenge challenge = createGroupChallenge(user1, group.getId());
+
+    GetChallengeResponse response = getResponse(
+        performReactiveGetRequest(user1, "/challenges/original/" + challenge.getId())
+            .andExpect(status().isOk()), GetChallengeResponse.class);
+    assertThat(response.getData().getId(), is(challenge.getId()));
+
+    performReactiveGetRequest(user2, "/challenges/original/" + challenge.getId())
+        .andExpect(status().isNotFound());
+  }
+
+  private ResultActions performReactiveGetRequest(User user, String path) throws Exception {
+    return httpClient.performAsyncGetRequest(user, path, new HttpHeaders());
+  }
+}
@@ -0,0 +1,60 @@
+package com.azkar.services;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.exceptions.TokenExpiredException;
+import com.azkar.entities.User;
+import com.azkar.factories.entities.UserFactory;
+import java.util.Date;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class JwtServiceTest {
+
+  private static final String JWT_SECRET = "test_secret";
+
+  private JwtService jwtService;
+
+  @Before
+  public void setUp() throws Exception {
+    jwtService = new JwtService();
+    ReflectionTestUtils.setField(jwtService, "jwtSecret", JWT_SECRET);
+    ReflectionTestUtils.setField(jwtService, "verifiedTokensCacheMaxSize", 10);
+    jwtService.initialize();
+  }
+
+  @Test
+  public void verifyAndGetSubject_sameTokenVerifiedTwice_shouldReturnSubject() throws Exception {
+    User user = UserFactory.getNewUser();
+    String token = jwtService.generateToken(user);
+
+    assertThat(jwtService.verifyAndGetSubject(token), equalTo(user.getId()));
+    assertThat(jwtService.verifyAndGetSubject(token), equalTo(user.getId()));
+  }
+
+  @Test(expected = TokenExpiredException.class)
+  public void verifyAndGetSubject_expiredToken_shouldThrow() throws Exception {
+    User user = UserFactory.getNewUser();
+    String expiredToken = JWT.create()
+        .withSubject(user.getId())
+        .withExpiresAt(new Date(System.currentTimeMillis() - 1000))
+        .sign(Algorithm.HMAC512(JWT_SECRET));
+
+    jwtService.verifyAndGetSubject(expiredToken);
+  }
+
+  @Test(expected = JWTVerificationException.class)
+  public void verifyAndGetSubject_tamperedToken_shouldThrow() throws Exception {
+    User user = UserFactory.getNewUser();
+    String token = jwtService.generateToken(user);
+    // Verify the original token first so that it is cached.
+    jwtService.verifyAndGetSubject(token);
+
+    jwtService.verifyAndGetSubject(token.substring(0, token.length() - 2));
+  }
+}
@@ -0,0 +1,74 @@
+package com.azkar.services;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import com.azkar.TestBase;
+import com.azkar.entities.ScorePeriod;
+import com.azkar.payload.usercontroller.responses.GetFriendsLeaderboardResponse.FriendshipScores;
+import com.google.common.collect.ImmutableList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+public class LeaderboardsCacheTest extends TestBase {
+
+  @Autowired
+  LeaderboardsCache leaderboardsCache;
+
+  private final AtomicInteger loadsCount = new AtomicInteger();
+
+  @Test
+  public void invalidate_group_shouldOnlyEvictLeaderboardsDependingOnIt() {
+    getGroupLeaderboard("group1", Collections.emptyList());
+    getGroupLeaderboard("group2", Collections.emptyList());
+    getGroupLeaderboard("binaryGroup", ImmutableList.of("user1", "user2"));
+    getGroupLeaderboard("otherBinaryGroup", ImmutableList.of("user3", "user4"));
+    leaderboardsCache.getFriendsLeaderboard("user3", ScorePeriod.ALL_TIME,
+        this::loadFriendsLeaderboard);
+    assertThat(loadsCount.get(), is(5));
+
+    leaderboardsCache.invalidate("group1", "user1", ImmutableList.of("user1", "user2"));
+
+    getGroupLeaderboard("group2", Collections.emptyList());
+    getGroupLeaderboard("otherBinaryGroup", ImmutableList.of("user3", "user4"));
+    leaderboardsCache.getFriendsLeaderboard("user3", ScorePeriod.ALL_TIME,
+        this::loadFriendsLeaderboard);
+    assertThat(loadsCount.get(), is(5));
+
+    getGroupLeaderboard("group1", Collections.emptyList());
+    getGroupLeaderboard("binaryGroup", ImmutableList.of("user1", "user2"));
+    assertThat(loadsCount.get(), is(7));
+  }
+
+  @Test
+  public void invalidateFriendsLeaderboards_shouldOnlyEvictLeaderboardsOfTheUsers() {
+    leaderboardsCache.getFriendsLeaderboard("user1", ScorePeriod.ALL_TIME,
+        this::loadFriendsLeaderboard);
+    leaderboardsCache.getFriendsLeaderboard("user2", ScorePeriod.ALL_TIME,
+        this::loadFriendsLeaderboard);
+
+    leaderboardsCache.invalidateFriendsLeaderboards(ImmutableList.of("user1"));
+
+    leaderboardsCache.getFriendsLeaderboard("user1", ScorePeriod.ALL_TIME,
+        this::loadFriendsLeaderboard);
+    leaderboardsCache.getFriendsLeaderboard("user2", ScorePeriod.ALL_TIME,
+        this::loadFriendsLeaderboard);
+    assertThat(loadsCount.get(), is(3));
+  }
+
+  private void getGroupLeaderboard(String groupId, List<String> binaryGroupMembersIds) {
+    leaderboardsCache.getGroupLeaderboard(groupId, binaryGroupMembersIds, ScorePeriod.ALL_TIME,
+        /*offset=*/0, /*limit=*/null, () -> {
+          loadsCount.incrementAndGet();
+          return Collections.emptyList();
+        });
+  }
+
+  private List<FriendshipScores> loadFriendsLeaderboard() {
+    loadsCount.incrementAndGet();
+    return Collections.emptyList();
+  }
+}
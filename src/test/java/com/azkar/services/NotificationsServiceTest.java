@@ -0,0 +1,199 @@
+package com.azkar.services;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.azkar.entities.User;
+import com.google.firebase.messaging.BatchResponse;
+import com.google.firebase.messaging.FirebaseMessaging;
+import com.google.firebase.messaging.Message;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class NotificationsServiceTest {
+
+  private final FirebaseMessaging firebaseMessaging = mock(FirebaseMessaging.class);
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final NotificationsService notificationsService = new NotificationsService();
+  // The sizes of the batches sent to FCM in order.
+  private final List<Integer> sentBatchesSizes = new CopyOnWriteArrayList<>();
+  // Blocks the worker in its first sendAll call until it is counted down, so that the following
+  // notifications are queued.
+  private final CountDownLatch firstBatchSending = new CountDownLatch(1);
+  private final CountDownLatch firstBatchReleased = new CountDownLatch(1);
+
+  private final User user = User.builder()
+      .id("userId")
+      .notificationsToken("token")
+      .build();
+
+  @Before
+  public void setUp() {
+    ReflectionTestUtils.setField(notificationsService, "queueCapacity", 2000);
+    ReflectionTestUtils.setField(notificationsService, "workersNum", 1);
+    ReflectionTestUtils.setField(notificationsService, "shutdownTimeoutSeconds", 10);
+    ReflectionTestUtils.setField(notificationsService, "meterRegistry", meterRegistry);
+  }
+
+  @After
+  public void tearDown() {
+    firstBatchReleased.countDown();
+    notificationsService.shutdown();
+  }
+
+  @Test
+  public void sendNotificationToUser_manyQueuedNotifications_shouldBeSentInBatchesOf500()
+      throws Exception {
+    stubSendAll(/*failuresCount=*/0);
+    notificationsService.start(() -> firebaseMessaging);
+    queueWhileFirstBatchIsSending(1200);
+
+    firstBatchReleased.countDown();
+    notificationsService.shutdown();
+
+    assertThat(sentBatchesSizes, contains(1, 500, 500, 200));
+    assertThat(getCount("notifications.failed"), is(0.0));
+  }
+
+  @Test
+  public void sendNotificationToUser_fullQueue_shouldCountDroppedNotifications()
+      throws Exception {
+    ReflectionTestUtils.setField(notificationsService, "queueCapacity", 2);
+    stubSendAll(/*failuresCount=*/0);
+    notificationsService.start(() -> firebaseMessaging);
+    queueWhileFirstBatchIsSending(5);
+
+    assertThat(getCount("notifications.dropped"), is(3.0));
+  }
+
+  @Test
+  public void sendNotificationToUser_afterShutdown_shouldCountDroppedNotifications() {
+    notificationsService.start(() -> firebaseMessaging);
+    notificationsService.shutdown();
+
+    notificationsService.sendNotificationToUser(user, "title", "body");
+
+    assertThat(getCount("notifications.dropped"), is(1.0));
+  }
+
+  @Test
+  public void sendNotificationToUser_duringShutdown_shouldSendOrCountEveryNotification()
+      throws Exception {
+    int threadsNum = 4;
+    int notificationsPerThread = 1000;
+    stubSendAll(/*failuresCount=*/0);
+    firstBatchReleased.countDown();
+    notificationsService.start(() -> firebaseMessaging);
+    CountDownLatch sendersStarted = new CountDownLatch(threadsNum);
+    List<Thread> senders = new ArrayList<>();
+    for (int i = 0; i < threadsNum; i++) {
+      Thread sender = new Thread(() -> {
+        sendersStarted.countDown();
+        for (int j = 0; j < notificationsPerThread; j++) {
+          notificationsService.sendNotificationToUser(user, "title", "body");
+        }
+      });
+      sender.start();
+      senders.add(sender);
+    }
+
+    assertThat(sendersStarted.await(5, TimeUnit.SECONDS), is(true));
+    notificationsService.shutdown();
+    for (Thread sender : senders) {
+      sender.join();
+    }
+
+    int sentCount = sentBatchesSizes.stream().mapToInt(Integer::intValue).sum();
+    assertThat(sentCount + getCount("notifications.dropped"),
+        is((double) threadsNum * notificationsPerThread));
+  }
+
+  @Test
+  public void sendNotificationToUser_partialFailure_shouldCountFailedNotifications()
+      throws Exception {
+    stubSendAll(/*failuresCount=*/2);
+    notificationsService.start(() -> firebaseMessaging);
+    queueWhileFirstBatchIsSending(10);
+
+    firstBatchReleased.countDown();
+    notificationsService.shutdown();
+
+    assertThat(sentBatchesSizes, contains(1, 10));
+    assertThat(getCount("notifications.failed"), is(4.0));
+  }
+
+  @Test
+  public void sendNotificationToUser_unexpectedFcmError_shouldCountWholeBatchAsFailed()
+      throws Exception {
+    when(firebaseMessaging.sendAll(anyList())).thenAnswer(invocation -> {
+      recordBatch(invocation.getArgument(0));
+      throw new IllegalStateException("FirebaseApp was not initialized.");
+    });
+    notificationsService.start(() -> firebaseMessaging);
+    queueWhileFirstBatchIsSending(10);
+
+    firstBatchReleased.countDown();
+    notificationsService.shutdown();
+
+    assertThat(sentBatchesSizes, contains(1, 10));
+    assertThat(getCount("notifications.failed"), is(11.0));
+  }
+
+  @Test
+  public void shutdown_queuedNotifications_shouldBeSentBeforeShuttingDown() throws Exception {
+    stubSendAll(/*failuresCount=*/0);
+    notificationsService.start(() -> firebaseMessaging);
+    queueWhileFirstBatchIsSending(10);
+
+    firstBatchReleased.countDown();
+    notificationsService.shutdown();
+
+    assertThat(sentBatchesSizes.stream().mapToInt(Integer::intValue).sum(), is(11));
+    assertThat(getCount("notifications.dropped"), is(0.0));
+  }
+
+  // Only the failures count is stubbed since SendResponse is final.
+  private void stubSendAll(int failuresCount) throws Exception {
+    BatchResponse batchResponse = mock(BatchResponse.class);
+    when(batchResponse.getFailureCount()).thenReturn(failuresCount);
+    when(batchResponse.getResponses()).thenReturn(Collections.emptyList());
+    when(firebaseMessaging.sendAll(anyList())).thenAnswer(invocation -> {
+      recordBatch(invocation.getArgument(0));
+      return batchResponse;
+    });
+  }
+
+  private void recordBatch(List<Message> messages) throws InterruptedException {
+    sentBatchesSizes.add(messages.size());
+    if (sentBatchesSizes.size() == 1) {
+      firstBatchSending.countDown();
+      firstBatchReleased.await(5, TimeUnit.SECONDS);
+    }
+  }
+
+  private void queueWhileFirstBatchIsSending(int notificationsCount) throws Exception {
+    notificationsService.sendNotificationToUser(user, "title", "body");
+    assertThat(firstBatchSending.await(5, TimeUnit.SECONDS), is(true));
+    for (int i = 0; i < notificationsCount; i++) {
+      notificationsService.sendNotificationToUser(user, "title", "body");
+    }
+  }
+
+  private double getCount(String counterName) {
+    return meterRegistry.get(counterName).counter().count();
+  }
+}
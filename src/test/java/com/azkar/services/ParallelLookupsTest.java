@@ -0,0 +1,48 @@
+package com.azkar.services;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.azkar.TestBase;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+public class ParallelLookupsTest extends TestBase {
+
+  @Autowired
+  ParallelLookups parallelLookups;
+
+  @Test
+  public void start_independentLookups_shouldRunConcurrently() throws Exception {
+    // Every lookup waits for the other one, so they only finish if they run at the same time.
+    CountDownLatch started = new CountDownLatch(2);
+    CompletableFuture<Boolean> lookup1 = parallelLookups.start(() -> awaitOther(started));
+    CompletableFuture<Boolean> lookup2 = parallelLookups.start(() -> awaitOther(started));
+
+    assertThat(ParallelLookups.await(lookup1), is(true));
+    assertThat(ParallelLookups.await(lookup2), is(true));
+  }
+
+  @Test
+  public void await_failedLookup_shouldRethrowItsException() {
+    CompletableFuture<Object> lookup = parallelLookups.start(() -> {
+      throw new NoSuchElementException();
+    });
+
+    assertThrows(NoSuchElementException.class, () -> ParallelLookups.await(lookup));
+  }
+
+  private static boolean awaitOther(CountDownLatch started) {
+    started.countDown();
+    try {
+      return started.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}